@@ -0,0 +1,82 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import quickfix.DataDictionary;
+import quickfix.FieldNotFound;
+import quickfix.IncorrectTagValue;
+import quickfix.InvalidMessage;
+import quickfix.MessageCracker;
+import quickfix.SessionID;
+import quickfix.UnsupportedMessageType;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.Quote;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * {@link MessageCracker#crack} dispatch of already parsed messages to the
+ * onMessage handler of their type, as the FIX clients' fromApp does it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixCrackBenchmark {
+	private final SessionID sessionID = new SessionID("FIXT.1.1", FixMessages.TARGET_COMP_ID,
+			FixMessages.SENDER_COMP_ID);
+	private Cracker cracker;
+	private Quote quote;
+	private ExecutionReport executionReport;
+
+	@Setup
+	public void setup() throws InvalidMessage {
+		cracker = new Cracker();
+		quote = new Quote();
+		quote.fromString(FixMessages.quote("CS.D.GBPUSD.CZD.IP", 1), null, false);
+		executionReport = new ExecutionReport();
+		executionReport.fromString(FixMessages.executionReport("buy-1#1614600000123", 2), null, false);
+	}
+
+	@Benchmark
+	public void quote(Blackhole blackhole) throws UnsupportedMessageType, FieldNotFound, IncorrectTagValue {
+		cracker.blackhole = blackhole;
+		cracker.crack(quote, sessionID);
+	}
+
+	@Benchmark
+	public void executionReport(Blackhole blackhole)
+			throws UnsupportedMessageType, FieldNotFound, IncorrectTagValue {
+		cracker.blackhole = blackhole;
+		cracker.crack(executionReport, sessionID);
+	}
+
+	public static class Cracker extends MessageCracker {
+		private Blackhole blackhole;
+
+		public void onMessage(Quote quote, SessionID sessionID) throws FieldNotFound {
+			blackhole.consume(quote.getString(131));
+		}
+
+		public void onMessage(ExecutionReport executionReport, SessionID sessionID) throws FieldNotFound {
+			blackhole.consume(executionReport.getString(11));
+		}
+
+		public void onMessage(SecurityList securityList, SessionID sessionID) {
+			blackhole.consume(securityList);
+		}
+	}
+}
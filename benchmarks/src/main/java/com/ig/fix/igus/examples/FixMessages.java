@@ -0,0 +1,99 @@
+package com.ig.fix.igus.examples;
+
+import quickfix.ConfigError;
+import quickfix.DataDictionary;
+import quickfix.Message;
+import quickfix.field.BeginString;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.SenderCompID;
+import quickfix.field.SendingTime;
+import quickfix.field.TargetCompID;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.Quote;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * raw FIX messages as the IG acceptor sends them to the FIX clients. Decimal
+ * fields are set as strings so the same code builds against every
+ * quickfixj-core release.
+ */
+final class FixMessages {
+	static final String SENDER_COMP_ID = "FIXOTCIGUS1";
+	static final String TARGET_COMP_ID = "bogous";
+	private static final String SENDING_TIME = "20210301-12:00:00.123";
+	private static final int APPL_VER_ID = 1128;
+
+	private FixMessages() {
+	}
+
+	static DataDictionary dataDictionary(String location) {
+		try {
+			return new DataDictionary(location);
+		} catch (ConfigError e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	static String quote(String securityID, int seq) {
+		Quote quote = new Quote();
+		header(quote, seq);
+		quote.setString(131, securityID);// QuoteReqID
+		quote.setString(117, securityID + "-" + seq);// QuoteID
+		quote.setString(48, securityID);// SecurityID
+		quote.setString(22, "8");// SecurityIDSource
+		quote.setString(132, "1.39012");// BidPx
+		quote.setString(133, "1.39021");// OfferPx
+		quote.setString(60, SENDING_TIME);// TransactTime
+		return quote.toString();
+	}
+
+	static String executionReport(String clOrdID, int seq) {
+		ExecutionReport report = new ExecutionReport();
+		header(report, seq);
+		report.setString(37, "1614600000123-" + clOrdID);// OrderID
+		report.setString(11, clOrdID);// ClOrdID
+		report.setString(17, "1614600000123-" + seq);// ExecID
+		report.setString(150, "F");// ExecType Trade
+		report.setString(39, "2");// OrdStatus Filled
+		report.setString(48, "CS.D.GBPUSD.CZD.IP");// SecurityID
+		report.setString(22, "8");// SecurityIDSource
+		report.setString(54, "1");// Side Buy
+		report.setString(38, "1");// OrderQty
+		report.setString(31, "1.39012");// LastPx
+		report.setString(32, "1");// LastQty
+		report.setString(151, "0");// LeavesQty
+		report.setString(14, "1");// CumQty
+		report.setString(60, SENDING_TIME);// TransactTime
+		return report.toString();
+	}
+
+	static String securityList(int instruments, int seq) {
+		SecurityList securityList = new SecurityList();
+		header(securityList, seq);
+		securityList.setString(320, "example-secList-1");// SecurityReqID
+		securityList.setString(322, "example-secList-1");// SecurityResponseID
+		securityList.setString(560, "0");// SecurityRequestResult ValidRequest
+		for (int i = 0; i < instruments; i++) {
+			SecurityList.NoRelatedSym group = new SecurityList.NoRelatedSym();
+			String securityID = "CS.D.STUB" + i + ".CZD.IP";
+			group.setString(55, "STUB" + i);// Symbol
+			group.setString(48, securityID);// SecurityID
+			group.setString(22, "8");// SecurityIDSource
+			group.setString(1151, "CURRENCIES");// SecurityGroup
+			group.setString(107, "STUB" + i + " Contract");// SecurityDesc
+			group.setString(15, "USD");// Currency
+			securityList.addGroup(group);
+		}
+		return securityList.toString();
+	}
+
+	private static void header(Message message, int seq) {
+		Message.Header header = message.getHeader();
+		header.setString(BeginString.FIELD, "FIXT.1.1");
+		header.setString(SenderCompID.FIELD, SENDER_COMP_ID);
+		header.setString(TargetCompID.FIELD, TARGET_COMP_ID);
+		header.setInt(MsgSeqNum.FIELD, seq);
+		header.setString(SendingTime.FIELD, SENDING_TIME);
+		header.setString(APPL_VER_ID, "9");// FIX50SP2
+	}
+}
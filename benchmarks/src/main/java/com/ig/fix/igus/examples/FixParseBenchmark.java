@@ -0,0 +1,65 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import quickfix.DataDictionary;
+import quickfix.InvalidMessage;
+import quickfix.fix50sp2.Quote;
+
+/**
+ * parsing of a raw Quote into a quickfixj message, with and without the data
+ * dictionaries the FIX clients load for UseDataDictionary=Y. The dictionaries
+ * default to the IG ones of quickfixj-core; pass
+ * {@code -p transportDataDictionary=FIXT11.xml -p appDataDictionary=FIX50SP2.xml}
+ * to run against a stock quickfixj.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixParseBenchmark {
+	@Param({ "true", "false" })
+	private boolean useDataDictionary;
+	@Param("FIXT11.modified.xml")
+	private String transportDataDictionary;
+	@Param("FIX50SP2.modified.xml")
+	private String appDataDictionary;
+
+	private DataDictionary transport;
+	private DataDictionary app;
+	private String quote;
+
+	@Setup
+	public void setup() {
+		if (useDataDictionary) {
+			transport = FixMessages.dataDictionary(transportDataDictionary);
+			app = FixMessages.dataDictionary(appDataDictionary);
+		}
+		quote = FixMessages.quote("CS.D.GBPUSD.CZD.IP", 1);
+	}
+
+	@Benchmark
+	public Quote quote() throws InvalidMessage {
+		Quote message = new Quote();
+		if (useDataDictionary) {
+			message.fromString(quote, transport, app, false);
+		} else {
+			message.fromString(quote, null, false);
+		}
+		return message;
+	}
+}
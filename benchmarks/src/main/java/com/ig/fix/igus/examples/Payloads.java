@@ -0,0 +1,37 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * sample payloads and an {@link ObjectMapper} configured the way the spring
+ * boot clients get theirs, so the benchmarks measure the same codec settings.
+ */
+final class Payloads {
+
+	private Payloads() {
+	}
+
+	static ObjectMapper objectMapper() {
+		return new ObjectMapper()//
+				.findAndRegisterModules()//
+				.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)//
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	static String json(String name) {
+		try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+			if (in == null) {
+				throw new IllegalArgumentException("no payload " + name);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+		} catch (IOException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+}
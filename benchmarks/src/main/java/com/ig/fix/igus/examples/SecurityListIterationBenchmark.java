@@ -0,0 +1,75 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import quickfix.FieldNotFound;
+import quickfix.Group;
+import quickfix.InvalidMessage;
+import quickfix.field.NoRelatedSym;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * iteration of the NoRelatedSym groups of a parsed SecurityList.
+ * {@code getGroupCopies} is what FixMessageCracker used to do, copying each
+ * group into a new NoRelatedSym; {@code getGroups} walks the groups held by
+ * the message, as it does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityListIterationBenchmark {
+	@Param({ "10", "100", "1000" })
+	private int instruments;
+	@Param("FIXT11.modified.xml")
+	private String transportDataDictionary;
+	@Param("FIX50SP2.modified.xml")
+	private String appDataDictionary;
+
+	private SecurityList securityList;
+
+	@Setup
+	public void setup() throws InvalidMessage {
+		// the groups are only parsed as groups with a data dictionary
+		securityList = new SecurityList();
+		securityList.fromString(FixMessages.securityList(instruments, 1),
+				FixMessages.dataDictionary(transportDataDictionary), FixMessages.dataDictionary(appDataDictionary),
+				false);
+		if (securityList.getGroupCount(NoRelatedSym.FIELD) != instruments) {
+			throw new IllegalStateException("parsed " + securityList.getGroupCount(NoRelatedSym.FIELD)
+					+ " of " + instruments + " instruments");
+		}
+	}
+
+	@Benchmark
+	public void getGroupCopies(Blackhole blackhole) throws FieldNotFound {
+		int instrumentCount = securityList.getNoRelatedSym().getValue();
+		for (int i = 1; i <= instrumentCount; ++i) {
+			SecurityList.NoRelatedSym group = new SecurityList.NoRelatedSym();
+			securityList.getGroup(i, group);
+			blackhole.consume(group.getString(48));// SecurityID
+		}
+	}
+
+	@Benchmark
+	public void getGroups(Blackhole blackhole) throws FieldNotFound {
+		for (Group group : securityList.getGroups(NoRelatedSym.FIELD)) {
+			blackhole.consume(group.getString(48));// SecurityID
+		}
+	}
+}
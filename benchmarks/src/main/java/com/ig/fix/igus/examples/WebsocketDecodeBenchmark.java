@@ -0,0 +1,90 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.messages.ExecutionReport;
+import com.ig.orchestrations.us.rfed.messages.Quote;
+import com.ig.orchestrations.us.rfed.messages.SecurityList;
+
+/**
+ * decoding of inbound websocket frames the way the websocket clients
+ * originally did it: {@code toJsonNode} to find the MsgType, then
+ * {@code jsonNodeTo} to bind the tree to the message class. The
+ * {@code readValue} variants bind the text directly and show what the
+ * intermediate tree costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebsocketDecodeBenchmark {
+	private ObjectMapper objectMapper;
+	private String quote;
+	private String securityList;
+	private String executionReport;
+
+	@Setup
+	public void setup() {
+		objectMapper = Payloads.objectMapper();
+		quote = Payloads.json("quote.json");
+		securityList = Payloads.json("security-list.json");
+		executionReport = Payloads.json("execution-report.json");
+	}
+
+	@Benchmark
+	public Quote quoteTree() throws JsonProcessingException {
+		return jsonNodeTo(toJsonNode(quote), Quote.class);
+	}
+
+	@Benchmark
+	public SecurityList securityListTree() throws JsonProcessingException {
+		return jsonNodeTo(toJsonNode(securityList), SecurityList.class);
+	}
+
+	@Benchmark
+	public ExecutionReport executionReportTree() throws JsonProcessingException {
+		return jsonNodeTo(toJsonNode(executionReport), ExecutionReport.class);
+	}
+
+	@Benchmark
+	public Quote quoteReadValue() throws JsonProcessingException {
+		return objectMapper.readValue(quote, Quote.class);
+	}
+
+	@Benchmark
+	public SecurityList securityListReadValue() throws JsonProcessingException {
+		return objectMapper.readValue(securityList, SecurityList.class);
+	}
+
+	@Benchmark
+	public ExecutionReport executionReportReadValue() throws JsonProcessingException {
+		return objectMapper.readValue(executionReport, ExecutionReport.class);
+	}
+
+	private JsonNode toJsonNode(String payload) throws JsonProcessingException {
+		JsonNode node = objectMapper.readTree(payload);
+		// the clients read the discriminator before binding
+		node.get("MsgType").asText();
+		return node;
+	}
+
+	private <T> T jsonNodeTo(JsonNode node, Class<T> clazz) throws JsonProcessingException {
+		return objectMapper.treeToValue(node, clazz);
+	}
+}
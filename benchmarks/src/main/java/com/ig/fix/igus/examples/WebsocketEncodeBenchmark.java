@@ -0,0 +1,99 @@
+package com.ig.fix.igus.examples;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.fields.ApplVerID;
+import com.ig.orchestrations.us.rfed.fields.MsgType;
+import com.ig.orchestrations.us.rfed.fields.OrdType;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
+import com.ig.orchestrations.us.rfed.fields.Side;
+import com.ig.orchestrations.us.rfed.fields.SubscriptionRequestType;
+import com.ig.orchestrations.us.rfed.fields.TimeInForce;
+import com.ig.orchestrations.us.rfed.groups.QuotReqGrp;
+import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
+import com.ig.orchestrations.us.rfed.messages.QuoteRequest;
+
+/**
+ * {@code objectToJson} encoding of the outbound websocket messages, built the
+ * same way as in the websocket clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebsocketEncodeBenchmark {
+	private ObjectMapper objectMapper;
+	private QuoteRequest quoteRequest;
+	private NewOrderSingle newOrderSingle;
+
+	@Setup
+	public void setup() {
+		objectMapper = Payloads.objectMapper();
+		quoteRequest = quoteRequest("CS.D.GBPUSD.CZD.IP");
+		newOrderSingle = newOrderSingle("buy-1#1614600000123");
+	}
+
+	@Benchmark
+	public String quoteRequest() throws JsonProcessingException {
+		return objectToJson(quoteRequest);
+	}
+
+	@Benchmark
+	public String newOrderSingle() throws JsonProcessingException {
+		return objectToJson(newOrderSingle);
+	}
+
+	private String objectToJson(Object msg) throws JsonProcessingException {
+		return objectMapper.writeValueAsString(msg);
+	}
+
+	private static QuoteRequest quoteRequest(String securityID) {
+		QuoteRequest req = new QuoteRequest();
+		req.setSendingTime(new Date());
+		req.setApplVerID(ApplVerID.FIX_50_SP_2);
+		req.setMsgType(MsgType.QUOTE_REQUEST);
+		req.setQuoteReqID(securityID);
+		req.setSubscriptionRequestType(SubscriptionRequestType.SNAPSHOT);
+		QuotReqGrp quotReqGrp = new QuotReqGrp();
+		quotReqGrp.setSecurityID(securityID);
+		quotReqGrp.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+		req.setQuotReqGrp(List.of(quotReqGrp));
+		return req;
+	}
+
+	private static NewOrderSingle newOrderSingle(String clOrdID) {
+		NewOrderSingle req = new NewOrderSingle();
+		req.setApplVerID(ApplVerID.FIX_50_SP_2);
+		req.setMsgType(MsgType.NEW_ORDER_SINGLE);
+		req.setSendingTime(new Date());
+		req.setClOrdID(clOrdID);
+		req.setSide(Side.BUY);
+		req.setSecurityID("CS.D.GBPUSD.CZD.IP");
+		req.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+		req.setCurrency("USD");
+		req.setOrderQty(BigDecimal.ONE);
+		req.setOrdType(OrdType.MARKET);
+		req.setTimeInForce(TimeInForce.FILL_OR_KILL);
+		req.setTransactTime(new Date());
+		req.setAccount("bogous");
+		return req;
+	}
+}
@@ -0,0 +1,21 @@
+package com.ig.fix.igus.examples;
+
+import lombok.Data;
+
+@Data
+public class DispatchProperties {
+	/**
+	 * hand application messages to worker threads instead of handling them on the
+	 * QuickFIX/J session thread
+	 */
+	private boolean enabled;
+	/**
+	 * messages of one SecurityID are always handled by the same worker, in order
+	 */
+	private int workers = 2;
+	/**
+	 * messages each worker can have queued, rounded up to a power of two. The
+	 * session thread waits when the ring of a worker is full
+	 */
+	private int ringSize = 4096;
+}
@@ -0,0 +1,124 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import quickfix.Message;
+import quickfix.SessionID;
+
+/**
+ * Bounded ring of inbound messages between exactly one producer, the
+ * QuickFIX/J session thread, and one consumer, a dispatch worker.
+ * <p>
+ * Slots are preallocated arrays indexed by sequence &amp; mask. The producer
+ * owns {@code tail} and the consumer owns {@code head}; each only publishes
+ * its own counter, so no slot is ever contended and there are no locks or
+ * CAS. The consumer drains everything published in one go and releases the
+ * slots with a single write of {@code head}.
+ * <p>
+ * An idle consumer spins briefly, then parks; the producer only unparks it
+ * when it has said it is parking, so a busy ring costs no system calls.
+ */
+public class DispatchRing {
+	private static final int SPINS = 1000;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	public interface Handler {
+		void onMessage(Message message, SessionID sessionID, long publishedNanos);
+	}
+
+	private final int capacity;
+	private final int mask;
+	private final Message[] messages;
+	private final SessionID[] sessionIDs;
+	private final long[] publishedNanos;
+
+	private volatile long head;
+	private volatile long tail;
+	private volatile Thread parkedConsumer;
+	/**
+	 * producer only, the last head it has seen
+	 */
+	private long cachedHead;
+
+	public DispatchRing(int size) {
+		capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1);
+		mask = capacity - 1;
+		messages = new Message[capacity];
+		sessionIDs = new SessionID[capacity];
+		publishedNanos = new long[capacity];
+	}
+
+	/**
+	 * producer side
+	 *
+	 * @return false when the ring is full
+	 */
+	public boolean offer(Message message, SessionID sessionID, long nanos) {
+		long sequence = tail;
+		if (sequence - cachedHead >= capacity) {
+			cachedHead = head;
+			if (sequence - cachedHead >= capacity) {
+				return false;
+			}
+		}
+		int slot = (int) sequence & mask;
+		messages[slot] = message;
+		sessionIDs[slot] = sessionID;
+		publishedNanos[slot] = nanos;
+		tail = sequence + 1;
+		Thread consumer = parkedConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * consumer side, hands every published message to the handler
+	 *
+	 * @return the number of messages handled
+	 */
+	public int drain(Handler handler) {
+		long first = head;
+		long last = tail;
+		for (long sequence = first; sequence < last; ++sequence) {
+			int slot = (int) sequence & mask;
+			Message message = messages[slot];
+			SessionID sessionID = sessionIDs[slot];
+			messages[slot] = null;
+			sessionIDs[slot] = null;
+			handler.onMessage(message, sessionID, publishedNanos[slot]);
+		}
+		head = last;
+		return (int) (last - first);
+	}
+
+	/**
+	 * consumer side, returns once a message may have been published or the
+	 * thread is interrupted
+	 */
+	public void awaitMessages() {
+		for (int i = 0; i < SPINS; ++i) {
+			if (tail != head) {
+				return;
+			}
+			Thread.onSpinWait();
+		}
+		parkedConsumer = Thread.currentThread();
+		// the producer reads parkedConsumer after writing tail, so checking tail
+		// after writing parkedConsumer cannot miss a message
+		if (tail == head) {
+			LockSupport.parkNanos(this, MAX_PARK_NANOS);
+		}
+		parkedConsumer = null;
+	}
+
+	public int depth() {
+		return (int) (tail - head);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+}
@@ -2,12 +2,17 @@ package com.ig.fix.igus.examples;
 
 import static java.lang.Thread.currentThread;
 
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -15,14 +20,20 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 
 import io.allune.quickfixj.spring.boot.starter.EnableQuickFixJClient;
 import io.allune.quickfixj.spring.boot.starter.autoconfigure.QuickFixJBootProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import quickfix.Application;
 import quickfix.ConfigError;
+import quickfix.DefaultMessageFactory;
 import quickfix.Initiator;
 import quickfix.LogFactory;
 import quickfix.MessageCracker;
 import quickfix.MessageFactory;
 import quickfix.MessageStoreFactory;
+import quickfix.Session;
+import quickfix.SessionID;
 import quickfix.SessionSettings;
 import quickfix.ThreadedSocketInitiator;
 
@@ -35,6 +46,7 @@ import quickfix.ThreadedSocketInitiator;
  */
 @EnableQuickFixJClient
 @SpringBootApplication
+@Slf4j
 public class ExampleClientApplication {
 
     public static void main(String[] args) throws InterruptedException {
@@ -45,14 +57,174 @@ public class ExampleClientApplication {
     
 
     @Bean
-    public Application clientApplication() {
-        return new FixApplication(messageCracker());
+    public Application clientApplication(FixMessageRouter messageRouter,
+            ObjectProvider<ShardedDispatcher> dispatcher, FixMessageCracker messageCracker) {
+        return new FixApplication(messageRouter, dispatcher.getIfAvailable(), messageCracker);
     }
 
     @Bean
-    public MessageCracker messageCracker() {
-        return new FixMessageCracker();
+    public FixMessageRouter messageRouter(MessageCracker messageCracker) {
+        return new FixMessageRouter(messageCracker);
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.dispatch")
+    public DispatchProperties dispatchProperties() {
+        return new DispatchProperties();
+    }
+
+    /**
+     * only with app.dispatch.enabled, otherwise messages are handled on the
+     * QuickFIX/J session thread
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.dispatch", name = "enabled", havingValue = "true")
+    public ShardedDispatcher shardedDispatcher(FixMessageRouter messageRouter,
+            DispatchProperties dispatchProperties, MeterRegistry meterRegistry) {
+        return new ShardedDispatcher(messageRouter, dispatchProperties, meterRegistry);
+    }
+
+    @Bean
+    public FixMessageCracker messageCracker(FastQuoteProperties fastQuoteProperties, QuoteBook quoteBook,
+            InstrumentRegistry instrumentRegistry, SubscriptionScheduler subscriptionScheduler,
+            PartitionProperties partitionProperties, SubscriptionTracker subscriptionTracker,
+            ObjectProvider<QuoteConflator> quoteConflator, ObjectProvider<TickJournal> tickJournal,
+            ObjectProvider<InstrumentCatalog> instrumentCatalog) {
+        return new FixMessageCracker(new FastQuoteDecoder(instrumentRegistry), fastQuoteProperties.isEnabled(),
+                quoteBook, instrumentRegistry, subscriptionScheduler, partitionProperties.toPartitioner(),
+                subscriptionTracker, quoteConflator.getIfAvailable(), tickJournal.getIfAvailable(),
+                instrumentCatalog.getIfAvailable());
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.partition")
+    public PartitionProperties partitionProperties() {
+        return new PartitionProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.subscription")
+    public SubscriptionProperties subscriptionProperties() {
+        return new SubscriptionProperties();
+    }
+
+    /**
+     * only with app.subscription.stream-security-list, substituting the one of
+     * io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration
+     */
+    @Bean(name = "clientMessageFactory")
+    @ConditionalOnProperty(prefix = "app.subscription", name = "stream-security-list", havingValue = "true")
+    public MessageFactory clientMessageFactory() {
+        return new StreamingMessageFactory(new DefaultMessageFactory());
+    }
+
+    @Bean
+    public SubscriptionScheduler subscriptionScheduler(SubscriptionProperties subscriptionProperties,
+            MeterRegistry meterRegistry) {
+        return new SubscriptionScheduler(subscriptionProperties, meterRegistry);
+    }
+
+    /**
+     * dense int id per instrument, filled from the SecurityList and by quotes of
+     * instruments it did not list
+     */
+    @Bean
+    public InstrumentRegistry instrumentRegistry(@Value("${app.quote-book.capacity}") int capacity,
+            FastQuoteProperties fastQuoteProperties, MeterRegistry meterRegistry) {
+        InstrumentRegistry instrumentRegistry = new InstrumentRegistry(capacity, fastQuoteProperties.toTickScales());
+        FunctionCounter.builder("instruments.refused", instrumentRegistry, InstrumentRegistry::refused)//
+                .description("quotes dropped and listed instruments skipped for want of room or a too long SecurityID")//
+                .register(meterRegistry);
+        return instrumentRegistry;
+    }
+
+    /**
+     * subscription state per instrument, sessions that log on again request what
+     * they lost from it
+     */
+    @Bean
+    public SubscriptionTracker subscriptionTracker(InstrumentRegistry instrumentRegistry,
+            PartitionProperties partitionProperties, MeterRegistry meterRegistry) {
+        return new SubscriptionTracker(instrumentRegistry, partitionProperties.toPartitioner().sessions(),
+                meterRegistry);
+    }
+
+    /**
+     * latest quote per instrument, inject it wherever top of book is needed
+     */
+    @Bean
+    public QuoteBook quoteBook(InstrumentRegistry instrumentRegistry) {
+        return new QuoteBook(instrumentRegistry);
+    }
+
+    /**
+     * only with app.quote-conflation.enabled, delivers the freshest quote of each
+     * instrument to the downstream consumer, here a log, at its own pace
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.quote-conflation", name = "enabled", havingValue = "true")
+    public QuoteConflator quoteConflator(QuoteBook quoteBook, MeterRegistry meterRegistry) {
+        QuoteConflator quoteConflator = new QuoteConflator(quoteBook, meterRegistry);
+        quoteConflator.start(quote -> log.info("got quote {}", quote));
+        return quoteConflator;
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.tick-journal")
+    public TickJournalProperties tickJournalProperties() {
+        return new TickJournalProperties();
+    }
+
+    /**
+     * only with app.tick-journal.enabled, every received quote is appended to it,
+     * see FixMessageCracker.replay to feed it back
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.tick-journal", name = "enabled", havingValue = "true")
+    public TickJournal tickJournal(TickJournalProperties tickJournalProperties) {
+        return new TickJournal(Paths.get(tickJournalProperties.getDirectory()),
+                tickJournalProperties.getSegmentSize().toBytes(), tickJournalProperties.getRetainSegments());
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.instrument-catalog")
+    public InstrumentCatalogProperties instrumentCatalogProperties() {
+        return new InstrumentCatalogProperties();
+    }
+
+    /**
+     * only with app.instrument-catalog.enabled, the instruments of the last
+     * SecurityList are subscribed to as soon as a session logs on
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.instrument-catalog", name = "enabled", havingValue = "true")
+    public InstrumentCatalog instrumentCatalog(InstrumentCatalogProperties instrumentCatalogProperties) {
+        return new InstrumentCatalog(Paths.get(instrumentCatalogProperties.getFile()),
+                instrumentCatalogProperties.getMaxAge(), instrumentCatalogProperties.getSettleTime());
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.fast-quote")
+    public FastQuoteProperties fastQuoteProperties() {
+        return new FastQuoteProperties();
+    }
+    @Bean
+    @ConfigurationProperties(prefix = "app.message-store")
+    public MessageStoreProperties messageStoreProperties() {
+        return new MessageStoreProperties();
+    }
+
+    /**
+     * only with app.message-store.mapped, substituting the quickfixj.client.message-store-factory one of
+     * io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration
+     */
+    @Bean(name = "clientMessageStoreFactory")
+    @ConditionalOnProperty(prefix = "app.message-store", name = "mapped", havingValue = "true")
+    public MessageStoreFactory clientMessageStoreFactory(MessageStoreProperties messageStoreProperties) {
+        return new MappedFileStoreFactory(Paths.get(messageStoreProperties.getDirectory()),
+                (int) messageStoreProperties.getSegmentSize().toBytes(), messageStoreProperties.getSyncInterval());
+    }
+
     /**
      * substituting bean from io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration.clientSessionSettings(QuickFixJBootProperties) 
      * @param properties
@@ -65,6 +237,8 @@ public class ExampleClientApplication {
             @Value("${app.session.port}") int port,//
             @Value("${app.session.username}") String username,//
             @Value("${app.session.password}") String password,
+            @Value("${app.session.resume}") boolean resume,
+            PartitionProperties partitionProperties,
             QuickFixJBootProperties properties) {
         ClassLoader classLoader = currentThread().getContextClassLoader();
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
@@ -79,7 +253,41 @@ public class ExampleClientApplication {
         props.put("username", username);
         props.put("password", password);
 
-        return new SessionSettings(resource.getInputStream(), props);
+        SessionSettings settings = new SessionSettings(resource.getInputStream(), props);
+        if (resume) {
+            // keep sequence numbers across disconnects and restarts, ResendRequests are answered from the store
+            settings.setBool(Session.SETTING_RESET_ON_LOGON, false);
+            settings.setBool(Session.SETTING_RESET_ON_LOGOUT, false);
+            settings.setBool(Session.SETTING_RESET_ON_DISCONNECT, false);
+            settings.setBool(Session.SETTING_PERSIST_MESSAGES, true);
+        }
+        addPartitionSessions(settings, partitionProperties.getLogins());
+        return settings;
+    }
+
+    /**
+     * one more session per login, copied from the configured one. Each runs on a
+     * thread of its own in the ThreadedSocketInitiator and carries its partition
+     * index as SessionQualifier
+     */
+    private static void addPartitionSessions(SessionSettings settings, List<PartitionProperties.Login> logins)
+            throws ConfigError {
+        if (logins.isEmpty()) {
+            return;
+        }
+        SessionID first = settings.sectionIterator().next();
+        Properties firstProperties = settings.getSessionProperties(first, false);
+        for (int i = 0; i < logins.size(); ++i) {
+            PartitionProperties.Login login = logins.get(i);
+            String qualifier = String.valueOf(i + 1);
+            SessionID sessionID = new SessionID(first.getBeginString(), login.getUsername(), first.getTargetCompID(),
+                    qualifier);
+            firstProperties.forEach((key, value) -> settings.setString(sessionID, (String) key, (String) value));
+            settings.setString(sessionID, SessionSettings.SENDERCOMPID, login.getUsername());
+            settings.setString(sessionID, SessionSettings.SESSION_QUALIFIER, qualifier);
+            settings.setString(sessionID, "LogonTag", "553=" + login.getUsername());
+            settings.setString(sessionID, "LogonTag1", "554=" + login.getPassword());
+        }
     }
     @Bean
     public Initiator clientInitiator(quickfix.Application clientApplication,
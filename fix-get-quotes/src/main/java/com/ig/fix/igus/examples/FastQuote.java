@@ -0,0 +1,46 @@
+package com.ig.fix.igus.examples;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * reusable, mutable top of book quote. Prices are held as longs scaled to the
+ * instrument tick scale (see {@link ScaledDecimal}). Instances are overwritten
+ * by the next quote so copy what you need before returning from the handler.
+ */
+@Getter
+public class FastQuote {
+	private final AsciiSequence quoteReqId = new AsciiSequence(32);
+	private final AsciiSequence bidId = new AsciiSequence(48);
+	private final AsciiSequence offerId = new AsciiSequence(48);
+	/**
+	 * the {@link InstrumentRegistry} id of the QuoteReqID, -1 when the decoder
+	 * did not resolve it
+	 */
+	@Setter
+	private int instrumentId = -1;
+	@Setter
+	private long bidPx = ScaledDecimal.NONE;
+	@Setter
+	private long offerPx = ScaledDecimal.NONE;
+	@Setter
+	private int scale;
+
+	public FastQuote clear() {
+		quoteReqId.clear();
+		bidId.clear();
+		offerId.clear();
+		instrumentId = -1;
+		bidPx = ScaledDecimal.NONE;
+		offerPx = ScaledDecimal.NONE;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(128).append("FastQuote(quoteReqId=").append(quoteReqId)//
+				.append(", bidId=").append(bidId).append(", bidPx=");
+		ScaledDecimal.format(bidPx, scale, sb).append(", offerId=").append(offerId).append(", offerPx=");
+		return ScaledDecimal.format(offerPx, scale, sb).append(')').toString();
+	}
+}
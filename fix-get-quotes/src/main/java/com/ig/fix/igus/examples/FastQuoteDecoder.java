@@ -0,0 +1,52 @@
+package com.ig.fix.igus.examples;
+
+import quickfix.FieldMap;
+import quickfix.FieldNotFound;
+import quickfix.field.BidID;
+import quickfix.field.BidPx;
+import quickfix.field.OfferPx;
+import quickfix.field.QuoteReqID;
+
+/**
+ * Copies QuoteReqID, BidID, BidPx and OfferPx of a Quote into a reused
+ * {@link FastQuote}. The FIX Quote has no OfferID field so the offer id is left
+ * blank. Reads the raw field values QuickFIX/J already holds
+ * instead of creating typed fields and BigDecimals, so it does not allocate.
+ * The QuoteReqID is resolved to its {@link InstrumentRegistry} id, which also
+ * gives the tick scale, the id is -1 when the registry refused the instrument
+ * and the quote is to be dropped. A price that does not parse is left out, see
+ * {@link ScaledDecimal#parseOrNone}.
+ */
+public class FastQuoteDecoder {
+	private final InstrumentRegistry instrumentRegistry;
+
+	public FastQuoteDecoder(InstrumentRegistry instrumentRegistry) {
+		this.instrumentRegistry = instrumentRegistry;
+	}
+
+	public void decode(FieldMap quote, FastQuote into) throws FieldNotFound {
+		into.clear();
+		into.getQuoteReqId().set(quote.getString(QuoteReqID.FIELD));
+		copyIfSet(quote, BidID.FIELD, into.getBidId());
+		int instrumentId = instrumentRegistry.intern(into.getQuoteReqId());
+		into.setInstrumentId(instrumentId);
+		if (instrumentId < 0) {
+			// refused by the registry, the quote is to be dropped
+			return;
+		}
+		int scale = instrumentRegistry.scaleOf(instrumentId);
+		into.setScale(scale);
+		into.setBidPx(priceOf(quote, BidPx.FIELD, scale));
+		into.setOfferPx(priceOf(quote, OfferPx.FIELD, scale));
+	}
+
+	private static void copyIfSet(FieldMap quote, int tag, AsciiSequence to) throws FieldNotFound {
+		if (quote.isSetField(tag)) {
+			to.set(quote.getString(tag));
+		}
+	}
+
+	private static long priceOf(FieldMap quote, int tag, int scale) throws FieldNotFound {
+		return quote.isSetField(tag) ? ScaledDecimal.parseOrNone(quote.getString(tag), scale) : ScaledDecimal.NONE;
+	}
+}
@@ -6,7 +6,6 @@ import quickfix.FieldNotFound;
 import quickfix.IncorrectDataFormat;
 import quickfix.IncorrectTagValue;
 import quickfix.Message;
-import quickfix.MessageCracker;
 import quickfix.RejectLogon;
 import quickfix.Session;
 import quickfix.SessionID;
@@ -21,17 +20,33 @@ import quickfix.fixt11.Reject;
 @Slf4j
 public class FixApplication extends ApplicationAdapter {
 
-	private MessageCracker messageCracker;
+	private final FixMessageRouter messageRouter;
+	/**
+	 * null when messages are handled on the session thread
+	 */
+	private final ShardedDispatcher dispatcher;
+	private final FixMessageCracker messageCracker;
 
-	public FixApplication(MessageCracker messageCracker) {
+	public FixApplication(FixMessageRouter messageRouter, ShardedDispatcher dispatcher,
+			FixMessageCracker messageCracker) {
+		this.messageRouter = messageRouter;
+		this.dispatcher = dispatcher;
 		this.messageCracker = messageCracker;
 	}
 	
 	@Override
 	public void onLogon(SessionID sessionId) {
+		// instruments known to the session or the catalog are queued first, the
+		// SecurityList adds to them as it comes
+		messageCracker.onLogon(sessionId);
 		requestSecurityList(sessionId);
 	}
 
+	@Override
+	public void onLogout(SessionID sessionId) {
+		messageCracker.onLogout(sessionId);
+	}
+
 	private void requestSecurityList(SessionID sessionId) {
 		SecurityListRequest request = new SecurityListRequest(new SecurityReqID("secList-req-1"),
 				new SecurityListRequestType(SecurityListRequestType.ALL_SECURITIES));
@@ -55,7 +70,11 @@ public class FixApplication extends ApplicationAdapter {
 	public void fromApp(Message message, SessionID sessionId)
 			throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
 		//handle message if no handler method then reject
-		messageCracker.crack(message, sessionId);
+		if (dispatcher != null) {
+			dispatcher.dispatch(message, sessionId);
+		} else {
+			messageRouter.route(message, sessionId);
+		}
 	}
 	
 }
@@ -1,15 +1,26 @@
 package com.ig.fix.igus.examples;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 import lombok.extern.slf4j.Slf4j;
+import quickfix.FieldMap;
 import quickfix.FieldNotFound;
+import quickfix.Group;
 import quickfix.MessageCracker;
 import quickfix.Session;
 import quickfix.SessionID;
 import quickfix.SessionNotFound;
+import quickfix.field.ContractMultiplier;
+import quickfix.field.Currency;
+import quickfix.field.NoRelatedSym;
 import quickfix.field.QuoteReqID;
+import quickfix.field.SecurityGroup;
 import quickfix.field.SecurityID;
+import quickfix.field.SecurityIDSource;
 import quickfix.field.SubscriptionRequestType;
 import quickfix.field.Symbol;
 import quickfix.fix50sp2.BusinessMessageReject;
@@ -17,49 +28,329 @@ import quickfix.fix50sp2.Quote;
 import quickfix.fix50sp2.QuoteRequest;
 import quickfix.fix50sp2.QuoteRequestReject;
 import quickfix.fix50sp2.SecurityList;
-import quickfix.fix50sp2.SecurityList.NoRelatedSym;
 import quickfix.fix50sp2.component.QuotReqGrp;
 
 @Slf4j
 public class FixMessageCracker extends MessageCracker {
+	private final FastQuoteDecoder fastQuoteDecoder;
+	/**
+	 * when set quotes are only decoded into quoteRecord, no typed fields or
+	 * BigDecimals are created
+	 */
+	private final boolean fastQuote;
+	private final QuoteBook quoteBook;
+	private final InstrumentRegistry instrumentRegistry;
+	private final SubscriptionScheduler subscriptionScheduler;
+	/**
+	 * picks the instruments each session subscribes to
+	 */
+	private final SessionPartitioner partitioner;
+	/**
+	 * null unless quotes are conflated for a slow downstream
+	 */
+	private final QuoteConflator quoteConflator;
+	/**
+	 * null unless every quote is journalled
+	 */
+	private final TickJournal tickJournal;
+	/**
+	 * null unless the instruments of the last SecurityList are subscribed to on
+	 * logon
+	 */
+	private final InstrumentCatalog instrumentCatalog;
+	/**
+	 * what each instrument is subscribed to on, and how far, so that a session
+	 * logged on again requests what it lost and nothing else
+	 */
+	private final SubscriptionTracker subscriptionTracker;
+	/**
+	 * reused per thread, messages may be handled by more than one dispatch worker
+	 */
+	private final ThreadLocal<FastQuote> quoteRecords = ThreadLocal.withInitial(FastQuote::new);
+
+	public FixMessageCracker(FastQuoteDecoder fastQuoteDecoder, boolean fastQuote, QuoteBook quoteBook,
+			InstrumentRegistry instrumentRegistry, SubscriptionScheduler subscriptionScheduler,
+			SessionPartitioner partitioner, SubscriptionTracker subscriptionTracker, QuoteConflator quoteConflator,
+			TickJournal tickJournal, InstrumentCatalog instrumentCatalog) {
+		this.fastQuoteDecoder = fastQuoteDecoder;
+		this.fastQuote = fastQuote;
+		this.quoteBook = quoteBook;
+		this.instrumentRegistry = instrumentRegistry;
+		this.subscriptionScheduler = subscriptionScheduler;
+		this.partitioner = partitioner;
+		this.subscriptionTracker = subscriptionTracker;
+		this.quoteConflator = quoteConflator;
+		this.tickJournal = tickJournal;
+		this.instrumentCatalog = instrumentCatalog;
+	}
+
+	/**
+	 * requests, without waiting for the SecurityList, the instruments the session
+	 * lost when it was last dropped, those that were quoted first, and those the
+	 * catalog knows for the session and no session has claimed yet. To be called
+	 * before the SecurityList is requested, the session starts a new queue
+	 */
+	public void onLogon(SessionID sessionID) {
+		subscriptionScheduler.cancel(sessionID);
+		int partition = partitionOf(sessionID);
+		List<Group> known = new ArrayList<>();
+		for (int id : subscriptionTracker.reconnected(partition)) {
+			known.add(toGroup(id));
+		}
+		if (instrumentCatalog != null) {
+			Predicate<InstrumentCatalog.Instrument> ofSession = instrument -> partitioner
+					.sessionOf(instrument.getSecurityId(), instrument.getSecurityGroup()) == partition
+					&& subscriptionScheduler.accepts(instrument.getSecurityId(), instrument.getSecurityGroup());
+			for (InstrumentCatalog.Instrument instrument : instrumentCatalog.begin(sessionID.toString(), ofSession)) {
+				Group group = toGroup(instrument);
+				if (subscriptionTracker.claim(partition, register(group))) {
+					known.add(group);
+				}
+			}
+		}
+		if (known.isEmpty()) {
+			return;
+		}
+		List<Group> planned = subscriptionScheduler.plan(known, //
+				group -> stringOrEmpty(group, SecurityID.FIELD), //
+				group -> stringOrEmpty(group, SecurityGroup.FIELD));
+		// the SecurityList fragments queue up behind
+		subscriptionScheduler.schedule(sessionID, planned, group -> subscribe(group, sessionID));
+	}
+
+	/**
+	 * the instruments of the session are lost until it logs on again, those still
+	 * queued are not sent while it is logged out
+	 */
+	public void onLogout(SessionID sessionID) {
+		subscriptionScheduler.cancel(sessionID);
+		subscriptionTracker.disconnected(partitionOf(sessionID));
+	}
 	
 	public void onMessage(BusinessMessageReject message, SessionID sessionID) throws FieldNotFound {
 		//if this is not implemented then we will reject the rejection
 		log.warn("message rejected please investigate {}",message);
 	}
 	
-	public void onMessage(SecurityList securityList, SessionID sessionID) throws FieldNotFound, SessionNotFound {
-		//subscribe to quotes for all instruments
+	public void onMessage(SecurityList securityList, SessionID sessionID) throws FieldNotFound {
+		//subscribe to quotes for the instruments we care about, filtered and paced by the subscriptionScheduler
+		// the entries are read in place rather than copied out one by one with getGroup(i, group)
 		// see https://www.quickfixj.org/usermanual/2.1.0/usage/repeating_groups.html
-		int instrumentCount = securityList.getNoRelatedSym().getValue();
-		NoRelatedSym group = new SecurityList.NoRelatedSym();
-		for(int i=1; i<= instrumentCount;++i) {
-			//1-indexed
-			securityList.getGroup(i, group);
-			
-			String secId = group.get(new SecurityID()).getValue();
-			//TODO: filter here for instruments you care about
-			
+		List<Group> instruments = securityList.getGroups(NoRelatedSym.FIELD);
+		int partition = partitionOf(sessionID);
+		List<InstrumentCatalog.Instrument> listed = new ArrayList<>();
+		List<Group> unclaimed = new ArrayList<>();
+		for (Group group : instruments) {
+			String securityId = stringOrEmpty(group, SecurityID.FIELD);
+			String securityGroup = stringOrEmpty(group, SecurityGroup.FIELD);
+			// with several sessions each requests the whole list and keeps its own partition
+			if (partitioner.sessionOf(securityId, securityGroup) != partition
+					|| !subscriptionScheduler.accepts(securityId, securityGroup)) {
+				continue;
+			}
+			if (instrumentCatalog != null) {
+				listed.add(toInstrument(group));
+			}
+			// only what neither the session nor the catalog requested already
+			if (subscriptionTracker.claim(partition, register(group))) {
+				unclaimed.add(group);
+			}
+		}
+		if (instrumentCatalog != null) {
+			instrumentCatalog.listed(sessionID.toString(), listed);
+		}
+		log.info("subscribing to {} of {} instruments", unclaimed.size(), instruments.size());
+		subscriptionScheduler.watchlistFirst(unclaimed, group -> stringOrEmpty(group, SecurityID.FIELD));
+		subscriptionScheduler.schedule(sessionID, unclaimed, group -> subscribe(group, sessionID));
+	}
+
+	/**
+	 * with app.subscription.stream-security-list, see {@link StreamingMessageFactory}
+	 */
+	public void onMessage(StreamedSecurityList securityList, SessionID sessionID) throws FieldNotFound {
+		onMessage((SecurityList) securityList, sessionID);
+	}
+
+	/**
+	 * the further sessions of app.partition carry their index as SessionQualifier
+	 */
+	private static int partitionOf(SessionID sessionID) {
+		String qualifier = sessionID.getSessionQualifier();
+		return qualifier == null || qualifier.isEmpty() ? 0 : Integer.parseInt(qualifier);
+	}
+
+	/**
+	 * gives the instrument its id ahead of its first quote, along with what the
+	 * SecurityList tells of it. The FIX SecurityList has no DealableCurrencies
+	 * attribute
+	 *
+	 * @return the id of the instrument
+	 */
+	private int register(Group group) {
+		String contractMultiplier = stringOrEmpty(group, ContractMultiplier.FIELD);
+		return instrumentRegistry.register(stringOrEmpty(group, SecurityID.FIELD),
+				stringOrNull(group, SecurityIDSource.FIELD), stringOrEmpty(group, Symbol.FIELD),
+				stringOrEmpty(group, SecurityGroup.FIELD),
+				contractMultiplier.isEmpty() ? Double.NaN : Double.parseDouble(contractMultiplier),
+				stringOrEmpty(group, Currency.FIELD), null);
+	}
+
+	private static InstrumentCatalog.Instrument toInstrument(Group group) {
+		String contractMultiplier = stringOrEmpty(group, ContractMultiplier.FIELD);
+		return new InstrumentCatalog.Instrument(stringOrEmpty(group, SecurityID.FIELD),
+				stringOrNull(group, SecurityIDSource.FIELD), stringOrNull(group, SecurityGroup.FIELD),
+				stringOrNull(group, Symbol.FIELD),
+				contractMultiplier.isEmpty() ? Double.NaN : Double.parseDouble(contractMultiplier),
+				stringOrNull(group, Currency.FIELD), null);
+	}
+
+	/**
+	 * a SecurityList entry with what the catalog kept of it
+	 */
+	private static Group toGroup(InstrumentCatalog.Instrument instrument) {
+		Group group = new SecurityList.NoRelatedSym();
+		group.setString(SecurityID.FIELD, instrument.getSecurityId());
+		setIfPresent(group, SecurityIDSource.FIELD, instrument.getSecurityIdSource());
+		setIfPresent(group, SecurityGroup.FIELD, instrument.getSecurityGroup());
+		setIfPresent(group, Symbol.FIELD, instrument.getSymbol());
+		if (!Double.isNaN(instrument.getContractMultiplier())) {
+			group.setString(ContractMultiplier.FIELD, BigDecimal.valueOf(instrument.getContractMultiplier()).toPlainString());
+		}
+		setIfPresent(group, Currency.FIELD, instrument.getCurrency());
+		return group;
+	}
+
+	/**
+	 * what subscribe needs of a registered instrument
+	 */
+	private Group toGroup(int id) {
+		Group group = new SecurityList.NoRelatedSym();
+		group.setString(SecurityID.FIELD, instrumentRegistry.securityId(id));
+		setIfPresent(group, SecurityIDSource.FIELD, instrumentRegistry.securityIdSource(id));
+		setIfPresent(group, SecurityGroup.FIELD, instrumentRegistry.securityGroup(id));
+		return group;
+	}
+
+	private static void setIfPresent(FieldMap fields, int tag, String value) {
+		if (value != null) {
+			fields.setString(tag, value);
+		}
+	}
+
+	/**
+	 * an instrument whose QuoteRequest is not sent is released, to be claimed
+	 * again by the next SecurityList or handed back on reconnect
+	 */
+	private void subscribe(Group group, SessionID sessionID) {
+		String secId = stringOrEmpty(group, SecurityID.FIELD);
+		if (!sendQuoteRequest(group, secId, sessionID)) {
+			subscriptionTracker.released(instrumentRegistry.find(secId));
+		}
+	}
+
+	/**
+	 * @return false when the session did not take the request, e.g. it is logged
+	 *         out
+	 */
+	private boolean sendQuoteRequest(Group group, String secId, SessionID sessionID) {
+		try {
 			log.info("subscribing to {}", secId );
 			QuoteRequest request = new QuoteRequest(new QuoteReqID(secId));
             QuotReqGrp.NoRelatedSym symbol = new QuotReqGrp.NoRelatedSym();
-            symbol.set(new Symbol(group.getSecurityID().getValue()));
-            symbol.set(group.getSecurityID());
-            symbol.set(group.getSecurityIDSource());
+            symbol.set(new Symbol(secId));
+            symbol.set(new SecurityID(secId));
+            // when the SecurityList leaves it out, as fix-market-order always sends it
+            String securityIdSource = stringOrNull(group, SecurityIDSource.FIELD);
+            symbol.set(new SecurityIDSource(securityIdSource == null ? SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER
+                    : securityIdSource));
             request.addGroup(symbol);
             request.setField(new SubscriptionRequestType(SubscriptionRequestType.SNAPSHOT_AND_UPDATES));
-            Session.sendToTarget(request,sessionID);			
+            if (Session.sendToTarget(request,sessionID)) {
+                return true;
+            }
+            log.warn("not subscribing to {}, session {} is not logged on", secId, sessionID);
+		} catch (SessionNotFound e) {
+			log.warn("not subscribing to {}", group, e);
+		}
+		return false;
+	}
+
+	private static String stringOrEmpty(FieldMap fields, int tag) {
+		try {
+			return fields.isSetField(tag) ? fields.getString(tag) : "";
+		} catch (FieldNotFound e) {
+			return "";
 		}
 	}
+
+	private static String stringOrNull(FieldMap fields, int tag) {
+		String value = stringOrEmpty(fields, tag);
+		return value.isEmpty() ? null : value;
+	}
 	
-	public void onMessage(QuoteRequestReject rejection, SessionID sessionID) {
+	public void onMessage(QuoteRequestReject rejection, SessionID sessionID) throws FieldNotFound {
 		log.warn("quote request was rejected {}", rejection);
+		subscriptionTracker.rejected(instrumentRegistry.find(rejection.getQuoteReqID().getValue()));
 	}
 	
 	public void onMessage(Quote quote, SessionID sessionID) throws FieldNotFound, SessionNotFound {
+		long receivedNanos = System.nanoTime();
+		FastQuote quoteRecord = quoteRecords.get();
+		fastQuoteDecoder.decode(quote, quoteRecord);
+		if (quoteRecord.getInstrumentId() < 0) {
+			// dropped, counted by the registry
+			return;
+		}
+		if (handleQuote(quoteRecord, receivedNanos, tickJournal)) {
+			return;
+		}
 		String secId = quote.getQuoteReqID().getValue();//cheap trick: use the quoteReqId to look the symbol (or in this case contain the symbol)
 		BigDecimal bid = quote.getBidPx().getValue();
 		BigDecimal offer = quote.getOfferPx().getValue();
 		log.info("secId={} bid={}, offer={}",secId, bid,offer);
 	}
+
+	/**
+	 * feeds a {@link TickJournal} back through the quote handler, as if the quotes
+	 * were received again. Nothing is journalled while replaying.
+	 *
+	 * @param originalSpeed spaced as they were received, otherwise as fast as
+	 *                      possible
+	 * @return the number of quotes replayed
+	 */
+	public long replay(Path directory, boolean originalSpeed) {
+		return TickJournal.replay(directory, originalSpeed, (receivedNanos, securityIndex, quote) -> {
+			if (!handleQuote(quote, receivedNanos, null)) {
+				log.info("replayed quote {}", quote);
+			}
+		});
+	}
+
+	/**
+	 * @return true when the quote was handed on, false when it is left to the
+	 *         typed Quote handling
+	 */
+	private boolean handleQuote(FastQuote quoteRecord, long receivedNanos, TickJournal journal) {
+		int slot = quoteBook.update(quoteRecord);
+		if (slot < 0) {
+			// dropped, counted by the registry
+			return true;
+		}
+		subscriptionTracker.quoted(slot);
+		if (journal != null) {
+			journal.append(receivedNanos, slot, quoteRecord);
+		}
+		if (quoteConflator != null) {
+			// the downstream consumer picks the quote up from the book at its own pace
+			quoteConflator.updated(slot);
+			return true;
+		}
+		if (fastQuote) {
+			if (log.isDebugEnabled()) {
+				log.debug("got quote {}", quoteRecord);
+			}
+			return true;
+		}
+		return false;
+	}
 }
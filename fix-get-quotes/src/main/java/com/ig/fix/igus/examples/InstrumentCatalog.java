@@ -0,0 +1,279 @@
+package com.ig.fix.igus.examples;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The instruments of the last SecurityList, kept in a local file so that after
+ * a restart the instruments known from the previous run can be subscribed to
+ * as soon as a session is established, without waiting for the SecurityList.
+ * <p>
+ * A session {@link #begin begins} a listing when it is established: it gets
+ * the catalog instruments it subscribes to, then reports the instruments of
+ * the SecurityList as it receives them with {@link #listed}. The SecurityList
+ * may come in several messages, so once none came for settleTime the listing
+ * is reconciled: listed instruments were added as they came, the instruments
+ * the session expected but the SecurityList no longer holds are removed, and
+ * the catalog is saved. Reconciling and saving happen on a thread of their
+ * own, off the receiving threads.
+ * <p>
+ * The file is big endian:
+ *
+ * <pre>
+ *   int    magic
+ *   int    version
+ *   long   saved at, epoch millis
+ *   int    number of instruments
+ *   per instrument, SecurityID, SecurityIDSource, SecurityGroup, Symbol as
+ *   modified UTF-8, ContractMultiplier as a double, Currency, DealableCurrencies
+ * </pre>
+ *
+ * an absent string is written empty and an absent ContractMultiplier as NaN. A
+ * file of another version, or saved longer than maxAge ago, is ignored. It is
+ * written to a temporary file first and moved over the previous one, so a
+ * crash mid way leaves the previous catalog.
+ */
+@Slf4j
+public class InstrumentCatalog implements AutoCloseable {
+	public static final int VERSION = 1;
+
+	private static final int MAGIC = 0x49435431;// ICT1
+
+	@Value
+	public static class Instrument {
+		String securityId;
+		String securityIdSource;
+		String securityGroup;
+		String symbol;
+		/**
+		 * NaN when unknown
+		 */
+		double contractMultiplier;
+		String currency;
+		String dealableCurrencies;
+	}
+
+	/**
+	 * what a session expected from the catalog and what the SecurityList told it
+	 * so far
+	 */
+	private static class Listing {
+		private final Set<String> expected = new HashSet<>();
+		private final Set<String> seen = new HashSet<>();
+		private int added;
+		private ScheduledFuture<?> settle;
+	}
+
+	private final Path file;
+	private final Duration settleTime;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "instrument-catalog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * by SecurityID, in the order they were first listed
+	 */
+	private final Map<String, Instrument> instruments = new LinkedHashMap<>();
+	private final Map<String, Listing> listings = new HashMap<>();
+	private boolean dirty;
+
+	public InstrumentCatalog(Path file, Duration maxAge, Duration settleTime) {
+		this.file = file;
+		this.settleTime = settleTime;
+		load(maxAge);
+	}
+
+	/**
+	 * starts a listing for the session, a listing it had in progress is dropped
+	 * unreconciled
+	 *
+	 * @param ofSession true for the instruments the session subscribes to
+	 * @return the catalog instruments of the session
+	 */
+	public synchronized List<Instrument> begin(String session, Predicate<Instrument> ofSession) {
+		Listing listing = new Listing();
+		Listing previous = listings.put(session, listing);
+		if (previous != null && previous.settle != null) {
+			previous.settle.cancel(false);
+		}
+		List<Instrument> known = new ArrayList<>();
+		for (Instrument instrument : instruments.values()) {
+			if (ofSession.test(instrument)) {
+				known.add(instrument);
+				listing.expected.add(instrument.getSecurityId());
+			}
+		}
+		log.info("{} instruments of the catalog for {}", known.size(), session);
+		return known;
+	}
+
+	/**
+	 * adds or updates instruments of the SecurityList received by the session,
+	 * which is reconciled once none came for settleTime
+	 */
+	public synchronized void listed(String session, Collection<Instrument> fresh) {
+		Listing listing = listings.computeIfAbsent(session, s -> new Listing());
+		for (Instrument instrument : fresh) {
+			listing.seen.add(instrument.getSecurityId());
+			Instrument previous = instruments.put(instrument.getSecurityId(), instrument);
+			if (previous == null) {
+				listing.added++;
+			}
+			if (!instrument.equals(previous)) {
+				dirty = true;
+			}
+		}
+		if (listing.settle != null) {
+			listing.settle.cancel(false);
+		}
+		listing.settle = executor.schedule(() -> settle(session, listing), settleTime.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return a copy of the instruments
+	 */
+	public synchronized List<Instrument> instruments() {
+		return new ArrayList<>(instruments.values());
+	}
+
+	public synchronized int size() {
+		return instruments.size();
+	}
+
+	/**
+	 * saves what was listed so far, listings still in progress are not
+	 * reconciled
+	 */
+	@Override
+	public synchronized void close() {
+		executor.shutdownNow();
+		if (dirty) {
+			save();
+		}
+	}
+
+	private synchronized void settle(String session, Listing listing) {
+		if (listings.get(session) != listing) {
+			// the session began again since
+			return;
+		}
+		listings.remove(session);
+		int removed = 0;
+		for (String securityId : listing.expected) {
+			if (!listing.seen.contains(securityId)) {
+				instruments.remove(securityId);
+				removed++;
+			}
+		}
+		log.info("{} listed {} instruments, {} added and {} removed from the catalog", session, listing.seen.size(),
+				listing.added, removed);
+		if (dirty || removed > 0) {
+			save();
+		}
+	}
+
+	private void save() {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(System.currentTimeMillis());
+				out.writeInt(instruments.size());
+				for (Instrument instrument : instruments.values()) {
+					writeString(out, instrument.getSecurityId());
+					writeString(out, instrument.getSecurityIdSource());
+					writeString(out, instrument.getSecurityGroup());
+					writeString(out, instrument.getSymbol());
+					out.writeDouble(instrument.getContractMultiplier());
+					writeString(out, instrument.getCurrency());
+					writeString(out, instrument.getDealableCurrencies());
+				}
+			}
+			try {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+			log.info("saved {} instruments to {}", instruments.size(), file);
+		} catch (IOException e) {
+			// the next start waits for the SecurityList, as without a catalog
+			log.warn("could not save the instrument catalog to {}", file, e);
+		}
+	}
+
+	private void load(Duration maxAge) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				log.warn("ignoring {}, not an instrument catalog", file);
+				return;
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				log.warn("ignoring {}, version {} instead of {}", file, version, VERSION);
+				return;
+			}
+			long savedAt = in.readLong();
+			long age = System.currentTimeMillis() - savedAt;
+			if (age > maxAge.toMillis()) {
+				log.info("ignoring {}, saved {}s ago", file, TimeUnit.MILLISECONDS.toSeconds(age));
+				return;
+			}
+			int count = in.readInt();
+			Map<String, Instrument> loaded = new LinkedHashMap<>();
+			for (int i = 0; i < count; ++i) {
+				Instrument instrument = new Instrument(readString(in), readString(in), readString(in), readString(in),
+						in.readDouble(), readString(in), readString(in));
+				loaded.put(instrument.getSecurityId(), instrument);
+			}
+			instruments.putAll(loaded);
+			log.info("loaded {} instruments from {}, saved {}s ago", instruments.size(), file,
+					TimeUnit.MILLISECONDS.toSeconds(age));
+		} catch (NoSuchFileException e) {
+			log.info("no instrument catalog at {} yet", file);
+		} catch (IOException e) {
+			log.warn("ignoring {}, could not read it", file, e);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeUTF(value == null ? "" : value);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		String value = in.readUTF();
+		return value.isEmpty() ? null : value;
+	}
+}
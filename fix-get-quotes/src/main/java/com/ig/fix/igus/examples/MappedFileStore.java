@@ -0,0 +1,331 @@
+package com.ig.fix.igus.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.quickfixj.CharsetSupport;
+
+import lombok.extern.slf4j.Slf4j;
+import quickfix.MessageStore;
+import quickfix.SessionID;
+
+/**
+ * {@link MessageStore} of one session kept in memory mapped files, see
+ * {@link MappedFileStoreFactory}.
+ * <p>
+ * The sequence numbers and creation time live in a one page session.state
+ * file, updated in place. Sent messages are appended to messages-NNNNNN.log
+ * segments as records of
+ *
+ * <pre>
+ *   0 int    length, written last, a record without it ends the segment
+ *   4 int    MsgSeqNum
+ *   8 byte[] the message, padded to a multiple of 4
+ * </pre>
+ *
+ * An index of MsgSeqNum to segment and offset is rebuilt from the segments on
+ * startup and answers {@link #get} for ResendRequests. Writes are stores into
+ * the page cache, so they survive the process but not the machine until the
+ * mapping is forced, which the factory does on its sync thread.
+ */
+@Slf4j
+public class MappedFileStore implements MessageStore, Closeable {
+	private static final int STATE_SIZE = 4096;
+	private static final int STATE_MAGIC = 0x46535431;// FST1
+	private static final int CREATION_TIME = 8;
+	private static final int NEXT_SENDER = 16;
+	private static final int NEXT_TARGET = 20;
+	private static final int SEGMENT_MAGIC = 0x464D5331;// FMS1
+	private static final int SEGMENT_HEADER_SIZE = 16;
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final String PREFIX = "messages-";
+	private static final String SUFFIX = ".log";
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private final SessionID sessionID;
+	private final Path directory;
+	private final int segmentSize;
+	private final boolean syncOnWrite;
+	private final Charset charset = CharsetSupport.getCharsetInstance();
+	private final boolean latin1 = StandardCharsets.ISO_8859_1.equals(charset)
+			|| StandardCharsets.US_ASCII.equals(charset);
+
+	private final MappedByteBuffer state;
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+	/**
+	 * by MsgSeqNum, segment number in the high and offset in the low int, 0 when
+	 * the message is not stored
+	 */
+	private long[] index = new long[1024];
+	private MappedByteBuffer segment;
+	private int position;
+	/**
+	 * written since the last sync, forced by the sync thread
+	 */
+	private final List<MappedByteBuffer> unsynced = new ArrayList<>();
+	private boolean stateUnsynced;
+
+	MappedFileStore(Path directory, SessionID sessionID, int segmentSize, boolean syncOnWrite) throws IOException {
+		this.sessionID = sessionID;
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.syncOnWrite = syncOnWrite;
+		Files.createDirectories(directory);
+		state = map(directory.resolve("session.state"), STATE_SIZE);
+		if (state.getInt(0) != STATE_MAGIC) {
+			initializeState();
+		}
+		for (Path path : segmentFiles()) {
+			load(map(path, Files.size(path)));
+		}
+		log.info("{} resumes at sender {} target {} with {} stored messages in {}", sessionID,
+				getNextSenderMsgSeqNum(), getNextTargetMsgSeqNum(), countStored(), directory);
+	}
+
+	@Override
+	public synchronized boolean set(int sequence, String message) throws IOException {
+		byte[] bytes = latin1 ? null : message.getBytes(charset);
+		int length = latin1 ? message.length() : bytes.length;
+		int recordSize = RECORD_HEADER_SIZE + align(length);
+		if (segment == null || position + recordSize + Integer.BYTES > segment.capacity()) {
+			roll(recordSize);
+		}
+		int offset = position;
+		MappedByteBuffer buffer = segment;
+		buffer.putInt(offset + 4, sequence);
+		if (latin1) {
+			for (int i = 0; i < length; ++i) {
+				buffer.put(offset + RECORD_HEADER_SIZE + i, (byte) message.charAt(i));
+			}
+		} else {
+			buffer.position(offset + RECORD_HEADER_SIZE);
+			buffer.put(bytes);
+		}
+		INTS.setRelease(buffer, offset, length);
+		position += recordSize;
+		indexMessage(sequence, segments.size() - 1, offset);
+		written(buffer);
+		return true;
+	}
+
+	@Override
+	public synchronized void get(int startSequence, int endSequence, Collection<String> messages) throws IOException {
+		int end = Math.min(endSequence, index.length - 1);
+		for (int sequence = Math.max(startSequence, 1); sequence <= end; ++sequence) {
+			long entry = index[sequence];
+			if (entry != 0) {
+				messages.add(read(segments.get((int) (entry >>> 32)), (int) entry));
+			}
+		}
+	}
+
+	@Override
+	public synchronized int getNextSenderMsgSeqNum() {
+		return state.getInt(NEXT_SENDER);
+	}
+
+	@Override
+	public synchronized int getNextTargetMsgSeqNum() {
+		return state.getInt(NEXT_TARGET);
+	}
+
+	@Override
+	public synchronized void setNextSenderMsgSeqNum(int next) {
+		state.putInt(NEXT_SENDER, next);
+		stateWritten();
+	}
+
+	@Override
+	public synchronized void setNextTargetMsgSeqNum(int next) {
+		state.putInt(NEXT_TARGET, next);
+		stateWritten();
+	}
+
+	@Override
+	public synchronized void incrNextSenderMsgSeqNum() {
+		setNextSenderMsgSeqNum(getNextSenderMsgSeqNum() + 1);
+	}
+
+	@Override
+	public synchronized void incrNextTargetMsgSeqNum() {
+		setNextTargetMsgSeqNum(getNextTargetMsgSeqNum() + 1);
+	}
+
+	@Override
+	public synchronized Date getCreationTime() {
+		return new Date(state.getLong(CREATION_TIME));
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		segments.clear();
+		unsynced.clear();
+		segment = null;
+		Arrays.fill(index, 0);
+		for (Path path : segmentFiles()) {
+			Files.deleteIfExists(path);
+		}
+		initializeState();
+		log.info("{} store reset", sessionID);
+	}
+
+	/**
+	 * nothing to reload, the store is the mapping of its files
+	 */
+	@Override
+	public void refresh() {
+	}
+
+	/**
+	 * forces what was written since the last sync to disk
+	 */
+	public void sync() {
+		MappedByteBuffer[] buffers;
+		boolean forceState;
+		synchronized (this) {
+			buffers = unsynced.toArray(new MappedByteBuffer[0]);
+			unsynced.clear();
+			forceState = stateUnsynced;
+			stateUnsynced = false;
+		}
+		for (MappedByteBuffer buffer : buffers) {
+			buffer.force();
+		}
+		if (forceState) {
+			state.force();
+		}
+	}
+
+	@Override
+	public void close() {
+		sync();
+	}
+
+	private void initializeState() {
+		state.putLong(CREATION_TIME, System.currentTimeMillis());
+		state.putInt(NEXT_SENDER, 1);
+		state.putInt(NEXT_TARGET, 1);
+		state.putInt(0, STATE_MAGIC);
+		state.force();
+	}
+
+	private void load(MappedByteBuffer buffer) {
+		if (buffer.getInt(0) != SEGMENT_MAGIC) {
+			throw new IllegalStateException("not a message store segment in " + directory);
+		}
+		segments.add(buffer);
+		int offset = SEGMENT_HEADER_SIZE;
+		while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+			int length = (int) INTS.getAcquire(buffer, offset);
+			if (length == 0) {
+				break;
+			}
+			indexMessage(buffer.getInt(offset + 4), segments.size() - 1, offset);
+			offset += RECORD_HEADER_SIZE + align(length);
+		}
+		segment = buffer;
+		position = offset;
+	}
+
+	private void roll(int recordSize) throws IOException {
+		if (segment != null) {
+			written(segment);
+		}
+		Path path = directory.resolve(String.format("%s%06d%s", PREFIX, segments.size(), SUFFIX));
+		// a message larger than a segment gets a segment of its own
+		long size = Math.max(segmentSize, SEGMENT_HEADER_SIZE + recordSize + Integer.BYTES);
+		Files.deleteIfExists(path);
+		segment = map(path, size);
+		segment.putInt(0, SEGMENT_MAGIC);
+		segment.putLong(8, System.currentTimeMillis());
+		segments.add(segment);
+		position = SEGMENT_HEADER_SIZE;
+	}
+
+	private void indexMessage(int sequence, int segmentNumber, int offset) {
+		if (sequence <= 0) {
+			return;
+		}
+		if (sequence >= index.length) {
+			index = Arrays.copyOf(index, Math.max(sequence + 1, index.length * 2));
+		}
+		index[sequence] = (long) segmentNumber << 32 | offset;
+	}
+
+	private String read(MappedByteBuffer buffer, int offset) {
+		int length = buffer.getInt(offset);
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; ++i) {
+			bytes[i] = buffer.get(offset + RECORD_HEADER_SIZE + i);
+		}
+		return new String(bytes, charset);
+	}
+
+	private void written(MappedByteBuffer buffer) {
+		if (syncOnWrite) {
+			buffer.force();
+		} else if (!unsynced.contains(buffer)) {
+			unsynced.add(buffer);
+		}
+	}
+
+	private void stateWritten() {
+		if (syncOnWrite) {
+			state.force();
+		} else {
+			stateUnsynced = true;
+		}
+	}
+
+	private int countStored() {
+		int count = 0;
+		for (long entry : index) {
+			if (entry != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			stream.forEach(paths::add);
+		}
+		// zero padded, so the names sort in segment order
+		Collections.sort(paths);
+		return paths;
+	}
+
+	private static MappedByteBuffer map(Path path, long size) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// the mapping stays valid once the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return buffer;
+		}
+	}
+
+	private static int align(int length) {
+		return (length + 3) & ~3;
+	}
+}
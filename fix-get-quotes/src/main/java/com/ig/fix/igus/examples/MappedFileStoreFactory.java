@@ -0,0 +1,85 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+import quickfix.FileStoreFactory;
+import quickfix.MessageStore;
+import quickfix.MessageStoreFactory;
+import quickfix.SessionID;
+
+/**
+ * Creates a {@link MappedFileStore} per session, in a directory of its own
+ * under the given one. Unlike the noop store it keeps the sequence numbers and
+ * sent messages across disconnects and restarts, so a session can resume
+ * without a reset and answer ResendRequests. Unlike {@link FileStoreFactory} a
+ * message costs a copy into the page cache rather than a write call and, with
+ * FileStoreSync, an fsync.
+ * <p>
+ * With a syncInterval above 0 the stores are forced to disk on a background
+ * thread at that interval, so a machine failure loses at most that much.
+ * With 0 every write is forced as it is made.
+ */
+@Slf4j
+public class MappedFileStoreFactory implements MessageStoreFactory, AutoCloseable {
+	private final Path directory;
+	private final int segmentSize;
+	private final boolean syncOnWrite;
+	private final List<MappedFileStore> stores = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService syncExecutor;
+
+	public MappedFileStoreFactory(Path directory, int segmentSize, Duration syncInterval) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		syncOnWrite = syncInterval.isZero();
+		if (syncOnWrite) {
+			syncExecutor = null;
+		} else {
+			syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "fix-store-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+			syncExecutor.scheduleWithFixedDelay(this::sync, syncInterval.toNanos(), syncInterval.toNanos(),
+					TimeUnit.NANOSECONDS);
+		}
+	}
+
+	@Override
+	public MessageStore create(SessionID sessionID) {
+		Path sessionDirectory = directory.resolve(sessionID.toString().replaceAll("[^A-Za-z0-9.]", "_"));
+		try {
+			MappedFileStore store = new MappedFileStore(sessionDirectory, sessionID, segmentSize, syncOnWrite);
+			stores.add(store);
+			return store;
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot open the message store of " + sessionID, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (syncExecutor != null) {
+			syncExecutor.shutdown();
+		}
+		stores.forEach(MappedFileStore::close);
+	}
+
+	private void sync() {
+		for (MappedFileStore store : stores) {
+			try {
+				store.sync();
+			} catch (RuntimeException e) {
+				log.warn("could not sync a message store", e);
+			}
+		}
+	}
+}
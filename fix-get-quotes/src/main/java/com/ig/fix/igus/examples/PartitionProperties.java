@@ -0,0 +1,36 @@
+package com.ig.fix.igus.examples;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class PartitionProperties {
+	/**
+	 * further sessions the instruments are spread over, each on a thread of its
+	 * own. A counterparty tells sessions apart by SenderCompID, so every one
+	 * needs a login of its own
+	 */
+	private List<Login> logins = new ArrayList<>();
+	/**
+	 * session index by SecurityGroup (CURRENCIES...), 0 being the app.session
+	 * one. Instruments of other groups are spread by SecurityID
+	 */
+	private Map<String, Integer> groups = new HashMap<>();
+
+	public SessionPartitioner toPartitioner() {
+		return new SessionPartitioner(logins.size() + 1, groups);
+	}
+
+	@Data
+	public static class Login {
+		/**
+		 * also the SenderCompID
+		 */
+		private String username;
+		private String password;
+	}
+}
@@ -0,0 +1,167 @@
+package com.ig.fix.igus.examples;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latest top of book per instrument, shared between the receiving thread and
+ * any number of reading (strategy) threads.
+ * <p>
+ * The slot of an instrument is its {@link InstrumentRegistry} id, an index into
+ * flat arrays holding prices and ids. Each slot is guarded by a sequence lock:
+ * the writer makes the slot version odd, writes, then makes it even again;
+ * readers retry until they see the same even version before and after
+ * copying. Readers never block the writer and neither side allocates.
+ * <p>
+ * There must be a single writer per instrument, which holds as each
+ * instrument is quoted on exactly one session.
+ */
+public class QuoteBook {
+	private static final int ID_WIDTH = InstrumentRegistry.ID_WIDTH;
+	private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final InstrumentRegistry instrumentRegistry;
+	private final AtomicInteger quoted = new AtomicInteger();
+
+	/**
+	 * 0 until the instrument is first quoted
+	 */
+	private final long[] versions;
+	private final long[] bidPx;
+	private final long[] offerPx;
+	private final int[] scales;
+	private final byte[] bidIds;
+	private final byte[] offerIds;
+	private final int[] idLengths;
+
+	public QuoteBook(InstrumentRegistry instrumentRegistry) {
+		this.instrumentRegistry = instrumentRegistry;
+		int capacity = instrumentRegistry.capacity();
+		versions = new long[capacity];
+		bidPx = new long[capacity];
+		offerPx = new long[capacity];
+		scales = new int[capacity];
+		bidIds = new byte[capacity * ID_WIDTH];
+		offerIds = new byte[capacity * ID_WIDTH];
+		idLengths = new int[capacity * 2];
+	}
+
+	/**
+	 * @return the slot of the instrument, -1 if it has never been quoted
+	 */
+	public int find(CharSequence securityId) {
+		int slot = instrumentRegistry.find(securityId);
+		return slot >= 0 && (long) VERSIONS.getAcquire(versions, slot) != 0 ? slot : -1;
+	}
+
+	/**
+	 * @return the number of instruments quoted so far
+	 */
+	public int size() {
+		return quoted.get();
+	}
+
+	public int capacity() {
+		return instrumentRegistry.capacity();
+	}
+
+	/**
+	 * stores the quote in the slot of its instrument, interning the QuoteReqID,
+	 * which the clients set to the SecurityID, when the decoder left the id unset
+	 *
+	 * @return the slot of the instrument, -1 if the registry refused it and the
+	 *         quote was dropped
+	 */
+	public int update(FastQuote quote) {
+		int slot = quote.getInstrumentId();
+		if (slot < 0) {
+			slot = instrumentRegistry.intern(quote.getQuoteReqId());
+			if (slot < 0) {
+				return slot;
+			}
+		}
+		long version = (long) VERSIONS.getOpaque(versions, slot);
+		VERSIONS.setOpaque(versions, slot, version + 1);
+		VarHandle.storeStoreFence();
+		bidPx[slot] = quote.getBidPx();
+		offerPx[slot] = quote.getOfferPx();
+		scales[slot] = quote.getScale();
+		idLengths[slot * 2] = copy(quote.getBidId(), bidIds, slot);
+		idLengths[slot * 2 + 1] = copy(quote.getOfferId(), offerIds, slot);
+		VERSIONS.setRelease(versions, slot, version + 2);
+		if (version == 0) {
+			quoted.incrementAndGet();
+		}
+		return slot;
+	}
+
+	/**
+	 * copies a consistent snapshot of the slot
+	 *
+	 * @return false if the instrument has never been quoted
+	 */
+	public boolean read(int slot, FastQuote into) {
+		return readVersion(slot, into) != 0;
+	}
+
+	/**
+	 * copies a consistent snapshot of the slot
+	 *
+	 * @return the version of the snapshot, twice the number of quotes stored in
+	 *         the slot, 0 if the instrument has never been quoted
+	 */
+	public long readVersion(int slot, FastQuote into) {
+		if (slot < 0 || slot >= versions.length) {
+			return 0;
+		}
+		long before;
+		for (;;) {
+			before = (long) VERSIONS.getAcquire(versions, slot);
+			if (before == 0) {
+				return 0;
+			}
+			if ((before & 1) == 0) {
+				into.setBidPx(bidPx[slot]);
+				into.setOfferPx(offerPx[slot]);
+				into.setScale(scales[slot]);
+				copy(bidIds, slot, idLengths[slot * 2], into.getBidId());
+				copy(offerIds, slot, idLengths[slot * 2 + 1], into.getOfferId());
+				VarHandle.loadLoadFence();
+				if ((long) VERSIONS.getOpaque(versions, slot) == before) {
+					break;
+				}
+			}
+			// a write is in progress
+			Thread.onSpinWait();
+		}
+		// the security id never changes once registered
+		instrumentRegistry.securityId(slot, into.getQuoteReqId());
+		into.setInstrumentId(slot);
+		return before;
+	}
+
+	/**
+	 * @return the SecurityID of an existing slot, allocates
+	 */
+	public String securityId(int slot) {
+		return instrumentRegistry.securityId(slot);
+	}
+
+	private static int copy(AsciiSequence from, byte[] to, int slot) {
+		int length = Math.min(from.length(), ID_WIDTH);
+		int offset = slot * ID_WIDTH;
+		for (int i = 0; i < length; ++i) {
+			to[offset + i] = from.byteAt(i);
+		}
+		return length;
+	}
+
+	private static void copy(byte[] from, int slot, int length, AsciiSequence to) {
+		to.clear();
+		int offset = slot * ID_WIDTH;
+		for (int i = 0; i < length; ++i) {
+			to.append(from[offset + i]);
+		}
+	}
+}
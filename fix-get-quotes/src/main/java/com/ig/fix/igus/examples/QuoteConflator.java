@@ -0,0 +1,226 @@
+package com.ig.fix.igus.examples;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latest value wins delivery of the {@link QuoteBook} to a consumer slower
+ * than the feed.
+ * <p>
+ * Writers store a quote in the book as usual and then mark its slot dirty, one
+ * bit per instrument. A delivery thread takes the dirty bits a word at a time
+ * and hands the consumer a snapshot of each dirty slot, so it always sees the
+ * freshest quote of an instrument and never more than one pending delivery per
+ * instrument: the backlog is bounded by the number of instruments, not ticks.
+ * <p>
+ * The delivery thread keeps the book version of the last quote it delivered of
+ * each slot. A tick landing after the bits of its word were taken marks the
+ * slot again, but is read along with them: the slot is then skipped rather
+ * than delivered twice. The quotes stored between two deliveries of a slot,
+ * but the last, are the ticks the consumer never saw, counted as conflated for
+ * that instrument.
+ * <p>
+ * Meters:
+ * <ul>
+ * <li>quotes.conflated, tagged with the securityId, ticks the consumer
+ * skipped</li>
+ * <li>quotes.dirty, instruments waiting for delivery</li>
+ * </ul>
+ */
+@Slf4j
+public class QuoteConflator implements AutoCloseable {
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final int SPINS = 100;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final QuoteBook quoteBook;
+	private final MeterRegistry meterRegistry;
+	private final long[] dirty;
+	/**
+	 * per slot, only written by the delivery thread
+	 */
+	private final long[] conflated;
+	private volatile int meteredSlots;
+
+	// delivery thread only
+	/**
+	 * per slot, the book version of the last quote delivered, 0 before the first
+	 */
+	private final long[] delivered;
+	private int cursor;
+	private long taken;
+	private int takenWord;
+
+	private volatile Thread parkedConsumer;
+	private volatile Thread deliveryThread;
+	private volatile boolean running = true;
+
+	public QuoteConflator(QuoteBook quoteBook, MeterRegistry meterRegistry) {
+		this.quoteBook = quoteBook;
+		this.meterRegistry = meterRegistry;
+		dirty = new long[(quoteBook.capacity() + 63) >>> 6];
+		conflated = new long[quoteBook.capacity()];
+		delivered = new long[quoteBook.capacity()];
+		Gauge.builder("quotes.dirty", this, QuoteConflator::dirtyCount)//
+				.description("instruments with a quote not yet delivered")//
+				.register(meterRegistry);
+	}
+
+	/**
+	 * called by the writer of the slot after storing a quote in it
+	 */
+	public void updated(int slot) {
+		if (slot >= meteredSlots) {
+			meter(slot);
+		}
+		long bit = 1L << slot;
+		long before = (long) WORDS.getAndBitwiseOr(dirty, slot >>> 6, bit);
+		if ((before & bit) != 0) {
+			// already waiting for delivery
+			return;
+		}
+		Thread consumer = parkedConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * single consumer, copies the freshest quote of the next dirty instrument
+	 *
+	 * @return false when no instrument is dirty
+	 */
+	public boolean poll(FastQuote into) {
+		for (;;) {
+			while (taken == 0) {
+				if (!take()) {
+					return false;
+				}
+			}
+			int slot = (takenWord << 6) + Long.numberOfTrailingZeros(taken);
+			taken &= taken - 1;
+			// slots are never removed from the book
+			long version = quoteBook.readVersion(slot, into);
+			long last = delivered[slot];
+			if (version == 0 || version == last) {
+				// marked again by a tick that was delivered already
+				continue;
+			}
+			delivered[slot] = version;
+			// two versions per quote stored
+			long skipped = (version - last) / 2 - 1;
+			if (skipped > 0) {
+				COUNTS.setOpaque(conflated, slot, (long) COUNTS.getOpaque(conflated, slot) + skipped);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * ticks of the instrument the consumer never saw, up to its last delivery
+	 */
+	public long conflatedTicks(int slot) {
+		return (long) COUNTS.getOpaque(conflated, slot);
+	}
+
+	/**
+	 * delivers quotes to the consumer from a dedicated thread until closed
+	 */
+	public synchronized void start(Consumer<FastQuote> consumer) {
+		if (deliveryThread != null) {
+			throw new IllegalStateException("already delivering");
+		}
+		Thread thread = new Thread(() -> deliver(consumer), "quote-delivery");
+		thread.setDaemon(true);
+		deliveryThread = thread;
+		thread.start();
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		Thread thread = deliveryThread;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	private void deliver(Consumer<FastQuote> consumer) {
+		FastQuote quote = new FastQuote();
+		while (running) {
+			if (!poll(quote)) {
+				awaitUpdates();
+				continue;
+			}
+			try {
+				consumer.accept(quote);
+			} catch (RuntimeException e) {
+				log.warn("quote consumer failed on {}", quote, e);
+			}
+		}
+	}
+
+	/**
+	 * takes the dirty bits of the next word holding any, round robin so every
+	 * instrument is delivered in turn
+	 */
+	private boolean take() {
+		for (int i = 0; i < dirty.length; ++i) {
+			int word = cursor;
+			cursor = word + 1 == dirty.length ? 0 : word + 1;
+			if ((long) WORDS.getVolatile(dirty, word) != 0) {
+				taken = (long) WORDS.getAndSet(dirty, word, 0L);
+				takenWord = word;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void awaitUpdates() {
+		for (int i = 0; i < SPINS; ++i) {
+			if (dirtyCount() > 0) {
+				return;
+			}
+			Thread.onSpinWait();
+		}
+		parkedConsumer = Thread.currentThread();
+		// writers read parkedConsumer after setting a bit, so checking the bits
+		// after writing parkedConsumer cannot miss an update
+		if (dirtyCount() == 0) {
+			LockSupport.parkNanos(this, MAX_PARK_NANOS);
+		}
+		parkedConsumer = null;
+	}
+
+	private int dirtyCount() {
+		int count = 0;
+		for (int word = 0; word < dirty.length; ++word) {
+			count += Long.bitCount((long) WORDS.getVolatile(dirty, word));
+		}
+		return count;
+	}
+
+	/**
+	 * once per instrument, when it is first quoted
+	 */
+	private synchronized void meter(int slot) {
+		for (int s = meteredSlots; s <= slot; ++s) {
+			int meteredSlot = s;
+			FunctionCounter.builder("quotes.conflated", this, c -> c.conflatedTicks(meteredSlot))//
+					.description("ticks replaced by a fresher quote before being delivered")//
+					.tag("securityId", quoteBook.securityId(meteredSlot))//
+					.register(meterRegistry);
+		}
+		meteredSlots = Math.max(meteredSlots, slot + 1);
+	}
+}
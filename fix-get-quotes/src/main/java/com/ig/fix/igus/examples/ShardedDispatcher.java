@@ -0,0 +1,167 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import quickfix.FieldNotFound;
+import quickfix.Message;
+import quickfix.SessionID;
+import quickfix.UnsupportedMessageType;
+import quickfix.field.QuoteReqID;
+import quickfix.field.SecurityID;
+
+/**
+ * Moves the handling of application messages off the QuickFIX/J session
+ * thread, so a slow handler does not hold up reading the socket and
+ * heartbeats.
+ * <p>
+ * Each worker thread consumes its own {@link DispatchRing}. A message goes to
+ * the worker picked by the hash of its SecurityID, or of its QuoteReqID which
+ * this client sets to the SecurityID, so the messages of an instrument are
+ * handled in the order they were received and by a single thread, which the
+ * {@link QuoteBook} relies on. Messages of no instrument go to the first
+ * worker.
+ * <p>
+ * Messages no handler takes are still rejected on the session thread. Errors
+ * of the handlers can no longer reach QuickFIX/J and are logged and counted.
+ * <p>
+ * Meters, tagged with the worker:
+ * <ul>
+ * <li>fix.dispatch.queue.depth, messages waiting in the ring</li>
+ * <li>fix.dispatch.wait.time, published to picked up by the worker</li>
+ * <li>fix.dispatch.handle.time, published to the handler returning</li>
+ * <li>fix.dispatch.ring.full, times the session thread had to wait</li>
+ * <li>fix.dispatch.errors, handlers that threw</li>
+ * </ul>
+ */
+@Slf4j
+public class ShardedDispatcher implements AutoCloseable {
+	private final FixMessageRouter messageRouter;
+	private final Worker[] workers;
+	private volatile boolean running = true;
+
+	public ShardedDispatcher(FixMessageRouter messageRouter, DispatchProperties properties,
+			MeterRegistry meterRegistry) {
+		if (properties.getWorkers() < 1) {
+			throw new IllegalArgumentException("app.dispatch.workers must be at least 1");
+		}
+		this.messageRouter = messageRouter;
+		workers = new Worker[properties.getWorkers()];
+		for (int i = 0; i < workers.length; ++i) {
+			workers[i] = new Worker(i, new DispatchRing(properties.getRingSize()), meterRegistry);
+		}
+		for (Worker worker : workers) {
+			worker.thread.start();
+		}
+		log.info("dispatching application messages to {} workers of {} slots", workers.length,
+				workers[0].ring.capacity());
+	}
+
+	/**
+	 * called from fromApp on the session thread, waits while the ring of the
+	 * worker is full
+	 */
+	public void dispatch(Message message, SessionID sessionID) throws FieldNotFound, UnsupportedMessageType {
+		if (!messageRouter.canRoute(message)) {
+			throw new UnsupportedMessageType();
+		}
+		Worker worker = workers[shardOf(message)];
+		long nanos = System.nanoTime();
+		if (!worker.ring.offer(message, sessionID, nanos)) {
+			worker.ringFull.increment();
+			do {
+				LockSupport.parkNanos(1_000);
+			} while (running && !worker.ring.offer(message, sessionID, nanos));
+		}
+	}
+
+	private int shardOf(Message message) throws FieldNotFound {
+		if (workers.length == 1) {
+			return 0;
+		}
+		String key;
+		if (message.isSetField(SecurityID.FIELD)) {
+			key = message.getString(SecurityID.FIELD);
+		} else if (message.isSetField(QuoteReqID.FIELD)) {
+			key = message.getString(QuoteReqID.FIELD);
+		} else {
+			return 0;
+		}
+		int hash = key.hashCode();
+		return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % workers.length;
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		for (Worker worker : workers) {
+			worker.thread.interrupt();
+		}
+		for (Worker worker : workers) {
+			try {
+				worker.thread.join(TimeUnit.SECONDS.toMillis(1));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private class Worker implements Runnable, DispatchRing.Handler {
+		private final DispatchRing ring;
+		private final Thread thread;
+		private final Timer waitTime;
+		private final Timer handleTime;
+		private final Counter ringFull;
+		private final Counter errors;
+
+		Worker(int index, DispatchRing ring, MeterRegistry meterRegistry) {
+			this.ring = ring;
+			String worker = String.valueOf(index);
+			thread = new Thread(this, "fix-dispatch-" + index);
+			thread.setDaemon(true);
+			Gauge.builder("fix.dispatch.queue.depth", ring, DispatchRing::depth)//
+					.description("messages waiting for the worker")//
+					.tag("worker", worker)//
+					.register(meterRegistry);
+			waitTime = Timer.builder("fix.dispatch.wait.time")//
+					.description("from fromApp to the worker picking the message up")//
+					.tag("worker", worker)//
+					.publishPercentileHistogram()//
+					.register(meterRegistry);
+			handleTime = Timer.builder("fix.dispatch.handle.time")//
+					.description("from fromApp to the handler returning on the worker")//
+					.tag("worker", worker)//
+					.publishPercentileHistogram()//
+					.register(meterRegistry);
+			ringFull = meterRegistry.counter("fix.dispatch.ring.full", "worker", worker);
+			errors = meterRegistry.counter("fix.dispatch.errors", "worker", worker);
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				if (ring.drain(this) == 0) {
+					ring.awaitMessages();
+				}
+			}
+		}
+
+		@Override
+		public void onMessage(Message message, SessionID sessionID, long publishedNanos) {
+			waitTime.record(System.nanoTime() - publishedNanos, TimeUnit.NANOSECONDS);
+			try {
+				messageRouter.route(message, sessionID);
+			} catch (Exception e) {
+				errors.increment();
+				log.warn("could not handle {}", message, e);
+			}
+			handleTime.record(System.nanoTime() - publishedNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.ig.fix.igus.examples;
+
+import java.util.Iterator;
+
+import quickfix.Field;
+import quickfix.Group;
+import quickfix.field.ContractMultiplier;
+import quickfix.field.Currency;
+import quickfix.field.SecurityGroup;
+import quickfix.field.SecurityID;
+import quickfix.field.SecurityIDSource;
+import quickfix.field.Symbol;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * A SecurityList keeping only what subscribing needs of its NoRelatedSym
+ * entries. QuickFIX/J hands each entry over as soon as it is parsed, it is
+ * copied down to what subscribing and the {@link InstrumentRegistry} need of
+ * it and the parsed entry, with every other field of the instrument, is garbage right
+ * away. The message still holds every entry, but only the six fields kept of
+ * each, so what it costs grows with the number of instruments and not with
+ * everything the server says of them. The number of entries is unchanged and
+ * the message still validates against the data dictionary.
+ * <p>
+ * Created by {@link StreamingMessageFactory}.
+ */
+public class StreamedSecurityList extends SecurityList {
+
+	@Override
+	public void addGroupRef(Group group) {
+		if (group.getFieldTag() != quickfix.field.NoRelatedSym.FIELD) {
+			super.addGroupRef(group);
+			return;
+		}
+		NoRelatedSym kept = new NoRelatedSym();
+		for (Iterator<Field<?>> fields = group.iterator(); fields.hasNext();) {
+			Field<?> field = fields.next();
+			switch (field.getTag()) {
+			case Symbol.FIELD:
+			case SecurityID.FIELD:
+			case SecurityIDSource.FIELD:
+			case SecurityGroup.FIELD:
+			case ContractMultiplier.FIELD:
+			case Currency.FIELD:
+				kept.setField(field.getTag(), field);
+				break;
+			default:
+				break;
+			}
+		}
+		super.addGroupRef(kept);
+	}
+}
@@ -0,0 +1,38 @@
+package com.ig.fix.igus.examples;
+
+import quickfix.Group;
+import quickfix.Message;
+import quickfix.MessageFactory;
+import quickfix.field.ApplVerID;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * Creates a {@link StreamedSecurityList} for every FIX.5.0SP2 SecurityList,
+ * anything else as the given factory does.
+ */
+public class StreamingMessageFactory implements MessageFactory {
+	private final MessageFactory delegate;
+
+	public StreamingMessageFactory(MessageFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Message create(String beginString, String msgType) {
+		return delegate.create(beginString, msgType);
+	}
+
+	@Override
+	public Message create(String beginString, ApplVerID applVerID, String msgType) {
+		if (SecurityList.MSGTYPE.equals(msgType) && applVerID != null
+				&& ApplVerID.FIX50SP2.equals(applVerID.getValue())) {
+			return new StreamedSecurityList();
+		}
+		return delegate.create(beginString, applVerID, msgType);
+	}
+
+	@Override
+	public Group create(String beginString, String msgType, int correspondingFieldID) {
+		return delegate.create(beginString, msgType, correspondingFieldID);
+	}
+}
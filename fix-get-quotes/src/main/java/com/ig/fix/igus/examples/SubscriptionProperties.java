@@ -0,0 +1,51 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class SubscriptionProperties {
+	/**
+	 * QuoteRequests sent back to back
+	 */
+	private int batchSize = 20;
+	/**
+	 * minimum pause between two batches
+	 */
+	private Duration pacing = Duration.ofMillis(100);
+	/**
+	 * upper bound of QuoteRequests per second, stretches the pause between batches
+	 * when needed. Unlimited when 0
+	 */
+	private int maxRate = 100;
+	/**
+	 * regular expressions, only matching SecurityIDs are subscribed to. Everything
+	 * when empty
+	 */
+	private List<String> include = new ArrayList<>();
+	/**
+	 * only instruments of these SecurityGroups (CURRENCIES...) are subscribed to.
+	 * Every group when empty
+	 */
+	private List<String> securityGroups = new ArrayList<>();
+	/**
+	 * SecurityIDs subscribed to before anything else, in this order
+	 */
+	private List<String> watchlist = new ArrayList<>();
+	/**
+	 * read SecurityList entries one at a time, keeping only what subscribing
+	 * needs of them, instead of binding the whole list
+	 */
+	private boolean streamSecurityList;
+
+	public Duration batchInterval() {
+		if (maxRate <= 0) {
+			return pacing;
+		}
+		Duration rateLimited = Duration.ofNanos(1_000_000_000L * batchSize / maxRate);
+		return rateLimited.compareTo(pacing) > 0 ? rateLimited : pacing;
+	}
+}
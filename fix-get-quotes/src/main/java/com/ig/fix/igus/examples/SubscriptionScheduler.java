@@ -0,0 +1,218 @@
+package com.ig.fix.igus.examples;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Turns a SecurityList into a paced stream of subscriptions so that thousands
+ * of QuoteRequests do not hit the socket, and the server rate limiter, at once.
+ * Instruments are filtered, watchlist instruments are moved to the front, then
+ * they are queued for their session and sent batchSize at a time every
+ * {@link SubscriptionProperties#batchInterval()} from a dedicated thread, so
+ * the QuickFIX/J session thread is not held up. A SecurityList comes in
+ * fragments and every one of them, like the instruments resubscribed to on
+ * logon, joins the same queue, so the rate holds for the session as a whole.
+ */
+@Slf4j
+public class SubscriptionScheduler {
+	private final SubscriptionProperties properties;
+	private final List<Pattern> include;
+	private final Map<String, Integer> watchlistRanks = new HashMap<>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "subscription-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**
+	 * the queue of each session, removed once it has been idle for an interval
+	 */
+	private final Map<Object, SessionQueue> queues = new ConcurrentHashMap<>();
+
+	private final Counter sent;
+	private final AtomicInteger pending;
+	private final Timer timeToFullySubscribed;
+
+	public SubscriptionScheduler(SubscriptionProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		include = properties.getInclude().stream().map(Pattern::compile).collect(Collectors.toList());
+		for (String securityId : properties.getWatchlist()) {
+			watchlistRanks.putIfAbsent(securityId, watchlistRanks.size());
+		}
+		sent = meterRegistry.counter("quote.subscriptions.sent");
+		pending = meterRegistry.gauge("quote.subscriptions.pending", new AtomicInteger());
+		timeToFullySubscribed = Timer.builder("quote.subscriptions.time.to.fully.subscribed")//
+				.description("from receiving the SecurityList to sending the last QuoteRequest")//
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return the instruments to subscribe to, watchlist first
+	 */
+	public <T> List<T> plan(Collection<T> instruments, Function<T, String> securityIdOf,
+			Function<T, String> securityGroupOf) {
+		List<T> planned = instruments.stream()//
+				.filter(i -> accepts(securityIdOf.apply(i), securityGroupOf.apply(i)))//
+				.collect(Collectors.toList());
+		watchlistFirst(planned, securityIdOf);
+		log.info("subscribing to {} of {} instruments", planned.size(), instruments.size());
+		return planned;
+	}
+
+	/**
+	 * moves the watchlist instruments to the front, in watchlist order
+	 */
+	public <T> void watchlistFirst(List<T> instruments, Function<T, String> securityIdOf) {
+		// stable, the SecurityList order is kept outside the watchlist
+		instruments.sort(Comparator.comparingInt(i -> watchlistRanks.getOrDefault(securityIdOf.apply(i), Integer.MAX_VALUE)));
+	}
+
+	/**
+	 * @return true when the instrument passes the filters, so that plan would
+	 *         keep it
+	 */
+	public boolean accepts(String securityId, String securityGroup) {
+		if (watchlistRanks.containsKey(securityId)) {
+			return true;
+		}
+		if (!properties.getSecurityGroups().isEmpty() && !properties.getSecurityGroups().contains(securityGroup)) {
+			return false;
+		}
+		return include.isEmpty() || include.stream().anyMatch(p -> p.matcher(securityId).matches());
+	}
+
+	/**
+	 * queues the planned instruments behind those the session has queued
+	 * already. Sessions are paced independently, the pending gauge adds them up
+	 */
+	public <T> void schedule(Object session, List<T> planned, Consumer<T> send) {
+		if (planned.isEmpty()) {
+			return;
+		}
+		pending.addAndGet(planned.size());
+		queues.compute(session, (key, queue) -> {
+			SessionQueue added = queue == null ? new SessionQueue(key) : queue;
+			added.add(planned, send);
+			return added;
+		});
+	}
+
+	/**
+	 * drops what the session has queued, the next instruments scheduled for it
+	 * start a queue of their own
+	 */
+	public void cancel(Object session) {
+		SessionQueue queue = queues.remove(session);
+		if (queue != null) {
+			queue.cancel();
+		}
+	}
+
+	private class SessionQueue implements Runnable {
+		private final Object session;
+		/**
+		 * guarded by this
+		 */
+		private final Deque<Runnable> sends = new ArrayDeque<>();
+		private boolean scheduled;
+		private boolean cancelled;
+		/**
+		 * when the last batch was sent, 0 before the first one
+		 */
+		private long lastBatchNanos;
+		/**
+		 * when the queue last went from empty to not
+		 */
+		private long startNanos;
+		private int sentSinceStart;
+
+		SessionQueue(Object session) {
+			this.session = session;
+		}
+
+		synchronized <T> void add(List<T> planned, Consumer<T> send) {
+			if (sends.isEmpty()) {
+				startNanos = System.nanoTime();
+			}
+			for (T instrument : planned) {
+				sends.add(() -> send.accept(instrument));
+			}
+			if (!scheduled) {
+				scheduled = true;
+				long wait = lastBatchNanos == 0 ? 0
+						: Math.max(0, lastBatchNanos + properties.batchInterval().toNanos() - System.nanoTime());
+				executor.schedule(this, wait, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			pending.addAndGet(-sends.size());
+			sends.clear();
+		}
+
+		@Override
+		public void run() {
+			int count = 0;
+			while (count < properties.getBatchSize()) {
+				Runnable send;
+				synchronized (this) {
+					send = cancelled ? null : sends.poll();
+				}
+				if (send == null) {
+					break;
+				}
+				send.run();
+				sent.increment();
+				pending.decrementAndGet();
+				++count;
+			}
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				if (count > 0) {
+					lastBatchNanos = System.nanoTime();
+					sentSinceStart += count;
+					if (sends.isEmpty()) {
+						drained();
+					}
+					// the next batch, or an interval idle before the queue is retired
+					executor.schedule(this, properties.batchInterval().toNanos(), TimeUnit.NANOSECONDS);
+					return;
+				}
+				scheduled = false;
+			}
+			queues.computeIfPresent(session, (key, queue) -> queue == this && !isScheduled() ? null : queue);
+		}
+
+		private synchronized boolean isScheduled() {
+			return scheduled;
+		}
+
+		private void drained() {
+			long elapsed = System.nanoTime() - startNanos;
+			timeToFullySubscribed.record(elapsed, TimeUnit.NANOSECONDS);
+			log.info("sent {} subscriptions in {}ms", sentSinceStart, TimeUnit.NANOSECONDS.toMillis(elapsed));
+			sentSinceStart = 0;
+		}
+	}
+}
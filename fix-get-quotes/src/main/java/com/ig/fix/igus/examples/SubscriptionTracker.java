@@ -0,0 +1,236 @@
+package com.ig.fix.igus.examples;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Subscription state of every instrument, indexed by its
+ * {@link InstrumentRegistry} id, so that a session that is lost and comes back
+ * resubscribes to what it had instead of starting over from the SecurityList.
+ * <p>
+ * An instrument is {@link #claim claimed} by a session when it is planned for
+ * subscription, it is then pending until its first quote makes it active, or a
+ * QuoteRequestReject makes it rejected, or it is {@link #released} when its
+ * QuoteRequest could not be sent. Claiming fails for an instrument that
+ * already has a state, so an instrument is requested once however many times
+ * the SecurityList, or the catalog, lists it. When a session is
+ * {@link #disconnected} its pending and active instruments are lost;
+ * {@link #reconnected} hands them back to be requested again, those that were
+ * active first. Rejected instruments are not requested again.
+ * <p>
+ * The recovery timer measures from losing a session to the last of its lost
+ * instruments being quoted, or rejected, again. {@link #quoted} is called for
+ * every quote: it is a single read when the instrument is already active and
+ * never allocates.
+ */
+@Slf4j
+public class SubscriptionTracker {
+	public enum State {
+		NONE, PENDING, ACTIVE, REJECTED
+	}
+
+	private static final int NONE = 0;
+	private static final int PENDING = 1;
+	private static final int ACTIVE = 2;
+	private static final int REJECTED = 3;
+	/**
+	 * set along PENDING or ACTIVE while the instrument waits to be quoted again
+	 * after its session was lost
+	 */
+	private static final int LOST = 4;
+
+	private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final InstrumentRegistry instrumentRegistry;
+	private final int[] states;
+	/**
+	 * session of each claimed instrument, written before its state leaves NONE so
+	 * it is to be read after an acquiring read of the state
+	 */
+	private final int[] sessions;
+	private final Recovery[] recoveries;
+
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicInteger rejected = new AtomicInteger();
+	private final Counter resubscribed;
+	private final Timer recoveryTime;
+
+	/**
+	 * the instruments a lost session waits for
+	 */
+	private static class Recovery {
+		/**
+		 * System.nanoTime() when the session was lost, 0 while it is not
+		 * recovering
+		 */
+		private volatile long lostNanos;
+		private final AtomicInteger outstanding = new AtomicInteger();
+	}
+
+	public SubscriptionTracker(InstrumentRegistry instrumentRegistry, int sessions, MeterRegistry meterRegistry) {
+		this.instrumentRegistry = instrumentRegistry;
+		states = new int[instrumentRegistry.capacity()];
+		this.sessions = new int[instrumentRegistry.capacity()];
+		recoveries = new Recovery[sessions];
+		Arrays.setAll(recoveries, i -> new Recovery());
+		Gauge.builder("quote.subscriptions", pending, AtomicInteger::get).tag("state", "pending").register(meterRegistry);
+		Gauge.builder("quote.subscriptions", active, AtomicInteger::get).tag("state", "active").register(meterRegistry);
+		Gauge.builder("quote.subscriptions", rejected, AtomicInteger::get).tag("state", "rejected")
+				.register(meterRegistry);
+		resubscribed = meterRegistry.counter("quote.subscriptions.resubscribed");
+		recoveryTime = Timer.builder("quote.subscriptions.recovery.time")//
+				.description("from losing a session to every instrument it had being quoted again")//
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return true when the instrument is now pending on the session, false if it
+	 *         already had a state and is not to be requested
+	 */
+	public boolean claim(int session, int id) {
+		if (id < 0 || (int) STATES.getAcquire(states, id) != NONE) {
+			return false;
+		}
+		sessions[id] = session;
+		if (!STATES.compareAndSet(states, id, NONE, PENDING)) {
+			return false;
+		}
+		pending.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * called when the QuoteRequest of a claimed instrument was not sent, it can
+	 * be claimed again. An instrument lost with its session stays lost, it is
+	 * handed back when the session is {@link #reconnected}
+	 */
+	public void released(int id) {
+		if (id >= 0 && STATES.compareAndSet(states, id, PENDING, NONE)) {
+			pending.decrementAndGet();
+		}
+	}
+
+	/**
+	 * called for every quote, the instrument becomes active
+	 */
+	public void quoted(int id) {
+		for (;;) {
+			int state = (int) STATES.getAcquire(states, id);
+			if (state == ACTIVE || state == NONE || state == REJECTED) {
+				// a quote of an instrument never requested, e.g. replayed
+				return;
+			}
+			if (STATES.compareAndSet(states, id, state, ACTIVE)) {
+				pending.decrementAndGet();
+				active.incrementAndGet();
+				if ((state & LOST) != 0) {
+					recovered(sessions[id]);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * called on QuoteRequestReject, the instrument is not requested again
+	 */
+	public void rejected(int id) {
+		if (id < 0) {
+			return;
+		}
+		for (;;) {
+			int state = (int) STATES.getAcquire(states, id);
+			if (state == NONE || state == REJECTED) {
+				return;
+			}
+			if (STATES.compareAndSet(states, id, state, REJECTED)) {
+				(state == ACTIVE ? active : pending).decrementAndGet();
+				rejected.incrementAndGet();
+				if ((state & LOST) != 0) {
+					recovered(sessions[id]);
+				}
+				log.warn("{} rejected", instrumentRegistry.securityId(id));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * called when the session is lost, its instruments wait for it to come back
+	 */
+	public void disconnected(int session) {
+		Recovery recovery = recoveries[session];
+		if (recovery.lostNanos == 0) {
+			recovery.lostNanos = System.nanoTime();
+		}
+		for (int id = 0, size = instrumentRegistry.size(); id < size; ++id) {
+			// the state first, claim sets it after the session
+			int state = (int) STATES.getAcquire(states, id);
+			if (state != PENDING && state != ACTIVE || sessions[id] != session
+					|| !STATES.compareAndSet(states, id, state, state | LOST)) {
+				continue;
+			}
+			if (state == ACTIVE) {
+				// pending until quoted again
+				active.decrementAndGet();
+				pending.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * called when the session is established again
+	 *
+	 * @return the ids of the instruments the session lost, to be requested again,
+	 *         those that were active first
+	 */
+	public int[] reconnected(int session) {
+		Recovery recovery = recoveries[session];
+		int size = instrumentRegistry.size();
+		int[] lost = new int[size];
+		int count = 0;
+		for (int wasActive = 1; wasActive >= 0; --wasActive) {
+			int state = (wasActive == 1 ? ACTIVE : PENDING) | LOST;
+			for (int id = 0; id < size; ++id) {
+				if ((int) STATES.getAcquire(states, id) == state && sessions[id] == session) {
+					lost[count++] = id;
+				}
+			}
+		}
+		recovery.outstanding.set(count);
+		resubscribed.increment(count);
+		if (count == 0) {
+			recovery.lostNanos = 0;
+		} else {
+			log.info("session {} resubscribing to {} instruments", session, count);
+		}
+		return Arrays.copyOf(lost, count);
+	}
+
+	public State state(int id) {
+		int state = (int) STATES.getAcquire(states, id);
+		return State.values()[(state & LOST) != 0 ? PENDING : state];
+	}
+
+	private void recovered(int session) {
+		Recovery recovery = recoveries[session];
+		long lostNanos = recovery.lostNanos;
+		if (recovery.outstanding.decrementAndGet() == 0 && lostNanos != 0) {
+			long elapsed = System.nanoTime() - lostNanos;
+			recovery.lostNanos = 0;
+			recoveryTime.record(elapsed, TimeUnit.NANOSECONDS);
+			log.info("session {} recovered its subscriptions {}ms after it was lost",
+					session, TimeUnit.NANOSECONDS.toMillis(elapsed));
+		}
+	}
+}
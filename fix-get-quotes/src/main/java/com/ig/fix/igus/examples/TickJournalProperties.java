@@ -0,0 +1,22 @@
+package com.ig.fix.igus.examples;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+public class TickJournalProperties {
+	/**
+	 * append every received quote to a {@link TickJournal}
+	 */
+	private boolean enabled;
+	private String directory = "journal";
+	/**
+	 * size of a segment file, a new one is started when it is full
+	 */
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+	/**
+	 * segments kept, the oldest are deleted beyond it. All when 0
+	 */
+	private int retainSegments;
+}
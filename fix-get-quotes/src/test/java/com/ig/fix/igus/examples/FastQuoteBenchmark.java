@@ -0,0 +1,86 @@
+package com.ig.fix.igus.examples;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import quickfix.FieldNotFound;
+import quickfix.InvalidMessage;
+import quickfix.field.BeginString;
+import quickfix.field.BidID;
+import quickfix.field.BidPx;
+import quickfix.field.OfferPx;
+import quickfix.field.QuoteID;
+import quickfix.field.QuoteReqID;
+import quickfix.field.SecurityID;
+import quickfix.fix50sp2.Quote;
+
+/**
+ * allocation profile of handling an already parsed Quote: typed fields and
+ * BigDecimals versus decoding into a reused {@link FastQuote}. Look at
+ * gc.alloc.rate.norm, fastQuote is expected to report 0 B/op.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.FastQuoteBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastQuoteBenchmark {
+
+	private Quote quote;
+	private FastQuoteDecoder fastQuoteDecoder;
+	private final FastQuote quoteRecord = new FastQuote();
+
+	@Setup
+	public void setup() throws InvalidMessage {
+		Quote recorded = new Quote(new QuoteID("CS.D.GBPUSD.CZD.IP-1614600000123"));
+		recorded.getHeader().setString(BeginString.FIELD, "FIXT.1.1");
+		recorded.setString(QuoteReqID.FIELD, "CS.D.GBPUSD.CZD.IP");
+		recorded.setString(SecurityID.FIELD, "CS.D.GBPUSD.CZD.IP");
+		recorded.setString(BidID.FIELD, "CS.D.GBPUSD.CZD.IP-B-1614600000123");
+		recorded.setString(BidPx.FIELD, "1.39012");
+		recorded.setString(OfferPx.FIELD, "1.39021");
+		quote = new Quote();
+		quote.fromString(recorded.toString(), null, false);
+		fastQuoteDecoder = new FastQuoteDecoder(new InstrumentRegistry(16, new TickScales(5, Map.of())));
+	}
+
+	@Benchmark
+	public void typedFields(Blackhole blackhole) throws FieldNotFound {
+		blackhole.consume(quote.getQuoteReqID().getValue());
+		blackhole.consume(quote.getBidPx().getValue());
+		blackhole.consume(quote.getOfferPx().getValue());
+	}
+
+	@Benchmark
+	public long fastQuote() throws FieldNotFound {
+		fastQuoteDecoder.decode(quote, quoteRecord);
+		return quoteRecord.getBidPx() + quoteRecord.getOfferPx();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FastQuoteBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
@@ -0,0 +1,95 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import lombok.SneakyThrows;
+
+/**
+ * subscribes to a SecurityList a local {@link FixAcceptorSimulator} sends in
+ * many fragments and checks every instrument of every fragment is requested,
+ * once, and the QuoteRequests of all of them together stay under max-rate.
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"HOST=localhost", //
+		"app.subscription.batch-size=10", //
+		"app.subscription.pacing=10ms", //
+		"app.subscription.max-rate=" + FixAcceptorSimulatorPacingTest.MAX_RATE })
+class FixAcceptorSimulatorPacingTest {
+	static final int MAX_RATE = 100;
+	private static final int BATCH_SIZE = 10;
+	private static final int INSTRUMENTS = 200;
+	private static FixAcceptorSimulator simulator;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.setInstruments(INSTRUMENTS);
+		simulator.setSecurityListFragment(10);
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	void pacesEveryFragmentAsOneStream() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(10), () -> simulator.getQuoteRequests().get() == INSTRUMENTS),
+				simulator.getQuoteRequests().get() + " QuoteRequests");
+		assertEquals(INSTRUMENTS / 10, simulator.getSecurityListsSent().get());
+		TimeUnit.MILLISECONDS.sleep(500);
+		// none of the earlier fragments was dropped or requested twice
+		assertEquals(INSTRUMENTS, simulator.getQuoteRequests().get());
+
+		List<Long> nanos;
+		synchronized (simulator.getQuoteRequestNanos()) {
+			nanos = new ArrayList<>(simulator.getQuoteRequestNanos());
+		}
+		// a batch may go out right at either end of a second
+		int mostInOneSecond = 0;
+		for (int first = 0, last = 0; last < nanos.size(); ++last) {
+			while (nanos.get(last) - nanos.get(first) >= TimeUnit.SECONDS.toNanos(1)) {
+				++first;
+			}
+			mostInOneSecond = Math.max(mostInOneSecond, last - first + 1);
+		}
+		assertTrue(mostInOneSecond <= MAX_RATE + BATCH_SIZE, mostInOneSecond + " QuoteRequests in one second");
+		long elapsed = nanos.get(nanos.size() - 1) - nanos.get(0);
+		long batchInterval = TimeUnit.SECONDS.toNanos(1) * BATCH_SIZE / MAX_RATE;
+		assertTrue(elapsed >= (INSTRUMENTS / BATCH_SIZE - 2) * batchInterval,
+				TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms from the first QuoteRequest to the last");
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
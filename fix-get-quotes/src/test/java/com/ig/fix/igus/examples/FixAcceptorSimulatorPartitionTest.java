@@ -0,0 +1,94 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import quickfix.Initiator;
+
+/**
+ * spreads the instruments of a local {@link FixAcceptorSimulator} over three
+ * sessions, CURRENCIES pinned to the first, and checks every instrument is
+ * subscribed to once and quoted into the one book.
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"HOST=localhost", //
+		"app.partition.logins[0].username=bogous1", //
+		"app.partition.logins[0].password=bogous", //
+		"app.partition.logins[1].username=bogous2", //
+		"app.partition.logins[1].password=bogous", //
+		"app.partition.groups.CURRENCIES=0", //
+		"app.subscription.batch-size=500", //
+		"app.subscription.pacing=10ms", //
+		"app.subscription.max-rate=100000" })
+@Slf4j
+class FixAcceptorSimulatorPartitionTest {
+	private static final int INSTRUMENTS = 1500;
+	private static FixAcceptorSimulator simulator;
+
+	@Autowired
+	private QuoteBook quoteBook;
+	@Autowired
+	private Initiator initiator;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setMoreClientCompIds(List.of("bogous1", "bogous2"));
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.setInstruments(INSTRUMENTS);
+		simulator.setQuoteRate(10);
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	void spreadsInstrumentsOverSessions() throws InterruptedException {
+		assertEquals(3, initiator.getSessions().size());
+		assertTrue(await(Duration.ofSeconds(20), () -> simulator.getQuoteRequests().get() == INSTRUMENTS),
+				"subscribed to " + simulator.getQuoteRequests().get() + " instruments");
+		assertTrue(await(Duration.ofSeconds(5), () -> quoteBook.size() == INSTRUMENTS),
+				"quotes for " + quoteBook.size() + " instruments");
+
+		long sentBefore = simulator.getQuotesSent().get();
+		TimeUnit.SECONDS.sleep(2);
+		log.info("{} quotes/s over 3 sessions", (simulator.getQuotesSent().get() - sentBefore) / 2);
+		assertEquals(3, simulator.getLogons().get());
+		assertEquals(INSTRUMENTS, simulator.getQuoteRequests().get());
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,81 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * logs in to a local {@link FixAcceptorSimulator}, subscribes to a thousand
+ * instruments and takes their quote streams, logging the quote rate.
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"HOST=localhost", //
+		"app.subscription.batch-size=500", //
+		"app.subscription.pacing=10ms", //
+		"app.subscription.max-rate=100000" })
+@Slf4j
+class FixAcceptorSimulatorQuotesTest {
+	private static final int INSTRUMENTS = 1000;
+	private static FixAcceptorSimulator simulator;
+
+	@Autowired
+	private QuoteBook quoteBook;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.setInstruments(INSTRUMENTS);
+		simulator.setQuoteRate(10);
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	void streamsQuotesForEveryInstrument() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(20), () -> simulator.getQuoteRequests().get() == INSTRUMENTS),
+				"subscribed to " + simulator.getQuoteRequests().get() + " instruments");
+		assertTrue(await(Duration.ofSeconds(5), () -> quoteBook.size() == INSTRUMENTS),
+				"quotes for " + quoteBook.size() + " instruments");
+
+		long sentBefore = simulator.getQuotesSent().get();
+		TimeUnit.SECONDS.sleep(2);
+		log.info("{} quotes/s", (simulator.getQuotesSent().get() - sentBefore) / 2);
+		assertEquals(1, simulator.getLogons().get());
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
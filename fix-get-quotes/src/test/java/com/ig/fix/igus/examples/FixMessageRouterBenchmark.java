@@ -0,0 +1,102 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import quickfix.FieldNotFound;
+import quickfix.IncorrectTagValue;
+import quickfix.InvalidMessage;
+import quickfix.MessageCracker;
+import quickfix.SessionID;
+import quickfix.UnsupportedMessageType;
+import quickfix.field.BeginString;
+import quickfix.field.QuoteID;
+import quickfix.field.QuoteReqID;
+import quickfix.fix50sp2.Quote;
+import quickfix.fix50sp2.QuoteRequestReject;
+import quickfix.fix50sp2.SecurityList;
+
+/**
+ * dispatch of an already parsed Quote to its onMessage handler through
+ * {@link MessageCracker#crack} and through a {@link FixMessageRouter} over the
+ * same handler.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.FixMessageRouterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixMessageRouterBenchmark {
+	private final SessionID sessionID = new SessionID("FIXT.1.1", "bogous", "FIXOTCIGUS1");
+	private Handler handler;
+	private FixMessageRouter router;
+	private Quote quote;
+
+	@Setup
+	public void setup() throws InvalidMessage {
+		handler = new Handler();
+		router = new FixMessageRouter(handler);
+		Quote recorded = new Quote(new QuoteID("CS.D.GBPUSD.CZD.IP-1614600000123"));
+		recorded.getHeader().setString(BeginString.FIELD, "FIXT.1.1");
+		recorded.setString(QuoteReqID.FIELD, "CS.D.GBPUSD.CZD.IP");
+		quote = new Quote();
+		quote.fromString(recorded.toString(), null, false);
+	}
+
+	@Benchmark
+	public void crack(Blackhole blackhole) throws UnsupportedMessageType, FieldNotFound, IncorrectTagValue {
+		handler.blackhole = blackhole;
+		handler.crack(quote, sessionID);
+	}
+
+	@Benchmark
+	public void route(Blackhole blackhole) throws UnsupportedMessageType, FieldNotFound, IncorrectTagValue {
+		handler.blackhole = blackhole;
+		router.route(quote, sessionID);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FixMessageRouterBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+
+	/**
+	 * the handlers of FixMessageCracker, minus the work they do
+	 */
+	public static class Handler extends MessageCracker {
+		private Blackhole blackhole;
+
+		public void onMessage(SecurityList securityList, SessionID sessionID) {
+			blackhole.consume(securityList);
+		}
+
+		public void onMessage(QuoteRequestReject rejection, SessionID sessionID) {
+			blackhole.consume(rejection);
+		}
+
+		public void onMessage(Quote quote, SessionID sessionID) throws FieldNotFound {
+			blackhole.consume(quote.getString(QuoteReqID.FIELD));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package com.ig.fix.igus.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import quickfix.FileStoreFactory;
+import quickfix.MessageStore;
+import quickfix.MessageStoreFactory;
+import quickfix.SessionID;
+import quickfix.SessionSettings;
+import quickfix.field.BeginString;
+import quickfix.field.MsgSeqNum;
+import quickfix.field.QuoteReqID;
+import quickfix.field.SenderCompID;
+import quickfix.field.SubscriptionRequestType;
+import quickfix.field.TargetCompID;
+import quickfix.fix50sp2.QuoteRequest;
+
+/**
+ * per message cost of persisting a sent message the way a session does with
+ * PersistMessages=Y: store it under the next sender MsgSeqNum, then increment
+ * it. {@link MappedFileStoreFactory} against QuickFIX/J's
+ * {@link FileStoreFactory}, each with writes forced to disk in the background
+ * (mapped, file) or on every write (mapped-sync, file-sync). The stores are
+ * reset before every iteration to bound the disk used.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.MessageStoreBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class MessageStoreBenchmark {
+	private final SessionID sessionID = new SessionID("FIXT.1.1", "bogous", "FIXOTCIGUS1");
+
+	@Param({ "mapped", "file", "mapped-sync", "file-sync" })
+	private String store;
+
+	private Path directory;
+	private MessageStoreFactory factory;
+	private MessageStore messageStore;
+	private String message;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("store");
+		boolean sync = store.endsWith("-sync");
+		if (store.startsWith("mapped")) {
+			factory = new MappedFileStoreFactory(directory, 64 << 20, sync ? Duration.ZERO : Duration.ofMillis(100));
+		} else {
+			SessionSettings settings = new SessionSettings();
+			settings.setString(FileStoreFactory.SETTING_FILE_STORE_PATH, directory.toString());
+			settings.setBool(FileStoreFactory.SETTING_FILE_STORE_SYNC, sync);
+			factory = new FileStoreFactory(settings);
+		}
+		messageStore = factory.create(sessionID);
+
+		QuoteRequest request = new QuoteRequest(new QuoteReqID("CS.D.GBPUSD.CZD.IP"));
+		request.setField(new SubscriptionRequestType(SubscriptionRequestType.SNAPSHOT_AND_UPDATES));
+		request.getHeader().setString(BeginString.FIELD, "FIXT.1.1");
+		request.getHeader().setString(SenderCompID.FIELD, "bogous");
+		request.getHeader().setString(TargetCompID.FIELD, "FIXOTCIGUS1");
+		request.getHeader().setInt(MsgSeqNum.FIELD, 1234567);
+		message = request.toString();
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() throws IOException {
+		messageStore.reset();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (messageStore instanceof Closeable) {
+			((Closeable) messageStore).close();
+		}
+		if (factory instanceof MappedFileStoreFactory) {
+			((MappedFileStoreFactory) factory).close();
+		}
+		List<Path> paths = new ArrayList<>();
+		try (Stream<Path> walk = Files.walk(directory)) {
+			walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+		}
+		for (Path path : paths) {
+			Files.deleteIfExists(path);
+		}
+	}
+
+	@Benchmark
+	public boolean persist() throws IOException {
+		boolean stored = messageStore.set(messageStore.getNextSenderMsgSeqNum(), message);
+		messageStore.incrNextSenderMsgSeqNum();
+		return stored;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(MessageStoreBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
@@ -0,0 +1,81 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * polls a {@link QuoteConflator} from the test thread, so ticks can land
+ * between the delivery thread taking the dirty bits of a word and reading the
+ * slots it took.
+ */
+class QuoteConflatorTest {
+	private final InstrumentRegistry instrumentRegistry = new InstrumentRegistry(256,
+			new FastQuoteProperties().toTickScales());
+	private final QuoteBook quoteBook = new QuoteBook(instrumentRegistry);
+	private final QuoteConflator quoteConflator = new QuoteConflator(quoteBook, new SimpleMeterRegistry());
+	private final FastQuote delivered = new FastQuote();
+
+	@Test
+	void deliversTheFreshestQuoteAndCountsTheOthers() {
+		int slot = tick("EURUSD", 1);
+		tick("EURUSD", 2);
+		tick("EURUSD", 3);
+
+		assertTrue(quoteConflator.poll(delivered));
+		assertEquals(3, delivered.getBidPx());
+		assertFalse(quoteConflator.poll(delivered));
+		assertEquals(2, quoteConflator.conflatedTicks(slot));
+
+		tick("EURUSD", 4);
+		assertTrue(quoteConflator.poll(delivered));
+		assertEquals(4, delivered.getBidPx());
+		assertEquals(2, quoteConflator.conflatedTicks(slot));
+	}
+
+	@Test
+	void deliversEveryInstrumentInTurn() {
+		for (int i = 0; i < 100; ++i) {
+			tick("I" + i, i);
+		}
+		long sum = 0;
+		int count = 0;
+		while (quoteConflator.poll(delivered)) {
+			sum += delivered.getBidPx();
+			++count;
+		}
+		assertEquals(100, count);
+		assertEquals(99 * 100 / 2, sum);
+	}
+
+	@Test
+	void doesNotDeliverATickTwiceWhenItLandsAfterItsBitWasTaken() {
+		tick("EURUSD", 1);
+		int slot = tick("GBPUSD", 1);
+
+		// takes the word holding both bits and delivers the first slot
+		assertTrue(quoteConflator.poll(delivered));
+		assertEquals("EURUSD", delivered.getQuoteReqId().toString());
+		// replaces the undelivered GBPUSD quote and marks its slot again
+		tick("GBPUSD", 2);
+
+		assertTrue(quoteConflator.poll(delivered));
+		assertEquals("GBPUSD", delivered.getQuoteReqId().toString());
+		assertEquals(2, delivered.getBidPx());
+		assertFalse(quoteConflator.poll(delivered), "GBPUSD 2 delivered twice");
+		assertEquals(1, quoteConflator.conflatedTicks(slot));
+	}
+
+	private int tick(String securityId, long bidPx) {
+		FastQuote quote = new FastQuote();
+		quote.getQuoteReqId().set(securityId);
+		quote.setBidPx(bidPx);
+		int slot = quoteBook.update(quote);
+		quoteConflator.updated(slot);
+		return slot;
+	}
+}
@@ -2,12 +2,15 @@ package com.ig.fix.igus.examples;
 
 import static java.lang.Thread.currentThread;
 
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -23,6 +26,7 @@ import quickfix.LogFactory;
 import quickfix.MessageCracker;
 import quickfix.MessageFactory;
 import quickfix.MessageStoreFactory;
+import quickfix.Session;
 import quickfix.SessionSettings;
 import quickfix.ThreadedSocketInitiator;
 
@@ -53,6 +57,23 @@ public class ExampleClientApplication {
     public MessageCracker messageCracker() {
         return new FixMessageCracker();
     }
+    @Bean
+    @ConfigurationProperties(prefix = "app.message-store")
+    public MessageStoreProperties messageStoreProperties() {
+        return new MessageStoreProperties();
+    }
+
+    /**
+     * only with app.message-store.mapped, substituting the quickfixj.client.message-store-factory one of
+     * io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration
+     */
+    @Bean(name = "clientMessageStoreFactory")
+    @ConditionalOnProperty(prefix = "app.message-store", name = "mapped", havingValue = "true")
+    public MessageStoreFactory clientMessageStoreFactory(MessageStoreProperties messageStoreProperties) {
+        return new MappedFileStoreFactory(Paths.get(messageStoreProperties.getDirectory()),
+                (int) messageStoreProperties.getSegmentSize().toBytes(), messageStoreProperties.getSyncInterval());
+    }
+
     /**
      * substituting bean from io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration.clientSessionSettings(QuickFixJBootProperties) 
      * @param properties
@@ -65,6 +86,7 @@ public class ExampleClientApplication {
             @Value("${app.session.port}") int port,//
             @Value("${app.session.username}") String username,//
             @Value("${app.session.password}") String password,
+            @Value("${app.session.resume}") boolean resume,
             QuickFixJBootProperties properties) {
         ClassLoader classLoader = currentThread().getContextClassLoader();
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
@@ -79,7 +101,15 @@ public class ExampleClientApplication {
         props.put("username", username);
         props.put("password", password);
 
-        return new SessionSettings(resource.getInputStream(), props);
+        SessionSettings settings = new SessionSettings(resource.getInputStream(), props);
+        if (resume) {
+            // keep sequence numbers across disconnects and restarts, ResendRequests are answered from the store
+            settings.setBool(Session.SETTING_RESET_ON_LOGON, false);
+            settings.setBool(Session.SETTING_RESET_ON_LOGOUT, false);
+            settings.setBool(Session.SETTING_RESET_ON_DISCONNECT, false);
+            settings.setBool(Session.SETTING_PERSIST_MESSAGES, true);
+        }
+        return settings;
     }
     @Bean
     public Initiator clientInitiator(quickfix.Application clientApplication,
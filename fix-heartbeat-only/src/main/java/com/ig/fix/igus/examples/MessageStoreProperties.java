@@ -0,0 +1,25 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+public class MessageStoreProperties {
+	/**
+	 * keep sequence numbers and sent messages in a {@link MappedFileStoreFactory}
+	 * instead of quickfixj.client.message-store-factory
+	 */
+	private boolean mapped;
+	private String directory = "store";
+	/**
+	 * size of a message segment file, a new one is started when it is full
+	 */
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+	/**
+	 * how often written pages are forced to disk, every write when 0
+	 */
+	private Duration syncInterval = Duration.ofMillis(100);
+}
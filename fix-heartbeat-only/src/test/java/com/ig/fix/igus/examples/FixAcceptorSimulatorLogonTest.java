@@ -0,0 +1,51 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import lombok.SneakyThrows;
+
+/**
+ * logs in to a local {@link FixAcceptorSimulator} with the 553/554 LogonTags
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"HOST=localhost" })
+class FixAcceptorSimulatorLogonTest {
+	private static FixAcceptorSimulator simulator;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	void logsOn() throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (simulator.getLogons().get() == 0 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		assertTrue(simulator.getLogons().get() == 1, "not logged on");
+	}
+}
@@ -0,0 +1,89 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import lombok.SneakyThrows;
+import quickfix.Initiator;
+import quickfix.Session;
+import quickfix.SessionID;
+
+/**
+ * logs in to a local {@link FixAcceptorSimulator}, logs out and in again with
+ * the sequence numbers resumed from a {@link MappedFileStoreFactory} instead
+ * of reset.
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"HOST=localhost", //
+		"app.session.resume=true", //
+		"app.message-store.mapped=true" })
+class FixAcceptorSimulatorResumeTest {
+	private static FixAcceptorSimulator simulator;
+
+	@Autowired
+	private Initiator initiator;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.setResume(true);
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+		String directory = Files.createTempDirectory("store").toString();
+		registry.add("app.message-store.directory", () -> directory);
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	void resumesSequenceNumbers() throws Exception {
+		assertTrue(await(Duration.ofSeconds(10), () -> simulator.getLogons().get() == 1), "not logged on");
+		SessionID sessionID = initiator.getSessions().get(0);
+		Session session = Session.lookupSession(sessionID);
+		initiator.stop();
+		int nextSender = session.getStore().getNextSenderMsgSeqNum();
+		assertTrue(nextSender > 2, "logon and logout were sent, next is " + nextSender);
+
+		initiator.start();
+		assertTrue(await(Duration.ofSeconds(10), () -> simulator.getLogons().get() == 2), "not logged on again");
+		TimeUnit.MILLISECONDS.sleep(500);
+		// a reset or a sequence number the simulator did not expect would have ended the session
+		assertEquals(2, simulator.getLogons().get());
+		assertTrue(Session.lookupSession(sessionID).isLoggedOn(), "logged out");
+		assertTrue(Session.lookupSession(sessionID).getStore().getNextSenderMsgSeqNum() > nextSender,
+				"sequence numbers were reset");
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
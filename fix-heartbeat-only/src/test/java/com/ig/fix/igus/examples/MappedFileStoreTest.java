@@ -0,0 +1,103 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import quickfix.SessionID;
+
+/**
+ * writes messages to a {@link MappedFileStore} across segment rolls, then
+ * reads them back from a store reopened on the same files, as after a
+ * restart.
+ */
+class MappedFileStoreTest {
+	private static final SessionID SESSION_ID = new SessionID("FIXT.1.1", "bogous", "IGUS");
+	private static final int SEGMENT_SIZE = 512;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsMessagesAcrossSegmentsAndReopen() throws IOException {
+		List<String> sent = new ArrayList<>();
+		try (MappedFileStore store = open()) {
+			for (int sequence = 1; sequence <= 40; ++sequence) {
+				sent.add(message(sequence));
+				assertTrue(store.set(sequence, message(sequence)));
+				store.incrNextSenderMsgSeqNum();
+			}
+			store.setNextTargetMsgSeqNum(17);
+		}
+		assertTrue(segments() > 1, segments() + " segments, the store did not roll");
+
+		try (MappedFileStore store = open()) {
+			assertEquals(41, store.getNextSenderMsgSeqNum());
+			assertEquals(17, store.getNextTargetMsgSeqNum());
+			assertEquals(sent, get(store, 1, 40));
+			assertEquals(sent.subList(9, 30), get(store, 10, 30));
+			// as asked for by a ResendRequest with EndSeqNo 0
+			assertEquals(sent.subList(34, 40), get(store, 35, Integer.MAX_VALUE));
+
+			// appended after the last message loaded
+			for (int sequence = 41; sequence <= 60; ++sequence) {
+				sent.add(message(sequence));
+				store.set(sequence, message(sequence));
+			}
+		}
+
+		try (MappedFileStore store = open()) {
+			assertEquals(sent, get(store, 1, 60));
+		}
+	}
+
+	@Test
+	void resetDiscardsMessagesAndSequenceNumbers() throws IOException {
+		try (MappedFileStore store = open()) {
+			for (int sequence = 1; sequence <= 20; ++sequence) {
+				store.set(sequence, message(sequence));
+				store.incrNextSenderMsgSeqNum();
+			}
+			store.reset();
+			store.set(1, message(1));
+		}
+
+		try (MappedFileStore store = open()) {
+			assertEquals(1, store.getNextSenderMsgSeqNum());
+			assertEquals(List.of(message(1)), get(store, 1, 20));
+		}
+	}
+
+	private MappedFileStore open() throws IOException {
+		return new MappedFileStore(directory, SESSION_ID, SEGMENT_SIZE, false);
+	}
+
+	private long segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName().toString().startsWith("messages-")).count();
+		}
+	}
+
+	private static List<String> get(MappedFileStore store, int from, int to) throws IOException {
+		List<String> messages = new ArrayList<>();
+		store.get(from, to, messages);
+		return messages;
+	}
+
+	/**
+	 * of varying length, so records are padded differently
+	 */
+	private static String message(int sequence) {
+		return "8=FIXT.1.1\u00019=0\u000135=D\u000134=" + sequence + "\u000111=order-" + "x".repeat(sequence % 7)
+				+ "\u000110=000\u0001";
+	}
+}
@@ -0,0 +1,159 @@
+package com.ig.fix.igus.examples;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing map from ClOrdID to the state of an order in flight. Keys,
+ * their hashes and values sit in flat arrays probed linearly, so a lookup is
+ * an int compare per slot and one String.equals on the hit, with no entry
+ * objects, boxing or chains to chase. Removal shifts the following entries
+ * back rather than leaving tombstones, so the table does not degrade under the
+ * put/remove churn of orders.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <V> the state of an order
+ */
+public class ClOrdIdMap<V> {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private String[] keys;
+	private int[] hashes;
+	private Object[] values;
+	private int mask;
+	private int size;
+	private int resizeAt;
+
+	/**
+	 * @param expectedSize orders expected in flight at once, the table only
+	 *                     grows beyond that
+	 */
+	public ClOrdIdMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the previous value of clOrdID, null if none
+	 */
+	public V put(String clOrdID, V value) {
+		int hash = hash(clOrdID);
+		int slot = find(clOrdID, hash);
+		if (keys[slot] != null) {
+			V previous = valueAt(slot);
+			values[slot] = value;
+			return previous;
+		}
+		keys[slot] = clOrdID;
+		hashes[slot] = hash;
+		values[slot] = value;
+		if (++size >= resizeAt) {
+			resize();
+		}
+		return null;
+	}
+
+	public V get(String clOrdID) {
+		int slot = find(clOrdID, hash(clOrdID));
+		return keys[slot] == null ? null : valueAt(slot);
+	}
+
+	/**
+	 * @return the removed value, null if none
+	 */
+	public V remove(String clOrdID) {
+		int slot = find(clOrdID, hash(clOrdID));
+		if (keys[slot] == null) {
+			return null;
+		}
+		V removed = valueAt(slot);
+		shiftBack(slot);
+		--size;
+		return removed;
+	}
+
+	/**
+	 * visits every entry, action must not modify the map
+	 */
+	public void forEach(BiConsumer<String, V> action) {
+		for (int slot = 0; slot < keys.length; ++slot) {
+			if (keys[slot] != null) {
+				action.accept(keys[slot], valueAt(slot));
+			}
+		}
+	}
+
+	/**
+	 * @return the slot holding clOrdID, or the empty slot where it belongs
+	 */
+	private int find(String clOrdID, int hash) {
+		int slot = hash & mask;
+		while (keys[slot] != null && (hashes[slot] != hash || !keys[slot].equals(clOrdID))) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * empties slot and moves back the entries after it that would otherwise no
+	 * longer be reachable from their home slot
+	 */
+	private void shiftBack(int slot) {
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (keys[next] != null) {
+			int home = hashes[next] & mask;
+			// move next into the gap unless its home lies cyclically in (gap, next]
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				hashes[gap] = hashes[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[gap] = null;
+		values[gap] = null;
+	}
+
+	private void resize() {
+		String[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		Object[] oldValues = values;
+		allocate(oldKeys.length << 1);
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldKeys[i] != null) {
+				int slot = find(oldKeys[i], oldHashes[i]);
+				keys[slot] = oldKeys[i];
+				hashes[slot] = oldHashes[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new String[capacity];
+		hashes = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int slot) {
+		return (V) values[slot];
+	}
+
+	/**
+	 * ClOrdIDs tend to share a prefix and differ in their last characters, so
+	 * the String hash is spread before masking
+	 */
+	private static int hash(String clOrdID) {
+		int h = clOrdID.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
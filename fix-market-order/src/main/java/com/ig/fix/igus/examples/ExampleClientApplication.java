@@ -2,12 +2,15 @@ package com.ig.fix.igus.examples;
 
 import static java.lang.Thread.currentThread;
 
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -15,6 +18,7 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 
 import io.allune.quickfixj.spring.boot.starter.EnableQuickFixJClient;
 import io.allune.quickfixj.spring.boot.starter.autoconfigure.QuickFixJBootProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.SneakyThrows;
 import quickfix.Application;
 import quickfix.ConfigError;
@@ -23,6 +27,7 @@ import quickfix.LogFactory;
 import quickfix.MessageCracker;
 import quickfix.MessageFactory;
 import quickfix.MessageStoreFactory;
+import quickfix.Session;
 import quickfix.SessionSettings;
 import quickfix.ThreadedSocketInitiator;
 
@@ -45,14 +50,45 @@ public class ExampleClientApplication {
     
 
     @Bean
-    public Application clientApplication(@Value("${app.session.account}") String account) {
-        return new FixApplication(messageCracker(),account);
+    public Application clientApplication(@Value("${app.session.account}") String account,
+            MessageCracker messageCracker, OrderManager orderManager) {
+        return new FixApplication(messageCracker, orderManager, account);
     }
 
     @Bean
-    public MessageCracker messageCracker() {
-        return new FixMessageCracker();
+    public MessageCracker messageCracker(OrderManager orderManager) {
+        return new FixMessageCracker(orderManager);
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.orders")
+    public OrderManagerProperties orderManagerProperties() {
+        return new OrderManagerProperties();
+    }
+
+    @Bean
+    public OrderManager orderManager(OrderManagerProperties orderManagerProperties,
+            @Value("${app.session.resume}") boolean resume, MeterRegistry meterRegistry) {
+        return new OrderManager(orderManagerProperties, resume, meterRegistry);
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "app.message-store")
+    public MessageStoreProperties messageStoreProperties() {
+        return new MessageStoreProperties();
+    }
+
+    /**
+     * only with app.message-store.mapped, substituting the quickfixj.client.message-store-factory one of
+     * io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration
+     */
+    @Bean(name = "clientMessageStoreFactory")
+    @ConditionalOnProperty(prefix = "app.message-store", name = "mapped", havingValue = "true")
+    public MessageStoreFactory clientMessageStoreFactory(MessageStoreProperties messageStoreProperties) {
+        return new MappedFileStoreFactory(Paths.get(messageStoreProperties.getDirectory()),
+                (int) messageStoreProperties.getSegmentSize().toBytes(), messageStoreProperties.getSyncInterval());
+    }
+
     /**
      * substituting bean from io.allune.quickfixj.spring.boot.starter.autoconfigure.client.QuickFixJClientAutoConfiguration.clientSessionSettings(QuickFixJBootProperties) 
      * @param properties
@@ -65,6 +101,7 @@ public class ExampleClientApplication {
             @Value("${app.session.port}") int port,//
             @Value("${app.session.username}") String username,//
             @Value("${app.session.password}") String password,
+            @Value("${app.session.resume}") boolean resume,
             QuickFixJBootProperties properties) {
         ClassLoader classLoader = currentThread().getContextClassLoader();
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
@@ -79,7 +116,15 @@ public class ExampleClientApplication {
         props.put("username", username);
         props.put("password", password);
 
-        return new SessionSettings(resource.getInputStream(), props);
+        SessionSettings settings = new SessionSettings(resource.getInputStream(), props);
+        if (resume) {
+            // keep sequence numbers across disconnects and restarts, ResendRequests are answered from the store
+            settings.setBool(Session.SETTING_RESET_ON_LOGON, false);
+            settings.setBool(Session.SETTING_RESET_ON_LOGOUT, false);
+            settings.setBool(Session.SETTING_RESET_ON_DISCONNECT, false);
+            settings.setBool(Session.SETTING_PERSIST_MESSAGES, true);
+        }
+        return settings;
     }
     @Bean
     public Initiator clientInitiator(quickfix.Application clientApplication,
@@ -10,9 +10,7 @@ import quickfix.IncorrectDataFormat;
 import quickfix.IncorrectTagValue;
 import quickfix.Message;
 import quickfix.MessageCracker;
-import quickfix.Session;
 import quickfix.SessionID;
-import quickfix.SessionNotFound;
 import quickfix.UnsupportedMessageType;
 import quickfix.field.Account;
 import quickfix.field.ClOrdID;
@@ -29,22 +27,32 @@ import quickfix.fix50sp2.NewOrderSingle;
 @Slf4j
 public class FixApplication extends ApplicationAdapter {
 
-	private MessageCracker messageCracker;
+	private final FixMessageRouter messageRouter;
+	private final OrderManager orderManager;
     private String account;
 
-	public FixApplication(MessageCracker messageCracker, String account) {
-		this.messageCracker = messageCracker;
+	public FixApplication(MessageCracker messageCracker, OrderManager orderManager, String account) {
+		this.messageRouter = new FixMessageRouter(messageCracker);
+		this.orderManager = orderManager;
         this.account = account;
+        orderManager.subscribe(fill -> log.info("filled {}", fill));
 	}
 	
 	@Override
 	public void onLogon(SessionID sessionId) {
 	    log.info("logged on will send trade");
-	    try {
-            Session.sendToTarget(makeNewOrderSingle(), sessionId);
-        } catch (SessionNotFound e) {
-            log.error("this should never happen. (race condition?)",e);
-        }
+	    orderManager.submit(makeNewOrderSingle(), sessionId).whenComplete((report, e) -> {
+	        if (e != null) {
+	            log.error("order failed", e);
+	        } else {
+	            log.info("order ended: {}", report);
+	        }
+	    });
+	}
+
+	@Override
+	public void onLogout(SessionID sessionId) {
+	    orderManager.sessionLost(sessionId);
 	}
 
 	   /**
@@ -84,6 +92,6 @@ public class FixApplication extends ApplicationAdapter {
     @Override
     public void fromApp(Message message, SessionID sessionId)
             throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
-        messageCracker.crack(message, sessionId);
+        messageRouter.route(message, sessionId);
     }
 }
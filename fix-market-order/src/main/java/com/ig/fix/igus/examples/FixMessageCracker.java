@@ -10,9 +10,16 @@ import quickfix.fix50sp2.ExecutionReport;
 
 @Slf4j
 public class FixMessageCracker extends MessageCracker {
+    private final OrderManager orderManager;
+
+    public FixMessageCracker(OrderManager orderManager) {
+        this.orderManager = orderManager;
+    }
 
     public void onMessage(ExecutionReport message, SessionID sessionID)
             throws FieldNotFound, UnsupportedMessageType, IncorrectTagValue {
-      log.info("received an executionReport: {}",message);  
+        if (!orderManager.onExecutionReport(message, sessionID)) {
+            log.info("received an executionReport of no cached order: {}", message);
+        }
     }
 }
@@ -0,0 +1,165 @@
+package com.ig.fix.igus.examples;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import lombok.extern.slf4j.Slf4j;
+import quickfix.FieldNotFound;
+import quickfix.IncorrectTagValue;
+import quickfix.Message;
+import quickfix.MessageCracker;
+import quickfix.SessionID;
+import quickfix.UnsupportedMessageType;
+import quickfix.field.MsgType;
+
+/**
+ * Routes application messages to the typed onMessage handlers of a
+ * {@link MessageCracker} subclass, or any object written the same way, without
+ * the per message reflective lookup of {@link MessageCracker#crack}.
+ * <p>
+ * The handlers are found once at startup and each one is spun into a
+ * {@link TypedHandler} with {@link LambdaMetafactory}, so calling it is a plain
+ * interface call the JIT can inline, with no argument array or access checks.
+ * They are kept in a table indexed by the chars of the MsgType (35): a one char
+ * MsgType lands in {@code routes[c][0]}, a two char one in
+ * {@code routes[c0][c1]}. A message is dispatched with two array loads and a
+ * class check. As with the cracker, a message with no handler for its exact
+ * class is rejected with {@link UnsupportedMessageType}.
+ */
+@Slf4j
+public class FixMessageRouter {
+	private static final int CHARS = 128;
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Message.class, SessionID.class);
+
+	private final Route[][] routes = new Route[CHARS][];
+
+	public FixMessageRouter(Object messageHandler) {
+		for (Method method : messageHandler.getClass().getMethods()) {
+			if (isHandler(method)) {
+				add(messageHandler, method);
+			}
+		}
+	}
+
+	public void route(Message message, SessionID sessionID)
+			throws FieldNotFound, UnsupportedMessageType, IncorrectTagValue {
+		Route route = find(message);
+		if (route == null) {
+			throw new UnsupportedMessageType();
+		}
+		try {
+			route.handler.onMessage(message, sessionID);
+		} catch (FieldNotFound | UnsupportedMessageType | IncorrectTagValue | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// same as MessageCracker does for other checked exceptions of a handler
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return true when {@link #route} would not reject the message as
+	 *         unsupported
+	 */
+	public boolean canRoute(Message message) throws FieldNotFound {
+		return find(message) != null;
+	}
+
+	private Route find(Message message) throws FieldNotFound {
+		Route route = lookup(message.getHeader().getString(MsgType.FIELD));
+		Class<?> type = message.getClass();
+		while (route != null && route.type != type) {
+			route = route.next;
+		}
+		return route;
+	}
+
+	private Route lookup(String msgType) {
+		int length = msgType.length();
+		if (length == 0 || length > 2) {
+			return null;
+		}
+		char c0 = msgType.charAt(0);
+		char c1 = length == 2 ? msgType.charAt(1) : 0;
+		if (c0 >= CHARS || c1 >= CHARS) {
+			return null;
+		}
+		Route[] second = routes[c0];
+		return second == null ? null : second[c1];
+	}
+
+	private void add(Object messageHandler, Method method) {
+		Class<?> type = method.getParameterTypes()[0];
+		String msgType = msgTypeOf(type);
+		if (msgType.isEmpty() || msgType.length() > 2 || msgType.charAt(0) >= CHARS
+				|| (msgType.length() == 2 && msgType.charAt(1) >= CHARS)) {
+			throw new IllegalArgumentException("cannot route MsgType " + msgType + " of " + method);
+		}
+		TypedHandler handler;
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflect(method);
+			handler = (TypedHandler) LambdaMetafactory.metafactory(lookup, "onMessage",
+					MethodType.methodType(TypedHandler.class, method.getDeclaringClass()), HANDLER_TYPE, handle,
+					MethodType.methodType(void.class, type, SessionID.class))//
+					.getTarget().invoke(messageHandler);
+		} catch (Throwable e) {
+			throw new IllegalArgumentException("cannot route to " + method, e);
+		}
+		char c0 = msgType.charAt(0);
+		int c1 = msgType.length() == 2 ? msgType.charAt(1) : 0;
+		if (routes[c0] == null) {
+			routes[c0] = new Route[CHARS];
+		}
+		for (Route route = routes[c0][c1]; route != null; route = route.next) {
+			if (route.type == type) {
+				throw new IllegalArgumentException("more than one handler of " + type.getName() + ": " + method);
+			}
+		}
+		routes[c0][c1] = new Route(type, handler, routes[c0][c1]);
+		log.debug("routing MsgType {} to {}", msgType, method);
+	}
+
+	private static boolean isHandler(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		return ("onMessage".equals(method.getName()) || method.isAnnotationPresent(MessageCracker.Handler.class))
+				&& method.getReturnType() == void.class && parameterTypes.length == 2
+				&& Message.class.isAssignableFrom(parameterTypes[0]) && parameterTypes[0] != Message.class
+				&& parameterTypes[1] == SessionID.class;
+	}
+
+	private static String msgTypeOf(Class<?> type) {
+		try {
+			return (String) type.getField("MSGTYPE").get(null);
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			throw new IllegalArgumentException(type.getName() + " has no MSGTYPE", e);
+		}
+	}
+
+	/**
+	 * an onMessage handler with its message type erased, checked exceptions are
+	 * passed through undeclared by the generated implementations
+	 */
+	@FunctionalInterface
+	private interface TypedHandler {
+		void onMessage(Message message, SessionID sessionID) throws Exception;
+	}
+
+	private static final class Route {
+		private final Class<?> type;
+		private final TypedHandler handler;
+		/**
+		 * another message class with the same MsgType, e.g. of an other FIX version
+		 */
+		private final Route next;
+
+		private Route(Class<?> type, TypedHandler handler, Route next) {
+			this.type = type;
+			this.handler = handler;
+			this.next = next;
+		}
+	}
+}
@@ -0,0 +1,467 @@
+package com.ig.fix.igus.examples;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import quickfix.FieldNotFound;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.field.ClOrdID;
+import quickfix.field.CumQty;
+import quickfix.field.ExecID;
+import quickfix.field.ExecType;
+import quickfix.field.LastPx;
+import quickfix.field.LastQty;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrderID;
+import quickfix.field.SecurityID;
+import quickfix.field.Side;
+import quickfix.field.TransactTime;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.NewOrderSingle;
+
+/**
+ * Submits NewOrderSingles from any thread, follows each order by ClOrdID
+ * through its ExecutionReports and publishes its fills.
+ * <p>
+ * A submitted order takes a slot of the order cache and is queued for the
+ * orders thread, which sends it: the caller returns at once with a future
+ * completed by the ExecutionReport that ends the order, with OrdStatus Filled,
+ * Canceled, Rejected or Expired. When the queue is full, or every slot holds an
+ * open order, submit fails rather than block.
+ * <p>
+ * The cache is sized once: its orders are allocated up front and found by
+ * ClOrdID in a {@link ClOrdIdMap} that never grows. Reports are read with the
+ * untyped getters of the message, so following an order allocates nothing but
+ * the fills published. A report moves the order to its OrdStatus unless it is
+ * late or repeated, as after a resumed session: any report of an ended order, a
+ * Trade that does not add to CumQty, a PendingNew once acknowledged. Those are
+ * ignored. An ended order is kept until retainedTerminal more orders ended, or
+ * until an open order needs its slot, then evicted.
+ * <p>
+ * Fill subscribers are called on the session thread for every Trade, in order,
+ * and must not block it.
+ * <p>
+ * Meters:
+ * <ul>
+ * <li>orders.report.latency, tagged by exec_type, from the TransactTime of an
+ * order to each of its ExecutionReports</li>
+ * <li>orders.open, orders submitted and not yet ended</li>
+ * <li>orders.submit.refused, orders refused because the queue or the cache was
+ * full</li>
+ * <li>orders.reports.ignored, reports of unknown orders, late or repeated</li>
+ * </ul>
+ */
+@Slf4j
+public class OrderManager implements AutoCloseable {
+	@Value
+	public static class Fill {
+		String clOrdID;
+		String orderID;
+		String execID;
+		String securityID;
+		char side;
+		BigDecimal lastQty;
+		BigDecimal lastPx;
+		BigDecimal cumQty;
+		char ordStatus;
+	}
+
+	private static final char[] EXEC_TYPES = { ExecType.NEW, ExecType.TRADE, ExecType.CANCELED, ExecType.REPLACED,
+			ExecType.PENDING_CANCEL, ExecType.PENDING_NEW, ExecType.REJECTED, ExecType.EXPIRED,
+			ExecType.ORDER_STATUS };
+	private static final String[] EXEC_TYPE_NAMES = { "new", "trade", "canceled", "replaced", "pending_cancel",
+			"pending_new", "rejected", "expired", "order_status" };
+
+	/**
+	 * a slot of the cache, free, open or ended
+	 */
+	private static class Order {
+		final int slot;
+		String clOrdID;
+		SessionID sessionID;
+		String securityID;
+		char side;
+		String orderID;
+		char ordStatus;
+		BigDecimal cumQty;
+		/**
+		 * System.nanoTime() at the TransactTime of the order
+		 */
+		long transactNanos;
+		/**
+		 * null once ended
+		 */
+		CompletableFuture<ExecutionReport> result;
+
+		Order(int slot) {
+			this.slot = slot;
+		}
+
+		void clear() {
+			clOrdID = null;
+			sessionID = null;
+			securityID = null;
+			orderID = null;
+			cumQty = null;
+			result = null;
+		}
+	}
+
+	private final int retainedTerminal;
+	private final boolean resume;
+	private final ExecutorService sender;
+
+	// guarded by byClOrdID
+	private final ClOrdIdMap<Order> byClOrdID;
+	private final Order[] orders;
+	private final int[] free;
+	private int freeCount;
+	/**
+	 * slots of the ended orders, oldest first, from endedHead on
+	 */
+	private final int[] ended;
+	private int endedHead;
+	private int endedCount;
+
+	private final List<Consumer<Fill>> fillSubscribers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * by ExecType char
+	 */
+	private final Timer[] reportLatency = new Timer[128];
+	private final AtomicInteger open = new AtomicInteger();
+	private final Counter submitRefused;
+	private final Counter reportsIgnored;
+
+	/**
+	 * @param resume true when sessions are resumed, the reports of orders open
+	 *               when a session was lost then come after it is logged on again
+	 */
+	public OrderManager(OrderManagerProperties properties, boolean resume, MeterRegistry meterRegistry) {
+		int capacity = properties.getCapacity();
+		this.retainedTerminal = properties.getRetainedTerminal();
+		this.resume = resume;
+		// twice the orders it can hold, so it never resizes
+		byClOrdID = new ClOrdIdMap<>(2 * capacity);
+		orders = new Order[capacity];
+		free = new int[capacity];
+		ended = new int[capacity];
+		for (int slot = capacity - 1; slot >= 0; --slot) {
+			orders[slot] = new Order(slot);
+			free[freeCount++] = slot;
+		}
+		sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+					Thread thread = new Thread(runnable, "orders");
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		Timer other = latencyTimer("other", meterRegistry);
+		Arrays.fill(reportLatency, other);
+		for (int i = 0; i < EXEC_TYPES.length; ++i) {
+			reportLatency[EXEC_TYPES[i]] = latencyTimer(EXEC_TYPE_NAMES[i], meterRegistry);
+		}
+		Gauge.builder("orders.open", open, AtomicInteger::get).register(meterRegistry);
+		submitRefused = meterRegistry.counter("orders.submit.refused");
+		reportsIgnored = meterRegistry.counter("orders.reports.ignored");
+	}
+
+	private static Timer latencyTimer(String execType, MeterRegistry meterRegistry) {
+		return Timer.builder("orders.report.latency")//
+				.description("from the TransactTime of an order to one of its ExecutionReports")//
+				.tag("exec_type", execType)//
+				.publishPercentileHistogram()//
+				.register(meterRegistry);
+	}
+
+	/**
+	 * queues order to be sent on the session, without blocking. The order is
+	 * sent whether or not the result is waited for. TransactTime is set to now
+	 * when the order has none.
+	 *
+	 * @return the ExecutionReport with OrdStatus Filled, Canceled, Rejected or
+	 *         Expired, or an error if the order could not be sent or the session
+	 *         was lost before it ended
+	 */
+	public CompletableFuture<ExecutionReport> submit(NewOrderSingle order, SessionID sessionID) {
+		String clOrdID;
+		String securityID;
+		char side;
+		long transactNanos;
+		try {
+			clOrdID = order.getString(ClOrdID.FIELD);
+			securityID = order.isSetField(SecurityID.FIELD) ? order.getString(SecurityID.FIELD) : null;
+			side = order.isSetField(Side.FIELD) ? order.getChar(Side.FIELD) : 0;
+			if (!order.isSetField(TransactTime.FIELD)) {
+				order.set(new TransactTime(LocalDateTime.now(ZoneOffset.UTC)));
+			}
+			transactNanos = toNanoTime(order.getUtcTimeStamp(TransactTime.FIELD));
+		} catch (FieldNotFound e) {
+			return CompletableFuture.failedFuture(new IllegalArgumentException("the order has no ClOrdID", e));
+		}
+		Order cached;
+		CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+		synchronized (byClOrdID) {
+			if (byClOrdID.get(clOrdID) != null) {
+				return CompletableFuture
+						.failedFuture(new IllegalArgumentException("an order with ClOrdID " + clOrdID + " is cached"));
+			}
+			cached = take(clOrdID);
+			if (cached == null) {
+				submitRefused.increment();
+				return CompletableFuture.failedFuture(
+						new IllegalStateException("cannot cache " + clOrdID + ", all " + orders.length + " orders are open"));
+			}
+			cached.sessionID = sessionID;
+			cached.securityID = securityID;
+			cached.side = side;
+			cached.ordStatus = OrdStatus.PENDING_NEW;
+			cached.cumQty = BigDecimal.ZERO;
+			cached.transactNanos = transactNanos;
+			cached.result = result;
+		}
+		open.incrementAndGet();
+		try {
+			sender.execute(() -> send(order, sessionID, cached, result));
+		} catch (RejectedExecutionException e) {
+			submitRefused.increment();
+			fail(cached, result, new IllegalStateException("cannot queue " + clOrdID, e));
+		}
+		return result;
+	}
+
+	private void send(NewOrderSingle order, SessionID sessionID, Order cached,
+			CompletableFuture<ExecutionReport> result) {
+		boolean sent;
+		try {
+			sent = Session.sendToTarget(order, sessionID);
+		} catch (SessionNotFound e) {
+			sent = false;
+		}
+		if (!sent) {
+			fail(cached, result, new IllegalStateException("could not send an order, " + sessionID + " is not logged on"));
+		}
+	}
+
+	/**
+	 * @return whether report belongs to a cached order
+	 */
+	public boolean onExecutionReport(ExecutionReport report, SessionID sessionID) throws FieldNotFound {
+		long receivedNanos = System.nanoTime();
+		if (!report.isSetField(ClOrdID.FIELD)) {
+			reportsIgnored.increment();
+			return false;
+		}
+		String clOrdID = report.getString(ClOrdID.FIELD);
+		char execType = report.getChar(ExecType.FIELD);
+		char ordStatus = report.getChar(OrdStatus.FIELD);
+		BigDecimal cumQty = report.getDecimal(CumQty.FIELD);
+		long transactNanos;
+		Fill fill = null;
+		CompletableFuture<ExecutionReport> result = null;
+		synchronized (byClOrdID) {
+			Order order = byClOrdID.get(clOrdID);
+			if (order == null) {
+				reportsIgnored.increment();
+				return false;
+			}
+			if (!advances(order, execType, ordStatus, cumQty)) {
+				reportsIgnored.increment();
+				log.debug("ignoring ExecType {} OrdStatus {} of {}, late or repeated", execType, ordStatus, clOrdID);
+				return true;
+			}
+			order.ordStatus = ordStatus;
+			order.cumQty = cumQty;
+			if (report.isSetField(OrderID.FIELD)) {
+				order.orderID = report.getString(OrderID.FIELD);
+			}
+			transactNanos = order.transactNanos;
+			if (execType == ExecType.TRADE && !fillSubscribers.isEmpty()) {
+				fill = new Fill(clOrdID, order.orderID, report.getString(ExecID.FIELD), order.securityID, order.side,
+						report.isSetField(LastQty.FIELD) ? report.getDecimal(LastQty.FIELD) : null,
+						report.isSetField(LastPx.FIELD) ? report.getDecimal(LastPx.FIELD) : null, cumQty, ordStatus);
+			}
+			if (isTerminal(ordStatus)) {
+				result = order.result;
+				order.result = null;
+				ended(order.slot);
+				open.decrementAndGet();
+			}
+		}
+		reportLatency[execType < reportLatency.length ? execType : 0].record(receivedNanos - transactNanos,
+				TimeUnit.NANOSECONDS);
+		if (fill != null) {
+			for (Consumer<Fill> subscriber : fillSubscribers) {
+				try {
+					subscriber.accept(fill);
+				} catch (RuntimeException e) {
+					log.warn("fill subscriber failed on {}", fill, e);
+				}
+			}
+		}
+		if (result != null) {
+			result.complete(report);
+		}
+		return true;
+	}
+
+	/**
+	 * to be called when a session is lost. Unless sessions are resumed, the
+	 * reports of its open orders will never come: they may or may not have
+	 * reached the server, so they fail rather than wait forever.
+	 */
+	public void sessionLost(SessionID sessionID) {
+		if (resume) {
+			return;
+		}
+		for (Order order : orders) {
+			CompletableFuture<ExecutionReport> result;
+			String clOrdID;
+			synchronized (byClOrdID) {
+				result = order.result;
+				clOrdID = order.clOrdID;
+				if (result == null || !sessionID.equals(order.sessionID)) {
+					continue;
+				}
+			}
+			log.warn("{} lost with {} open, its state is unknown", sessionID, clOrdID);
+			fail(order, result,
+					new IllegalStateException(sessionID + " lost before " + clOrdID + " ended, its state is unknown"));
+		}
+	}
+
+	/**
+	 * @param subscriber called on the session thread with every fill, must not
+	 *                   block
+	 */
+	public void subscribe(Consumer<Fill> subscriber) {
+		fillSubscribers.add(subscriber);
+	}
+
+	public void unsubscribe(Consumer<Fill> subscriber) {
+		fillSubscribers.remove(subscriber);
+	}
+
+	/**
+	 * @return the OrdStatus of a cached order, PendingNew until its first
+	 *         report, 0 if it is not cached
+	 */
+	public char ordStatus(String clOrdID) {
+		synchronized (byClOrdID) {
+			Order order = byClOrdID.get(clOrdID);
+			return order == null ? 0 : order.ordStatus;
+		}
+	}
+
+	public int open() {
+		return open.get();
+	}
+
+	@Override
+	public void close() {
+		sender.shutdownNow();
+	}
+
+	/**
+	 * @return a free slot for clOrdID, evicting the oldest ended order if none is
+	 *         free, or null if every order is open
+	 */
+	private Order take(String clOrdID) {
+		if (freeCount == 0 && endedCount > 0) {
+			evictOldest();
+		}
+		if (freeCount == 0) {
+			return null;
+		}
+		Order order = orders[free[--freeCount]];
+		order.clOrdID = clOrdID;
+		byClOrdID.put(clOrdID, order);
+		return order;
+	}
+
+	private void ended(int slot) {
+		ended[(endedHead + endedCount) % ended.length] = slot;
+		if (++endedCount > retainedTerminal) {
+			evictOldest();
+		}
+	}
+
+	private void evictOldest() {
+		int slot = ended[endedHead];
+		endedHead = (endedHead + 1) % ended.length;
+		--endedCount;
+		release(orders[slot]);
+	}
+
+	private void release(Order order) {
+		byClOrdID.remove(order.clOrdID);
+		order.clear();
+		free[freeCount++] = order.slot;
+	}
+
+	/**
+	 * ends the order with an error, unless it ended since, its slot is freed
+	 * rather than retained as nothing more is to be reported of it
+	 */
+	private void fail(Order order, CompletableFuture<ExecutionReport> result, Throwable error) {
+		synchronized (byClOrdID) {
+			if (order.result != result) {
+				// ended by a report meanwhile, or the slot was reused since
+				return;
+			}
+			release(order);
+		}
+		open.decrementAndGet();
+		result.completeExceptionally(error);
+	}
+
+	private static boolean advances(Order order, char execType, char ordStatus, BigDecimal cumQty) {
+		if (isTerminal(order.ordStatus)) {
+			return false;
+		}
+		if (execType == ExecType.TRADE) {
+			return cumQty.compareTo(order.cumQty) > 0;
+		}
+		if (ordStatus == OrdStatus.PENDING_NEW) {
+			return order.ordStatus == OrdStatus.PENDING_NEW;
+		}
+		return cumQty.compareTo(order.cumQty) >= 0;
+	}
+
+	private static boolean isTerminal(char ordStatus) {
+		return ordStatus == OrdStatus.FILLED || ordStatus == OrdStatus.CANCELED || ordStatus == OrdStatus.REJECTED
+				|| ordStatus == OrdStatus.EXPIRED;
+	}
+
+	/**
+	 * @return the System.nanoTime() of a UTC time, to measure from it without
+	 *         reading the wall clock again
+	 */
+	private static long toNanoTime(LocalDateTime utc) {
+		long nowNanos = System.nanoTime();
+		return nowNanos - Duration.between(utc.toInstant(ZoneOffset.UTC), Instant.now()).toNanos();
+	}
+}
@@ -0,0 +1,22 @@
+package com.ig.fix.igus.examples;
+
+import lombok.Data;
+
+@Data
+public class OrderManagerProperties {
+	/**
+	 * orders kept at once, open or ended, sizes the order cache. Submit fails
+	 * when all of them are open
+	 */
+	private int capacity = 1024;
+	/**
+	 * ended orders kept for late or repeated ExecutionReports before their slot
+	 * is reused, fewer when open orders need the room
+	 */
+	private int retainedTerminal = 256;
+	/**
+	 * orders submitted but not yet sent, submit fails beyond that rather than
+	 * block
+	 */
+	private int queueCapacity = 1024;
+}
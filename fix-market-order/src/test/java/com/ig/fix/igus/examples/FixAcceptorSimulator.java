@@ -0,0 +1,369 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import quickfix.Acceptor;
+import quickfix.Application;
+import quickfix.ConfigError;
+import quickfix.DefaultMessageFactory;
+import quickfix.DoNotSend;
+import quickfix.FieldNotFound;
+import quickfix.IncorrectDataFormat;
+import quickfix.IncorrectTagValue;
+import quickfix.MemoryStoreFactory;
+import quickfix.Message;
+import quickfix.MessageCracker;
+import quickfix.RejectLogon;
+import quickfix.SLF4JLogFactory;
+import quickfix.Session;
+import quickfix.SessionID;
+import quickfix.SessionNotFound;
+import quickfix.SessionSettings;
+import quickfix.ThreadedSocketAcceptor;
+import quickfix.UnsupportedMessageType;
+import quickfix.field.BidPx;
+import quickfix.field.ClOrdID;
+import quickfix.field.CumQty;
+import quickfix.field.Currency;
+import quickfix.field.ExecID;
+import quickfix.field.ExecType;
+import quickfix.field.LastPx;
+import quickfix.field.LastQty;
+import quickfix.field.LeavesQty;
+import quickfix.field.MsgType;
+import quickfix.field.OfferPx;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrderID;
+import quickfix.field.OrderQty;
+import quickfix.field.Password;
+import quickfix.field.QuoteID;
+import quickfix.field.QuoteReqID;
+import quickfix.field.SecurityGroup;
+import quickfix.field.SecurityID;
+import quickfix.field.SecurityIDSource;
+import quickfix.field.SecurityRequestResult;
+import quickfix.field.SecurityResponseID;
+import quickfix.field.Side;
+import quickfix.field.Symbol;
+import quickfix.field.TransactTime;
+import quickfix.field.Username;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.NewOrderSingle;
+import quickfix.fix50sp2.Quote;
+import quickfix.fix50sp2.QuoteRequest;
+import quickfix.fix50sp2.SecurityList;
+import quickfix.fix50sp2.SecurityListRequest;
+import quickfix.fix50sp2.component.QuotReqGrp;
+
+/**
+ * A QuickFIX/J acceptor on localhost standing in for IG, enough of it to run
+ * the clients end to end without network access:
+ * <ul>
+ * <li>messages are validated with the same modified FIXT11/FIX50SP2
+ * dictionaries as the client</li>
+ * <li>Logon is rejected unless 553/554 carry username and password</li>
+ * <li>SecurityListRequest is answered with a SecurityList of as many
+ * generated instruments as configured, or with SecurityLists of up to
+ * securityListFragment instruments each</li>
+ * <li>every QuoteRequest starts a stream of quoteRate quotes per second for
+ * its instrument</li>
+ * <li>every NewOrderSingle is acknowledged and filled executionLatency
+ * later</li>
+ * </ul>
+ * Set the properties before {@link #start()}, the client connects to
+ * localhost:{@link #getPort()} without TLS.
+ */
+@Slf4j
+public class FixAcceptorSimulator extends MessageCracker implements Application, AutoCloseable {
+	/**
+	 * the SenderCompID of the client
+	 */
+	@Setter
+	private String clientCompId;
+	@Setter
+	private String username;
+	@Setter
+	private String password;
+	/**
+	 * SenderCompIDs of further clients, each logging on with it as username and
+	 * the password above
+	 */
+	@Setter
+	private List<String> moreClientCompIds = new ArrayList<>();
+	@Setter
+	private String transportDataDictionary = "FIXT11.modified.xml";
+	@Setter
+	private String appDataDictionary = "FIX50SP2.modified.xml";
+	/**
+	 * size of the SecurityList
+	 */
+	@Setter
+	private int instruments = 10;
+	/**
+	 * instruments per SecurityList, all of them in one when 0
+	 */
+	@Setter
+	private int securityListFragment;
+	/**
+	 * quotes per second per QuoteRequest, 0 for a single quote
+	 */
+	@Setter
+	private int quoteRate = 10;
+	/**
+	 * from receiving a NewOrderSingle to its ExecutionReports
+	 */
+	@Setter
+	private Duration executionLatency = Duration.ZERO;
+	/**
+	 * keep sequence numbers across logons, for a client resuming its session
+	 * rather than resetting it
+	 */
+	@Setter
+	private boolean resume;
+
+	@Getter
+	private int port;
+	@Getter
+	private final AtomicInteger logons = new AtomicInteger();
+	@Getter
+	private final AtomicInteger quoteRequests = new AtomicInteger();
+	/**
+	 * System.nanoTime() of every QuoteRequest received
+	 */
+	@Getter
+	private final List<Long> quoteRequestNanos = Collections.synchronizedList(new ArrayList<>());
+	@Getter
+	private final AtomicInteger securityListsSent = new AtomicInteger();
+	@Getter
+	private final AtomicLong quotesSent = new AtomicLong();
+	@Getter
+	private final AtomicInteger ordersReceived = new AtomicInteger();
+	@Getter
+	private final AtomicInteger ordersFilled = new AtomicInteger();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "fix-acceptor-simulator");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/**
+	 * quote streams of each session, cancelled on logout
+	 */
+	private final Map<SessionID, List<ScheduledFuture<?>>> quoteStreams = new ConcurrentHashMap<>();
+	private final AtomicLong ids = new AtomicLong();
+	private Acceptor acceptor;
+
+	public FixAcceptorSimulator start() throws ConfigError {
+		port = freePort();
+		SessionSettings settings = new SessionSettings();
+		settings.setString("ConnectionType", "acceptor");
+		settings.setString("BeginString", "FIXT.1.1");
+		settings.setString("DefaultApplVerID", "FIX.5.0SP2");
+		settings.setString("UseDataDictionary", "Y");
+		settings.setString("TransportDataDictionary", transportDataDictionary);
+		settings.setString("AppDataDictionary", appDataDictionary);
+		settings.setString("StartTime", "00:00:00");
+		settings.setString("EndTime", "00:00:00");
+		settings.setBool("ResetOnLogon", !resume);
+		settings.setBool("ResetOnLogout", !resume);
+		settings.setBool("ResetOnDisconnect", !resume);
+		settings.setBool("PersistMessages", resume);
+		settings.setLong("SocketAcceptPort", port);
+		List<String> clientCompIds = new ArrayList<>(moreClientCompIds);
+		clientCompIds.add(0, clientCompId);
+		for (String compId : clientCompIds) {
+			SessionID sessionID = new SessionID("FIXT.1.1", "FIXOTCIGUS1", compId);
+			settings.setString(sessionID, "SenderCompID", "FIXOTCIGUS1");
+			settings.setString(sessionID, "TargetCompID", compId);
+		}
+		acceptor = new ThreadedSocketAcceptor(this, new MemoryStoreFactory(), settings, new SLF4JLogFactory(settings),
+				new DefaultMessageFactory());
+		acceptor.start();
+		return this;
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		acceptor.stop(true);
+	}
+
+	private static int freePort() {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		} catch (IOException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	@Override
+	public void onCreate(SessionID sessionId) {
+	}
+
+	@Override
+	public void onLogon(SessionID sessionId) {
+		logons.incrementAndGet();
+		quoteStreams.put(sessionId, new CopyOnWriteArrayList<>());
+	}
+
+	@Override
+	public void onLogout(SessionID sessionId) {
+		List<ScheduledFuture<?>> streams = quoteStreams.remove(sessionId);
+		if (streams != null) {
+			streams.forEach(stream -> stream.cancel(false));
+		}
+	}
+
+	@Override
+	public void toAdmin(Message message, SessionID sessionId) {
+	}
+
+	@Override
+	public void fromAdmin(Message message, SessionID sessionId)
+			throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, RejectLogon {
+		if (MsgType.LOGON.equals(message.getHeader().getString(MsgType.FIELD))) {
+			String logonUsername = message.isSetField(Username.FIELD) ? message.getString(Username.FIELD) : null;
+			String logonPassword = message.isSetField(Password.FIELD) ? message.getString(Password.FIELD) : null;
+			String expectedUsername = clientCompId.equals(sessionId.getTargetCompID()) ? username
+					: sessionId.getTargetCompID();
+			if (!expectedUsername.equals(logonUsername) || !password.equals(logonPassword)) {
+				log.warn("rejecting logon of {} as {}", sessionId, logonUsername);
+				throw new RejectLogon("invalid username or password");
+			}
+		}
+	}
+
+	@Override
+	public void toApp(Message message, SessionID sessionId) throws DoNotSend {
+	}
+
+	@Override
+	public void fromApp(Message message, SessionID sessionId)
+			throws FieldNotFound, IncorrectDataFormat, IncorrectTagValue, UnsupportedMessageType {
+		crack(message, sessionId);
+	}
+
+	public void onMessage(SecurityListRequest request, SessionID sessionID) throws FieldNotFound {
+		int fragment = securityListFragment > 0 ? securityListFragment : Math.max(instruments, 1);
+		for (int from = 0; from < instruments || from == 0; from += fragment) {
+			if (send(securityList(request, from, Math.min(instruments, from + fragment)), sessionID)) {
+				securityListsSent.incrementAndGet();
+			}
+		}
+	}
+
+	private SecurityList securityList(SecurityListRequest request, int from, int to) throws FieldNotFound {
+		SecurityList securityList = new SecurityList();
+		securityList.set(request.getSecurityReqID());
+		securityList.set(new SecurityResponseID(request.getSecurityReqID().getValue()));
+		securityList.set(new SecurityRequestResult(SecurityRequestResult.VALID_REQUEST));
+		for (int i = from; i < to; ++i) {
+			String name = String.format("S%05d", i);
+			SecurityList.NoRelatedSym group = new SecurityList.NoRelatedSym();
+			group.set(new Symbol(name + "/USD"));
+			group.set(new SecurityID("CS.D." + name + ".CZD.IP"));
+			group.set(new SecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER));
+			group.setString(SecurityGroup.FIELD, i % 3 == 0 ? "CURRENCIES" : i % 3 == 1 ? "INDICES" : "SHARES");
+			group.set(new Currency("USD"));
+			securityList.addGroup(group);
+		}
+		return securityList;
+	}
+
+	public void onMessage(QuoteRequest request, SessionID sessionID) throws FieldNotFound {
+		quoteRequests.incrementAndGet();
+		quoteRequestNanos.add(System.nanoTime());
+		String quoteReqID = request.getQuoteReqID().getValue();
+		QuotReqGrp.NoRelatedSym symbol = new QuotReqGrp.NoRelatedSym();
+		request.getGroup(1, symbol);
+		String securityID = symbol.getSecurityID().getValue();
+		List<ScheduledFuture<?>> streams = quoteStreams.get(sessionID);
+		if (quoteRate <= 0 || streams == null) {
+			scheduler.execute(() -> sendQuote(quoteReqID, securityID, sessionID));
+			return;
+		}
+		long periodNanos = TimeUnit.SECONDS.toNanos(1) / quoteRate;
+		// spread the streams over the period rather than tick them all at once
+		long initialDelayNanos = ThreadLocalRandom.current().nextLong(periodNanos);
+		streams.add(scheduler.scheduleAtFixedRate(() -> sendQuote(quoteReqID, securityID, sessionID),
+				initialDelayNanos, periodNanos, TimeUnit.NANOSECONDS));
+	}
+
+	private void sendQuote(String quoteReqID, String securityID, SessionID sessionID) {
+		long mid = 100_000 + ThreadLocalRandom.current().nextInt(100_000);
+		long id = ids.incrementAndGet();
+		Quote quote = new Quote(new QuoteID(securityID + "-" + id));
+		quote.set(new QuoteReqID(quoteReqID));
+		quote.set(new SecurityID(securityID));
+		quote.set(new SecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER));
+		quote.set(new BidPx(BigDecimal.valueOf(mid - 5, 5)));
+		quote.set(new OfferPx(BigDecimal.valueOf(mid + 5, 5)));
+		if (send(quote, sessionID)) {
+			quotesSent.incrementAndGet();
+		}
+	}
+
+	public void onMessage(NewOrderSingle order, SessionID sessionID) throws FieldNotFound {
+		ordersReceived.incrementAndGet();
+		String clOrdID = order.getClOrdID().getValue();
+		String securityID = order.getSecurityID().getValue();
+		char side = order.getSide().getValue();
+		BigDecimal orderQty = order.getOrderQty().getValue();
+		Runnable execute = () -> {
+			String orderID = "SIM-" + clOrdID;
+			send(executionReport(orderID, clOrdID, securityID, side, orderQty, ExecType.NEW, OrdStatus.NEW), sessionID);
+			ExecutionReport fill = executionReport(orderID, clOrdID, securityID, side, orderQty, ExecType.TRADE,
+					OrdStatus.FILLED);
+			fill.set(new LastPx(new BigDecimal("1.39012")));
+			fill.set(new LastQty(orderQty));
+			if (send(fill, sessionID)) {
+				ordersFilled.incrementAndGet();
+			}
+		};
+		scheduler.schedule(execute, executionLatency.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	private ExecutionReport executionReport(String orderID, String clOrdID, String securityID, char side,
+			BigDecimal orderQty, char execType, char ordStatus) {
+		boolean filled = ordStatus == OrdStatus.FILLED;
+		ExecutionReport report = new ExecutionReport(new OrderID(orderID), new ExecID("SIM-" + ids.incrementAndGet()),
+				new ExecType(execType), new OrdStatus(ordStatus), new Side(side),
+				new LeavesQty(filled ? BigDecimal.ZERO : orderQty), new CumQty(filled ? orderQty : BigDecimal.ZERO));
+		report.set(new ClOrdID(clOrdID));
+		report.set(new SecurityID(securityID));
+		report.set(new SecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER));
+		report.set(new OrderQty(orderQty));
+		report.set(new TransactTime(LocalDateTime.now(ZoneOffset.UTC)));
+		return report;
+	}
+
+	private boolean send(Message message, SessionID sessionID) {
+		try {
+			return Session.sendToTarget(message, sessionID);
+		} catch (SessionNotFound e) {
+			log.warn("not sending to {}", sessionID, e);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import quickfix.Initiator;
+import quickfix.SessionID;
+import quickfix.field.Account;
+import quickfix.field.ClOrdID;
+import quickfix.field.Currency;
+import quickfix.field.OrdStatus;
+import quickfix.field.OrdType;
+import quickfix.field.OrderQty;
+import quickfix.field.SecurityID;
+import quickfix.field.SecurityIDSource;
+import quickfix.field.Side;
+import quickfix.field.TimeInForce;
+import quickfix.fix50sp2.ExecutionReport;
+import quickfix.fix50sp2.NewOrderSingle;
+
+/**
+ * logs in to a local {@link FixAcceptorSimulator} which fills the order sent
+ * on logon, then submits more orders than the order cache holds.
+ */
+@SpringBootTest(properties = { //
+		"quickfixj.client.config=classpath:quickfixj-client.test.cfg", //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"IG_ACCOUNT=bogous", //
+		"HOST=localhost", //
+		"app.orders.capacity=16", //
+		"app.orders.retained-terminal=4" })
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class FixAcceptorSimulatorOrderTest {
+	private static final int ORDERS = 100;
+	private static final int AT_ONCE = 10;
+	private static FixAcceptorSimulator simulator;
+
+	@Autowired
+	private OrderManager orderManager;
+	@Autowired
+	private Initiator clientInitiator;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startSimulator(DynamicPropertyRegistry registry) {
+		simulator = new FixAcceptorSimulator();
+		simulator.setClientCompId("bogous");
+		simulator.setUsername("bogous");
+		simulator.setPassword("bogous");
+		simulator.setExecutionLatency(Duration.ofMillis(5));
+		simulator.start();
+		registry.add("PORT", () -> simulator.getPort());
+	}
+
+	@AfterAll
+	static void stopSimulator() {
+		simulator.close();
+	}
+
+	@Test
+	@Order(1)
+	void fillsTheOrderSentOnLogon() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(10), () -> simulator.getOrdersFilled().get() == 1),
+				"filled " + simulator.getOrdersFilled().get() + " orders");
+		assertEquals(1, simulator.getLogons().get());
+		assertEquals(1, simulator.getOrdersReceived().get());
+	}
+
+	@Test
+	@Order(2)
+	void tracksSubmittedOrdersUntilFilled() throws Exception {
+		assertTrue(await(Duration.ofSeconds(10), () -> orderManager.open() == 0), "order sent on logon still open");
+		SessionID sessionID = clientInitiator.getSessions().get(0);
+		List<OrderManager.Fill> fills = new CopyOnWriteArrayList<>();
+		orderManager.subscribe(fills::add);
+
+		// a few at a time so that ended orders are evicted to make room
+		for (int i = 0; i < ORDERS; i += AT_ONCE) {
+			List<CompletableFuture<ExecutionReport>> results = new ArrayList<>();
+			for (int j = i; j < i + AT_ONCE; ++j) {
+				results.add(orderManager.submit(order("order-" + j), sessionID));
+			}
+			for (CompletableFuture<ExecutionReport> result : results) {
+				assertEquals(OrdStatus.FILLED, result.get(10, TimeUnit.SECONDS).getOrdStatus().getValue());
+			}
+		}
+		assertEquals(ORDERS, fills.size());
+		assertEquals(0, orderManager.open());
+		assertEquals(OrdStatus.FILLED, orderManager.ordStatus("order-" + (ORDERS - 1)));
+		assertEquals(0, orderManager.ordStatus("order-0"), "evicted");
+		assertEquals(ORDERS + 1,
+				meterRegistry.get("orders.report.latency").tag("exec_type", "trade").timer().count());
+		assertEquals(ORDERS + 1, meterRegistry.get("orders.report.latency").tag("exec_type", "new").timer().count());
+	}
+
+	private static NewOrderSingle order(String clOrdID) {
+		NewOrderSingle order = new NewOrderSingle();
+		order.set(new ClOrdID(clOrdID));
+		order.set(new Side(Side.BUY));
+		order.set(new SecurityID("CS.D.GBPUSD.CZD.IP"));
+		order.set(new SecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER));
+		order.set(new OrderQty(BigDecimal.ONE));
+		order.set(new OrdType(OrdType.MARKET));
+		order.set(new TimeInForce(TimeInForce.FILL_OR_KILL));
+		order.set(new Currency("USD"));
+		order.set(new Account("bogous"));
+		return order;
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,102 @@
+package com.ig.fix.igus.examples;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * mutable, reusable ascii character sequence. Used on the quote hot path
+ * instead of String so that ids can be copied out of a frame without
+ * allocating. hashCode and equals are content based, so a reused instance can
+ * be used to look up a map keyed by (immutable) AsciiSequence copies.
+ */
+public final class AsciiSequence implements CharSequence {
+	private byte[] bytes;
+	private int length;
+
+	public AsciiSequence(int capacity) {
+		bytes = new byte[capacity];
+	}
+
+	public AsciiSequence(CharSequence value) {
+		this(value.length());
+		set(value);
+	}
+
+	public AsciiSequence clear() {
+		length = 0;
+		return this;
+	}
+
+	public AsciiSequence append(byte b) {
+		if (length == bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(16, bytes.length * 2));
+		}
+		bytes[length++] = b;
+		return this;
+	}
+
+	public AsciiSequence set(CharSequence value) {
+		clear();
+		for (int i = 0; i < value.length(); ++i) {
+			append((byte) value.charAt(i));
+		}
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	public byte byteAt(int index) {
+		return bytes[index];
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index >= length) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return (char) (bytes[index] & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return toString().subSequence(start, end);
+	}
+
+	public boolean contentEquals(CharSequence other) {
+		if (other.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; ++i) {
+			if ((bytes[i] & 0xff) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 0;
+		for (int i = 0; i < length; ++i) {
+			h = 31 * h + (bytes[i] & 0xff);
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof AsciiSequence && contentEquals((AsciiSequence) obj);
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+	}
+}
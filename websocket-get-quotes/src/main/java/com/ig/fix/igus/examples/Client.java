@@ -1,48 +1,61 @@
 package com.ig.fix.igus.examples;
 
+import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.WebSocketMessage;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ig.orchestrations.fixp.Establish;
+import com.ig.orchestrations.fixp.EstablishmentAck;
 import com.ig.orchestrations.fixp.FlowType;
 import com.ig.orchestrations.fixp.IgExtensionCredentials;
 import com.ig.orchestrations.fixp.Negotiate;
 import com.ig.orchestrations.fixp.NegotiationResponse;
 import com.ig.orchestrations.fixp.UnsequencedHeartbeat;
 import com.ig.orchestrations.us.rfed.fields.ApplVerID;
+import com.ig.orchestrations.us.rfed.fields.InstrAttribType;
 import com.ig.orchestrations.us.rfed.fields.MsgType;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
 import com.ig.orchestrations.us.rfed.fields.SecurityListRequestType;
 import com.ig.orchestrations.us.rfed.fields.SubscriptionRequestType;
+import com.ig.orchestrations.us.rfed.groups.AttrbGrp;
 import com.ig.orchestrations.us.rfed.groups.QuotReqGrp;
 import com.ig.orchestrations.us.rfed.groups.SecListGrp;
 import com.ig.orchestrations.us.rfed.messages.Quote;
 import com.ig.orchestrations.us.rfed.messages.QuoteRequest;
+import com.ig.orchestrations.us.rfed.messages.QuoteRequestReject;
 import com.ig.orchestrations.us.rfed.messages.SecurityList;
 import com.ig.orchestrations.us.rfed.messages.SecurityListRequest;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 @Component
 @ConfigurationProperties(prefix = "client")
@@ -58,56 +71,298 @@ public class Client {
 	@Setter
 	private String password;
 	@Setter
-	private Duration reconnectInterval;
+	private ReconnectProperties reconnect = new ReconnectProperties();
 	@Setter
 	private Duration heartbeatInterval;
+	/**
+	 * keepalive intervals without receiving anything before the connection is
+	 * considered dead
+	 */
+	@Setter
+	private int missedKeepalives = 3;
+	/**
+	 * log one in this many payloads, 0 for none
+	 */
+	@Setter
+	private int payloadSampleEvery;
+	@Setter
+	private SubscriptionProperties subscription = new SubscriptionProperties();
+	@Setter
+	private PartitionProperties partition = new PartitionProperties();
 
 	@Autowired
 	private ObjectMapper objectMapper;
+	@Autowired
+	private MessageDecoder messageDecoder;
+	@Autowired
+	private FastQuoteProperties fastQuote;
+	@Autowired
+	private InstrumentRegistry instrumentRegistry;
+	@Autowired
+	private QuoteBook quoteBook;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	/**
+	 * only with client.quote-conflation.enabled
+	 */
+	@Autowired(required = false)
+	private QuoteConflator quoteConflator;
+	/**
+	 * only with client.tick-journal.enabled
+	 */
+	@Autowired(required = false)
+	private TickJournal tickJournal;
+	/**
+	 * only with client.frame-capture.enabled
+	 */
+	@Autowired(required = false)
+	private FrameCapture frameCapture;
+	/**
+	 * only with client.instrument-catalog.enabled
+	 */
+	@Autowired(required = false)
+	private InstrumentCatalog instrumentCatalog;
+
+	/**
+	 * one per session, indexed as the partitions
+	 */
+	private final List<ReconnectEngine> reconnectEngines = new ArrayList<>();
+	private final List<Disposable> connectionDisposables = new ArrayList<>();
 
-	private Disposable connectionDisposable;
+	private String heartbeatFrame;
+	private Counter heartbeatsSent;
+	private Counter heartbeatsSuppressed;
+	private Timer livenessDetectionLatency;
+	private PipelineMetrics pipelineMetrics;
+
+	private SubscriptionScheduler subscriptionScheduler;
+	private SessionPartitioner partitioner;
+	/**
+	 * what each instrument is subscribed to on, and how far, so that a session
+	 * established again requests what it lost and nothing else
+	 */
+	private SubscriptionTracker subscriptionTracker;
+	/**
+	 * per thread, each session receives on an event loop of its own
+	 */
+	private ThreadLocal<FastQuoteDecoder> fastQuoteDecoders;
+	private final ThreadLocal<FastQuote> quoteRecords = ThreadLocal.withInitial(FastQuote::new);
 
 	@PostConstruct
 	public void startConnection() throws MalformedURLException, URISyntaxException {
-		connectionDisposable = reconnectOnError(makeWebsocketHandler());
+		heartbeatFrame = objectToJson(new UnsequencedHeartbeat("UnsequencedHeartbeat"));
+		heartbeatsSent = meterRegistry.counter("websocket.heartbeats.sent");
+		heartbeatsSuppressed = meterRegistry.counter("websocket.heartbeats.suppressed");
+		livenessDetectionLatency = Timer.builder("websocket.liveness.detection.latency")//
+				.description("silence from the last received message to the connection being dropped")//
+				.register(meterRegistry);
+		subscriptionScheduler = new SubscriptionScheduler(subscription, meterRegistry);
+		if (fastQuote.isEnabled()) {
+			fastQuoteDecoders = ThreadLocal.withInitial(() -> new FastQuoteDecoder(instrumentRegistry));
+		}
+		partitioner = partition.toPartitioner();
+		pipelineMetrics = new PipelineMetrics(meterRegistry, partitioner.sessions());
+		subscriptionTracker = new SubscriptionTracker(instrumentRegistry, partitioner.sessions(), meterRegistry);
+		for (int i = 0; i < partitioner.sessions(); ++i) {
+			int session = i;
+			ReconnectEngine reconnectEngine = new ReconnectEngine(sessionName(i), url, reconnect, meterRegistry,
+					channel -> pipelineMetrics.attach(session, channel));
+			reconnectEngines.add(reconnectEngine);
+			connectionDisposables.add(reconnectEngine.run(makeWebsocketHandler(i)));
+		}
+	}
+
+	private String sessionName(int partition) {
+		return partitioner.sessions() == 1 ? "websocket" : "websocket-" + partition;
 	}
 
 	@PreDestroy
 	public void stopConnection() throws MalformedURLException, URISyntaxException {
-		connectionDisposable.dispose();
-	}
-
-	private Disposable reconnectOnError(WebSocketHandler websocketHandler)
-			throws MalformedURLException, URISyntaxException {
-		return Flux.interval(reconnectInterval).startWith(-1L).onBackpressureLatest()//
-				.log("outer-loop")//
-				.<Void>flatMap(ignoredValue -> new ReactorNettyWebSocketClient()//
-						.execute(url, websocketHandler)//
-						.onErrorResume(t -> {
-							log.warn("ignoring (will reconnect)", t);
-							return Mono.empty();
-						}), 1)//
-				.subscribe();
-	}
-
-	private WebSocketHandler makeWebsocketHandler() {
-		return session -> session.send(session.receive()//
-				.map(msg -> msg.getPayloadAsText())//
-				.log("ws-in")// TODO: this will not close a connection if the server
-								// stops heartbeating
-				.map(msg -> toJsonNode(msg))//
-				.flatMap(jsonNode -> handleMessage(jsonNode))//
-				.switchMap(str -> followWithHeartbeat(str))//
-				.startWith(initiateLogin())//
-				.log("ws-out")//
-				.map(str -> session.textMessage(str)));
-	}
-
-	private Flux<String> followWithHeartbeat(String msg) {
-		return Flux.interval(heartbeatInterval)//
-				.map(ignore -> new UnsequencedHeartbeat("UnsequencedHeartbeat"))//
-				.map(o -> objectToJson(o))//
-				.startWith(msg);
+		connectionDisposables.forEach(Disposable::dispose);
+		reconnectEngines.forEach(ReconnectEngine::dispose);
+	}
+
+	/**
+	 * @param partition index of the session, it subscribes to the instruments of
+	 *                  that partition only
+	 */
+	private WebSocketHandler makeWebsocketHandler(int partition) {
+		return session -> {
+			HeartbeatEngine<Object> heartbeatEngine = newHeartbeatEngine();
+			LivenessWatchdog livenessWatchdog = newLivenessWatchdog();
+			PayloadSampler payloadSampler = new PayloadSampler(payloadSampleEvery);
+			OutboundEncoder outboundEncoder = newOutboundEncoder();
+			SubscriptionScheduler.SessionQueue<SecListGrp> subscriptions = subscriptionScheduler.newQueue();
+			return session.send(heartbeatEngine.withHeartbeats(livenessWatchdog.watch(session.receive())//
+					.doOnNext(msg -> {
+						payloadSampler.inbound(msg.getPayload());
+						if (frameCapture != null) {
+							frameCapture.inbound(partition, msg.getPayload());
+						}
+					})//
+					.filter(msg -> !handledAsFastQuote(msg.getPayload()))//
+					.map(msg -> decode(msg.getPayload(), partition))//
+					.doOnNext(decoded -> pipelineMetrics.decoded(decoded))//
+					.doOnNext(decoded -> adoptKeepaliveInterval(decoded, livenessWatchdog))//
+					.flatMap(decoded -> pipelineMetrics.handled(decoded.getReceivedNanos(),
+							handleMessage(decoded, partition, subscriptions)))//
+					// every SecurityList fragment and the resubscription share the pace of the session
+					.publish(in -> Flux.merge(in, subscriptions.paced()//
+							.map(grp -> (Object) toQuoteRequest(grp))//
+							.takeUntilOther(in.ignoreElements()))))//
+					.startWith(initiateLogin())//
+					.map(msg -> new WebSocketMessage(WebSocketMessage.Type.TEXT,
+							outboundEncoder.encode(msg, session.bufferFactory())))//
+					.doOnNext(msg -> {
+						pipelineMetrics.sent();
+						payloadSampler.outbound(msg.getPayload());
+						if (frameCapture != null) {
+							frameCapture.outbound(partition, msg.getPayload());
+						}
+					}))//
+					.doFinally(signal -> subscriptionTracker.disconnected(partition));
+		};
+	}
+
+	/**
+	 * one per session, the heartbeat frame and counters are shared
+	 */
+	private HeartbeatEngine<Object> newHeartbeatEngine() {
+		return new HeartbeatEngine<>(heartbeatFrame, heartbeatInterval, heartbeatsSent, heartbeatsSuppressed);
+	}
+
+	/**
+	 * one per session, QuoteRequests built by toQuoteRequest are written from a
+	 * template
+	 */
+	private OutboundEncoder newOutboundEncoder() {
+		return new OutboundEncoder(objectMapper, grp -> toQuoteRequest(grp));
+	}
+
+	/**
+	 * one per session, until the EstablishmentAck arrives the server is expected
+	 * to keep alive at the interval advertised in Establish
+	 */
+	private LivenessWatchdog newLivenessWatchdog() {
+		return new LivenessWatchdog(heartbeatInterval.multipliedBy(2), missedKeepalives, livenessDetectionLatency);
+	}
+
+	private void adoptKeepaliveInterval(DecodedMessage decoded, LivenessWatchdog livenessWatchdog) {
+		if ("EstablishmentAck".equals(decoded.getMessageType())) {
+			EstablishmentAck establishmentAck = (EstablishmentAck) decoded.getBody();
+			log.info("server keepalive interval is {}ms", establishmentAck.getKeepaliveInterval());
+			livenessWatchdog.setKeepaliveInterval(Duration.ofMillis(establishmentAck.getKeepaliveInterval()));
+		}
+	}
+
+	/**
+	 * in fast quote mode quotes are decoded into a reused record and handled
+	 * here without allocating, they never reach handleMessage
+	 */
+	private boolean handledAsFastQuote(DataBuffer payload) {
+		long receivedNanos = System.nanoTime();
+		if (fastQuoteDecoders == null) {
+			return false;
+		}
+		FastQuote quoteRecord = quoteRecords.get();
+		if (!fastQuoteDecoders.get().decode(payload, quoteRecord)) {
+			return false;
+		}
+		pipelineMetrics.decoded("Quote", receivedNanos);
+		if (quoteRecord.getInstrumentId() < 0) {
+			// dropped, counted by the registry
+			return true;
+		}
+		handleQuote(quoteRecord, receivedNanos, tickJournal);
+		pipelineMetrics.handled(receivedNanos);
+		return true;
+	}
+
+	private void handleQuote(FastQuote quote, long receivedNanos, TickJournal journal) {
+		int slot = quoteBook.update(quote);
+		if (slot < 0) {
+			return;
+		}
+		if (journal != null) {
+			journal.append(receivedNanos, slot, quote);
+		}
+		quoteUpdated(slot);
+		if (log.isDebugEnabled()) {
+			log.debug("got quote {}", quote);
+		}
+	}
+
+	/**
+	 * feeds a {@link TickJournal} back through the quote handler, as if the quotes
+	 * were received again. Nothing is journalled while replaying.
+	 *
+	 * @param originalSpeed spaced as they were received, otherwise as fast as
+	 *                      possible
+	 * @return the number of quotes replayed
+	 */
+	public long replay(Path directory, boolean originalSpeed) {
+		return TickJournal.replay(directory, originalSpeed,
+				(receivedNanos, securityIndex, quote) -> handleQuote(quote, receivedNanos, null));
+	}
+
+	/**
+	 * drives the message handling with the inbound frames of a
+	 * {@link FrameCapture}, as fast as possible and without a network, so decode
+	 * and handle times can be measured on captured traffic. The decode and handle
+	 * meters record the replayed frames. Replies are dropped, they are in the
+	 * capture as outbound frames, and nothing is subscribed to. Session level
+	 * messages are only decoded as handling them would act on the live
+	 * connection, application messages are handled as if received on the session
+	 * they were captured on, so the client is to be partitioned as it was then.
+	 * Not to be called while the client is connected, the quote book takes one
+	 * writer per instrument.
+	 *
+	 * @return the number of frames replayed
+	 */
+	public long replayFrames(Path file) {
+		DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		return FrameCapture.replay(file, FrameCapture.INBOUND, (session, capturedNanos, payload) -> {
+			if (session >= partitioner.sessions()) {
+				throw new IllegalStateException(file + " was captured on session " + session + ", the client has "
+						+ partitioner.sessions());
+			}
+			DataBuffer frame = bufferFactory.wrap(payload);
+			if (handledAsFastQuote(frame)) {
+				return;
+			}
+			DecodedMessage decoded = decode(frame, session);
+			pipelineMetrics.decoded(decoded);
+			if (decoded.getMessageType().isEmpty()) {
+				pipelineMetrics.handled(decoded.getReceivedNanos(), handleMessage(decoded, session, null));
+			}
+		});
+	}
+
+	private DecodedMessage decode(DataBuffer payload, int partition) {
+		if (!subscription.isStreamSecurityList()) {
+			return messageDecoder.decode(payload);
+		}
+		return messageDecoder.decode(payload, grp -> admit(grp, partition));
+	}
+
+	/**
+	 * @return what toQuoteRequest, the registry and the catalog need of an
+	 *         instrument the session subscribes to, null for the others
+	 */
+	private SecListGrp admit(SecListGrp grp, int partition) {
+		if (partitioner.sessionOf(grp.getSecurityID(), grp.getSecurityGroup()) != partition
+				|| !subscriptionScheduler.accepts(grp.getSecurityID(), grp.getSecurityGroup())) {
+			return null;
+		}
+		SecListGrp admitted = new SecListGrp();
+		admitted.setSecurityID(grp.getSecurityID());
+		admitted.setSecurityIDSource(grp.getSecurityIDSource());
+		admitted.setSecurityGroup(grp.getSecurityGroup());
+		admitted.setSymbol(grp.getSymbol());
+		admitted.setContractMultiplier(grp.getContractMultiplier());
+		admitted.setCurrency(grp.getCurrency());
+		admitted.setAttrbGrp(grp.getAttrbGrp());
+		return admitted;
 	}
 
 	private String initiateLogin() {
@@ -118,16 +373,18 @@ public class Client {
 		return objectToJson(msg);
 	}
 
-	private Flux<String> handleMessage(JsonNode jsonNode) {
+	/**
+	 * @param subscriptions of the connection, null when replaying
+	 */
+	private Flux<Object> handleMessage(DecodedMessage decoded, int partition,
+			SubscriptionScheduler.SessionQueue<SecListGrp> subscriptions) {
 		try {
-			String adminMsgType = Optional.ofNullable(jsonNode.get("MessageType")).map(i -> i.asText()).orElse("");
-			switch (adminMsgType) {
+			switch (decoded.getMessageType()) {
 			case "NegotiationReject":
 				// nop as the other side will close
 				return Flux.empty();
 			case "NegotiationResponse":
-				log.info("NegotiationResponse {}", jsonNode);
-				NegotiationResponse negotiationResponse = jsonNodeTo(jsonNode, NegotiationResponse.class);
+				NegotiationResponse negotiationResponse = (NegotiationResponse) decoded.getBody();
 				log.info("NegotiationResponse {}", negotiationResponse);
 				Establish establish = new Establish(negotiationResponse.getSessionId(), //
 						System.currentTimeMillis() * 1_000_000, // milli to nano
@@ -137,22 +394,25 @@ public class Client {
 						"Establish");
 				return Flux.just(objectToJson(establish));
 			case "EstablishmentAck":
+				reconnectEngines.get(partition).established();
 				log.debug("logged in will request secList");
 
+				// the SecurityList only adds what neither the session nor the catalog knew
+				resubscribe(partition, subscriptions);
 				return Flux.just(objectToJson(newSecurityListRequest()));
 			case "":
 				log.debug("probably AppMessge");
-				String applicationMessageType = Optional.ofNullable(jsonNode.get("MsgType")).map(i -> i.asText()).orElse("");
+				String applicationMessageType = decoded.getMsgType();
 				if (!applicationMessageType.isBlank()) {
-					return handleApplicationMessage(applicationMessageType, jsonNode)//
-							.map(o->objectToJson(o));
+					return handleApplicationMessage(applicationMessageType, decoded.getBody(),
+							decoded.getReceivedNanos(), partition, subscriptions);
 				}
 				return Flux.empty();
 			default:
 				return Flux.empty();
 			}
 		} catch (RuntimeException e) {
-			log.error("while handling {}", jsonNode, e);
+			log.error("while handling {}", decoded, e);
 			throw e; //if this is thrown the connection will close
 		}
 	}
@@ -169,21 +429,55 @@ public class Client {
 		return req;
 	}
 
-	private Flux<Object> handleApplicationMessage(String applicationMessageType, JsonNode jsonNode) {
+	private Flux<Object> handleApplicationMessage(String applicationMessageType, Object body, long receivedNanos,
+			int partition, SubscriptionScheduler.SessionQueue<SecListGrp> subscriptions) {
 		log.debug("handleApplicationMessage {}", applicationMessageType);
 		switch (applicationMessageType) {
 		case "SecurityList":
-			SecurityList secList = jsonNodeTo(jsonNode, SecurityList.class);
-			return Flux.fromStream(secList.getSecListGrp().stream()//
-					.map(grp -> toQuoteRequest(grp)));
+			SecurityList secList = (SecurityList) body;
+			List<SecListGrp> partitioned = partitioner.partition(partition, secList.getSecListGrp(), //
+					grp -> grp.getSecurityID(), //
+					grp -> grp.getSecurityGroup());
+			List<SecListGrp> planned = subscriptionScheduler.plan(partitioned, //
+					grp -> grp.getSecurityID(), //
+					grp -> grp.getSecurityGroup());
+			if (instrumentCatalog != null) {
+				instrumentCatalog.listed(sessionName(partition), planned.stream()//
+						.map(Client::toInstrument)//
+						.collect(Collectors.toList()));
+			}
+			if (subscriptions == null) {
+				return Flux.empty();
+			}
+			subscriptions.add(planned.stream()//
+					.filter(grp -> subscriptionTracker.claim(partition, register(grp)))//
+					.collect(Collectors.toList()));
+			return Flux.empty();
+		case "QuoteRequestReject":
+			QuoteRequestReject reject = (QuoteRequestReject) body;
+			log.warn("quote request was rejected {} {}", reject.getQuoteReqID(), reject.getText());
+			subscriptionTracker.rejected(instrumentRegistry.find(reject.getQuoteReqID()));
+			return Flux.empty();
 		case "Quote":
-			Quote quote = jsonNodeTo(jsonNode, Quote.class);
-			log.info("got quote for securityId={} bidId={} bidPrice={} offerId={} offerPrice={}",
-					quote.getQuoteReqID(),//If you do not use the securityId as the request ID you should do some mapping here
-					quote.getBidID(),//
-					quote.getBidPx(),//
-					quote.getOfferID(),//
-					quote.getOfferPx());
+			Quote quote = (Quote) body;
+			if (log.isDebugEnabled()) {
+				log.debug("got quote for securityId={} bidId={} bidPrice={} offerId={} offerPrice={}",
+						quote.getQuoteReqID(),//If you do not use the securityId as the request ID you should do some mapping here
+						quote.getBidID(),//
+						quote.getBidPx(),//
+						quote.getOfferID(),//
+						quote.getOfferPx());
+			}
+			FastQuote record = toQuoteRecord(quote);
+			if (record == null) {
+				// dropped, counted by the registry
+				return Flux.empty();
+			}
+			int slot = quoteBook.update(record);
+			if (tickJournal != null) {
+				tickJournal.append(receivedNanos, slot, record);
+			}
+			quoteUpdated(slot);
 			return Flux.empty();
 		default:
 			log.warn("received unsupported msgType={}",applicationMessageType);
@@ -191,6 +485,144 @@ public class Client {
 		}
 	}
 
+	/**
+	 * requests, without waiting for the SecurityList, the instruments the session
+	 * lost when it was last dropped, those that were quoted first, and those the
+	 * catalog knows for the session and no session has claimed yet
+	 */
+	private void resubscribe(int partition, SubscriptionScheduler.SessionQueue<SecListGrp> subscriptions) {
+		List<SecListGrp> known = new ArrayList<>();
+		for (int id : subscriptionTracker.reconnected(partition)) {
+			known.add(toSecListGrp(id));
+		}
+		if (instrumentCatalog != null) {
+			Predicate<InstrumentCatalog.Instrument> ofSession = instrument -> partitioner
+					.sessionOf(instrument.getSecurityId(), instrument.getSecurityGroup()) == partition
+					&& subscriptionScheduler.accepts(instrument.getSecurityId(), instrument.getSecurityGroup());
+			for (InstrumentCatalog.Instrument instrument : instrumentCatalog.begin(sessionName(partition), ofSession)) {
+				SecListGrp grp = toSecListGrp(instrument);
+				if (subscriptionTracker.claim(partition, register(grp))) {
+					known.add(grp);
+				}
+			}
+		}
+		if (known.isEmpty()) {
+			return;
+		}
+		subscriptions.add(subscriptionScheduler.plan(known, //
+				grp -> grp.getSecurityID(), //
+				grp -> grp.getSecurityGroup()));
+	}
+
+	/**
+	 * in conflation mode the downstream consumer picks the quote up from the
+	 * book at its own pace
+	 */
+	private void quoteUpdated(int slot) {
+		subscriptionTracker.quoted(slot);
+		if (quoteConflator != null) {
+			quoteConflator.updated(slot);
+		}
+	}
+
+	/**
+	 * @return null when the registry refused the instrument
+	 */
+	private FastQuote toQuoteRecord(Quote quote) {
+		FastQuote quoteRecord = quoteRecords.get();
+		quoteRecord.clear();
+		quoteRecord.getQuoteReqId().set(quote.getQuoteReqID());
+		if (quote.getBidID() != null) {
+			quoteRecord.getBidId().set(quote.getBidID());
+		}
+		if (quote.getOfferID() != null) {
+			quoteRecord.getOfferId().set(quote.getOfferID());
+		}
+		int instrumentId = instrumentRegistry.intern(quoteRecord.getQuoteReqId());
+		if (instrumentId < 0) {
+			return null;
+		}
+		int scale = instrumentRegistry.scaleOf(instrumentId);
+		quoteRecord.setInstrumentId(instrumentId);
+		quoteRecord.setScale(scale);
+		if (quote.getBidPx() != null) {
+			quoteRecord.setBidPx(ScaledDecimal.parseOrNone(quote.getBidPx().toString(), scale));
+		}
+		if (quote.getOfferPx() != null) {
+			quoteRecord.setOfferPx(ScaledDecimal.parseOrNone(quote.getOfferPx().toString(), scale));
+		}
+		return quoteRecord;
+	}
+
+	/**
+	 * gives the instrument its id ahead of its first quote, along with what the
+	 * SecurityList tells of it
+	 *
+	 * @return the id of the instrument
+	 */
+	private int register(SecListGrp grp) {
+		Number contractMultiplier = grp.getContractMultiplier();
+		return instrumentRegistry.register(grp.getSecurityID(),
+				grp.getSecurityIDSource() == null ? null : grp.getSecurityIDSource().name(), grp.getSymbol(),
+				grp.getSecurityGroup(),
+				contractMultiplier == null ? Double.NaN : contractMultiplier.doubleValue(), grp.getCurrency(),
+				dealableCurrencies(grp));
+	}
+
+	private static String dealableCurrencies(SecListGrp grp) {
+		if (grp.getAttrbGrp() != null) {
+			for (AttrbGrp attrbGrp : grp.getAttrbGrp()) {
+				if (attrbGrp.getInstrAttribType() == InstrAttribType.DEALABLE_CURRENCIES) {
+					return attrbGrp.getInstrAttribValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	private static InstrumentCatalog.Instrument toInstrument(SecListGrp grp) {
+		Number contractMultiplier = grp.getContractMultiplier();
+		return new InstrumentCatalog.Instrument(grp.getSecurityID(),
+				grp.getSecurityIDSource() == null ? null : grp.getSecurityIDSource().name(), grp.getSecurityGroup(),
+				grp.getSymbol(), contractMultiplier == null ? Double.NaN : contractMultiplier.doubleValue(),
+				grp.getCurrency(), dealableCurrencies(grp));
+	}
+
+	private static SecListGrp toSecListGrp(InstrumentCatalog.Instrument instrument) {
+		SecListGrp grp = new SecListGrp();
+		grp.setSecurityID(instrument.getSecurityId());
+		if (instrument.getSecurityIdSource() != null) {
+			grp.setSecurityIDSource(SecurityIDSource.valueOf(instrument.getSecurityIdSource()));
+		}
+		grp.setSecurityGroup(instrument.getSecurityGroup());
+		grp.setSymbol(instrument.getSymbol());
+		if (!Double.isNaN(instrument.getContractMultiplier())) {
+			grp.setContractMultiplier(BigDecimal.valueOf(instrument.getContractMultiplier()));
+		}
+		grp.setCurrency(instrument.getCurrency());
+		if (instrument.getDealableCurrencies() != null) {
+			AttrbGrp attrbGrp = new AttrbGrp();
+			attrbGrp.setInstrAttribType(InstrAttribType.DEALABLE_CURRENCIES);
+			attrbGrp.setInstrAttribValue(instrument.getDealableCurrencies());
+			grp.setAttrbGrp(List.of(attrbGrp));
+		}
+		return grp;
+	}
+
+	/**
+	 * what toQuoteRequest needs of a registered instrument
+	 */
+	private SecListGrp toSecListGrp(int id) {
+		SecListGrp grp = new SecListGrp();
+		grp.setSecurityID(instrumentRegistry.securityId(id));
+		String securityIdSource = instrumentRegistry.securityIdSource(id);
+		if (securityIdSource != null) {
+			grp.setSecurityIDSource(SecurityIDSource.valueOf(securityIdSource));
+		}
+		grp.setSecurityGroup(instrumentRegistry.securityGroup(id));
+		return grp;
+	}
+
 	private QuoteRequest toQuoteRequest(SecListGrp grp) {
 		QuoteRequest req = new QuoteRequest();
 		req.setSendingTime(new Date());
@@ -215,22 +647,4 @@ public class Client {
 		}
 	}
 
-	private <T> T jsonNodeTo(JsonNode node, Class<T> clazz) {
-		try {
-			return objectMapper.treeToValue(node, clazz);
-		} catch (JsonProcessingException e) {
-			log.error("this should not happen for node=" + node + " clazz=" + clazz, e);
-			throw new RuntimeException("this should not happen for node=" + node + " clazz=" + clazz, e);
-		}
-	}
-
-	private JsonNode toJsonNode(String msg) {
-		try {
-			return objectMapper.readTree(msg);
-		} catch (JsonProcessingException e) {
-			log.error("this should not happen for ", e);
-			throw new RuntimeException(e);
-		}
-	}
-
 }
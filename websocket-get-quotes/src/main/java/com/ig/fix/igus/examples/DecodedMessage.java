@@ -0,0 +1,17 @@
+package com.ig.fix.igus.examples;
+
+import lombok.Value;
+
+/**
+ * result of decoding one inbound frame. Exactly one of messageType (session
+ * level, FIXP) or msgType (application level) is non blank. body is null when
+ * the type is not one the client binds. receivedNanos is the System.nanoTime()
+ * at which decoding started.
+ */
+@Value
+public class DecodedMessage {
+	String messageType;
+	String msgType;
+	Object body;
+	long receivedNanos;
+}
@@ -1,17 +1,118 @@
 
 package com.ig.fix.igus.examples;
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 
 @SpringBootApplication
 @EnableConfigurationProperties
+@Slf4j
 public class ExampleClientApplication {
 
     public static void main(String[] args) throws InterruptedException {
         SpringApplication.run(ExampleClientApplication.class, args);
         TimeUnit.SECONDS.sleep(Integer.MAX_VALUE); //stay up
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = "client.fast-quote")
+    public FastQuoteProperties fastQuoteProperties() {
+        return new FastQuoteProperties();
+    }
+
+    /**
+     * dense int id per instrument, filled from the SecurityList and by quotes of
+     * instruments it did not list
+     */
+    @Bean
+    public InstrumentRegistry instrumentRegistry(@Value("${client.quote-book.capacity}") int capacity,
+            FastQuoteProperties fastQuoteProperties, MeterRegistry meterRegistry) {
+        InstrumentRegistry instrumentRegistry = new InstrumentRegistry(capacity, fastQuoteProperties.toTickScales());
+        FunctionCounter.builder("instruments.refused", instrumentRegistry, InstrumentRegistry::refused)//
+                .description("quotes dropped and listed instruments skipped for want of room or a too long SecurityID")//
+                .register(meterRegistry);
+        return instrumentRegistry;
+    }
+
+    /**
+     * latest quote per instrument, inject it wherever top of book is needed
+     */
+    @Bean
+    public QuoteBook quoteBook(InstrumentRegistry instrumentRegistry) {
+        return new QuoteBook(instrumentRegistry);
+    }
+
+    /**
+     * only with client.quote-conflation.enabled, delivers the freshest quote of
+     * each instrument to the downstream consumer, here a log, at its own pace
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "client.quote-conflation", name = "enabled", havingValue = "true")
+    public QuoteConflator quoteConflator(QuoteBook quoteBook, MeterRegistry meterRegistry) {
+        QuoteConflator quoteConflator = new QuoteConflator(quoteBook, meterRegistry);
+        quoteConflator.start(quote -> log.info("got quote {}", quote));
+        return quoteConflator;
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "client.tick-journal")
+    public TickJournalProperties tickJournalProperties() {
+        return new TickJournalProperties();
+    }
+
+    /**
+     * only with client.tick-journal.enabled, every received quote is appended to
+     * it, see Client.replay to feed it back
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "client.tick-journal", name = "enabled", havingValue = "true")
+    public TickJournal tickJournal(TickJournalProperties tickJournalProperties) {
+        return new TickJournal(Paths.get(tickJournalProperties.getDirectory()),
+                tickJournalProperties.getSegmentSize().toBytes(), tickJournalProperties.getRetainSegments());
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "client.frame-capture")
+    public FrameCaptureProperties frameCaptureProperties() {
+        return new FrameCaptureProperties();
+    }
+
+    /**
+     * only with client.frame-capture.enabled, every websocket frame received and
+     * sent is written to it, see Client.replayFrames to drive the client with them
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "client.frame-capture", name = "enabled", havingValue = "true")
+    public FrameCapture frameCapture(FrameCaptureProperties frameCaptureProperties) {
+        return new FrameCapture(Paths.get(frameCaptureProperties.getDirectory()),
+                (int) frameCaptureProperties.getBufferSize().toBytes(), frameCaptureProperties.getMaxSize().toBytes());
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "client.instrument-catalog")
+    public InstrumentCatalogProperties instrumentCatalogProperties() {
+        return new InstrumentCatalogProperties();
+    }
+
+    /**
+     * only with client.instrument-catalog.enabled, the instruments of the last
+     * SecurityList are subscribed to as soon as a session is established
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "client.instrument-catalog", name = "enabled", havingValue = "true")
+    public InstrumentCatalog instrumentCatalog(InstrumentCatalogProperties instrumentCatalogProperties) {
+        return new InstrumentCatalog(Paths.get(instrumentCatalogProperties.getFile()),
+                instrumentCatalogProperties.getMaxAge(), instrumentCatalogProperties.getSettleTime());
+    }
 }
@@ -0,0 +1,189 @@
+package com.ig.fix.igus.examples;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+/**
+ * Allocation free decoder for Quote frames. Scans the top level fields of the
+ * json object directly in the frame's {@link DataBuffer} and copies
+ * QuoteReqID, BidID, BidPx, OfferID and OfferPx into a reused
+ * {@link FastQuote}. Every other field is skipped without being parsed, and
+ * any other message is given up on as soon as its MsgType is read. The
+ * QuoteReqID is resolved to its {@link InstrumentRegistry} id from the copied
+ * bytes, which also gives the tick scale, with no String in between. A price
+ * that does not parse is left out, see {@link ScaledDecimal#parseOrNone}.
+ * <p>
+ * Not thread safe: use one instance per receiving thread.
+ */
+public class FastQuoteDecoder {
+	private final InstrumentRegistry instrumentRegistry;
+
+	private final AsciiSequence key = new AsciiSequence(32);
+	private final AsciiSequence msgType = new AsciiSequence(32);
+	private final AsciiSequence bidPx = new AsciiSequence(32);
+	private final AsciiSequence offerPx = new AsciiSequence(32);
+
+	private DataBuffer buffer;
+	private int position;
+	private int limit;
+
+	public FastQuoteDecoder(InstrumentRegistry instrumentRegistry) {
+		this.instrumentRegistry = instrumentRegistry;
+	}
+
+	/**
+	 * @return true if the frame was a Quote and quote now holds it, with an
+	 *         instrument id of -1 if the {@link InstrumentRegistry} refused its
+	 *         instrument and it is to be dropped. When false
+	 *         the content of quote is undefined and the frame should go through
+	 *         {@link MessageDecoder}, as should a truncated or malformed frame
+	 */
+	public boolean decode(DataBuffer payload, FastQuote quote) {
+		buffer = payload;
+		position = payload.readPosition();
+		limit = payload.writePosition();
+		quote.clear();
+		msgType.clear();
+		bidPx.clear();
+		offerPx.clear();
+		try {
+			if (nextNonWhitespace() != '{') {
+				return false;
+			}
+			byte b = nextNonWhitespace();
+			while (b == '"') {
+				readString(key);
+				if (nextNonWhitespace() != ':') {
+					return false;
+				}
+				AsciiSequence target = target(quote);
+				readValue(target);
+				if (target == msgType && !msgType.contentEquals("Quote")) {
+					// not worth scanning the rest, e.g. of a SecurityList
+					return false;
+				}
+				b = nextNonWhitespace();
+				if (b == ',') {
+					b = nextNonWhitespace();
+				}
+			}
+			if (b != '}' || !msgType.contentEquals("Quote")) {
+				return false;
+			}
+			int instrumentId = instrumentRegistry.intern(quote.getQuoteReqId());
+			quote.setInstrumentId(instrumentId);
+			if (instrumentId < 0) {
+				// refused by the registry, the quote is to be dropped
+				return true;
+			}
+			int scale = instrumentRegistry.scaleOf(instrumentId);
+			quote.setScale(scale);
+			quote.setBidPx(ScaledDecimal.parseOrNone(bidPx, scale));
+			quote.setOfferPx(ScaledDecimal.parseOrNone(offerPx, scale));
+			return true;
+		} catch (IllegalArgumentException e) {
+			// truncated or malformed, left to MessageDecoder to report
+			return false;
+		} finally {
+			buffer = null;
+		}
+	}
+
+	/**
+	 * @return where to copy the value of the current key, null to skip it
+	 */
+	private AsciiSequence target(FastQuote quote) {
+		if (key.contentEquals("MsgType") || key.contentEquals("MessageType")) {
+			return msgType;
+		} else if (key.contentEquals("QuoteReqID")) {
+			return quote.getQuoteReqId();
+		} else if (key.contentEquals("BidID")) {
+			return quote.getBidId();
+		} else if (key.contentEquals("BidPx")) {
+			return bidPx;
+		} else if (key.contentEquals("OfferID")) {
+			return quote.getOfferId();
+		} else if (key.contentEquals("OfferPx")) {
+			return offerPx;
+		}
+		return null;
+	}
+
+	private void readValue(AsciiSequence to) {
+		byte b = nextNonWhitespace();
+		if (b == '"') {
+			readString(to);
+		} else if (b == '{' || b == '[') {
+			skipNested();
+		} else {
+			// number, true, false or null
+			if (to != null) {
+				to.clear().append(b);
+			}
+			while (position < limit) {
+				b = buffer.getByte(position);
+				if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+					break;
+				}
+				if (to != null) {
+					to.append(b);
+				}
+				++position;
+			}
+			if (to != null && to.contentEquals("null")) {
+				to.clear();
+			}
+		}
+	}
+
+	/**
+	 * reads up to the closing quote, the opening one has been consumed. Escapes
+	 * are reduced to the escaped character which is enough for ids and prices.
+	 */
+	private void readString(AsciiSequence to) {
+		if (to != null) {
+			to.clear();
+		}
+		byte b;
+		while ((b = next()) != '"') {
+			if (b == '\\') {
+				b = next();
+			}
+			if (to != null) {
+				to.append(b);
+			}
+		}
+	}
+
+	private void skipNested() {
+		int depth = 1;
+		while (depth > 0) {
+			byte b = next();
+			if (b == '"') {
+				readString(null);
+			} else if (b == '{' || b == '[') {
+				++depth;
+			} else if (b == '}' || b == ']') {
+				--depth;
+			}
+		}
+	}
+
+	private byte nextNonWhitespace() {
+		byte b;
+		do {
+			b = next();
+		} while (isWhitespace(b));
+		return b;
+	}
+
+	private byte next() {
+		if (position >= limit) {
+			throw new IllegalArgumentException("truncated json frame");
+		}
+		return buffer.getByte(position++);
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+	}
+}
@@ -0,0 +1,26 @@
+package com.ig.fix.igus.examples;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class FastQuoteProperties {
+	/**
+	 * decode quotes into a reused {@link FastQuote} instead of binding a Quote
+	 */
+	private boolean enabled;
+	/**
+	 * decimals used for instruments missing from tickScales
+	 */
+	private int defaultScale = 5;
+	/**
+	 * decimals per SecurityID
+	 */
+	private Map<String, Integer> tickScales = new HashMap<>();
+
+	public TickScales toTickScales() {
+		return new TickScales(defaultScale, tickScales);
+	}
+}
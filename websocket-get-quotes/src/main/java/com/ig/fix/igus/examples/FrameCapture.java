@@ -0,0 +1,357 @@
+package com.ig.fix.igus.examples;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the raw websocket frames of the sessions, as the client received and
+ * sent them, to a capture file so an incident can be reproduced offline.
+ * <p>
+ * The file starts with a {@value #HEADER_SIZE} byte header holding the wall
+ * clock and nanoTime at which it was opened, followed by length prefixed
+ * frames:
+ *
+ * <pre>
+ *   0 int    payload length
+ *   4 byte   'I' inbound or 'O' outbound
+ *   5 short  index of the session
+ *   7 long   System.nanoTime when the frame was captured
+ *  15 byte[] payload
+ * </pre>
+ *
+ * Version 1 files, captured before the session was recorded, have no session
+ * index and are replayed as session 0.
+ *
+ * Frames are copied into a buffer which, when full and on close, is handed to
+ * the frame-capture thread to be written out, so the tap costs the event loop
+ * a copy per frame and never a file write. Capture stops, with a warning, once
+ * the file reaches maxSize, a write fails or the {@value #BUFFERS} buffers are
+ * all waiting to be written; the session carries on either way.
+ * <p>
+ * Files are named after the millisecond they are opened at, with a sequence
+ * number appended when another capture took that name.
+ * <p>
+ * {@link #replay} reads the frames back, see Client.replayFrames to drive the
+ * message handling with them.
+ */
+@Slf4j
+public class FrameCapture implements AutoCloseable {
+	public static final int HEADER_SIZE = 24;
+	public static final int FRAME_HEADER_SIZE = 15;
+	public static final byte INBOUND = 'I';
+	public static final byte OUTBOUND = 'O';
+
+	private static final int MAGIC = 0x46524D31;// FRM1
+	private static final int VERSION = 2;
+	private static final int V1_FRAME_HEADER_SIZE = 13;
+	/**
+	 * buffers filled or being filled, the writer falls behind when all are full
+	 */
+	private static final int BUFFERS = 4;
+	/**
+	 * handed to the writer last, it closes the file on taking it
+	 */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	/**
+	 * called for every replayed frame, the payload is only valid during the call
+	 */
+	public interface Handler {
+		void onFrame(int session, long capturedNanos, ByteBuffer payload);
+	}
+
+	private final Path file;
+	private final FileChannel channel;
+	private final long maxSize;
+	/**
+	 * empty buffers, taken by the capturing threads
+	 */
+	private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+	/**
+	 * buffers and oversized frames to write out, in order, taken by the writer
+	 */
+	private final BlockingQueue<ByteBuffer> full = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	/**
+	 * being filled, null once capture stopped
+	 */
+	private ByteBuffer buffer;
+	/**
+	 * bytes captured, written or not
+	 */
+	private long captured = HEADER_SIZE;
+	private boolean closed;
+	/**
+	 * set by the writer
+	 */
+	private volatile boolean failed;
+
+	public FrameCapture(Path directory, int bufferSize, long maxSize) {
+		Path created = null;
+		try {
+			Files.createDirectories(directory);
+			created = createFile(directory);
+			channel = FileChannel.open(created, StandardOpenOption.WRITE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot create frame capture in " + directory, e);
+		}
+		file = created;
+		for (int i = 0; i < BUFFERS; ++i) {
+			free.add(ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN));
+		}
+		buffer = free.remove();
+		this.maxSize = maxSize;
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putLong(System.nanoTime());
+		writer = new Thread(this::writeOut, "frame-capture");
+		writer.setDaemon(true);
+		writer.start();
+		log.info("capturing websocket frames to {}", file);
+	}
+
+	/**
+	 * @param session index of the session the frame was received on
+	 */
+	public void inbound(int session, DataBuffer payload) {
+		capture(INBOUND, session, payload);
+	}
+
+	/**
+	 * @param session index of the session the frame was sent on
+	 */
+	public void outbound(int session, DataBuffer payload) {
+		capture(OUTBOUND, session, payload);
+	}
+
+	/**
+	 * hands what is buffered to the writer
+	 */
+	public synchronized void flush() {
+		if (!closed) {
+			handOff();
+		}
+	}
+
+	/**
+	 * stops capturing and waits for what was captured to be written out
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (!closed) {
+				stop();
+			}
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * feeds the frames of the given direction in the capture file to the handler
+	 *
+	 * @param direction {@link #INBOUND} or {@link #OUTBOUND}
+	 * @return the number of frames replayed
+	 */
+	public static long replay(Path file, byte direction, Handler handler) {
+		long count = 0;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+			buffer = fill(channel, buffer, HEADER_SIZE);
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+				throw new IllegalArgumentException(file + " is not a frame capture");
+			}
+			int version = buffer.getInt();
+			if (version != 1 && version != VERSION) {
+				throw new IllegalArgumentException(file + " is a version " + version + " frame capture");
+			}
+			int frameHeaderSize = version == 1 ? V1_FRAME_HEADER_SIZE : FRAME_HEADER_SIZE;
+			buffer.position(HEADER_SIZE);
+			while (true) {
+				buffer = fill(channel, buffer, frameHeaderSize);
+				if (!buffer.hasRemaining()) {
+					return count;
+				}
+				int length = buffer.getInt(buffer.position());
+				buffer = fill(channel, buffer, frameHeaderSize + length);
+				byte frameDirection = buffer.get(buffer.position() + 4);
+				int session = version == 1 ? 0 : buffer.getShort(buffer.position() + 5);
+				long capturedNanos = buffer.getLong(buffer.position() + frameHeaderSize - 8);
+				int payloadStart = buffer.position() + frameHeaderSize;
+				if (frameDirection == direction) {
+					ByteBuffer payload = buffer.duplicate();
+					payload.position(payloadStart).limit(payloadStart + length);
+					handler.onFrame(session, capturedNanos, payload);
+					count++;
+				}
+				buffer.position(payloadStart + length);
+			}
+		} catch (EOFException e) {
+			log.warn("{} ends in a partial frame, replayed {} frames", file, count);
+			return count;
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot replay frame capture " + file, e);
+		}
+	}
+
+	/**
+	 * on the event loop of the session, copies the frame and leaves the writing to
+	 * the writer
+	 */
+	private synchronized void capture(byte direction, int session, DataBuffer payload) {
+		if (closed) {
+			return;
+		}
+		if (failed) {
+			stop();
+			return;
+		}
+		ByteBuffer bytes = payload.asByteBuffer();
+		int length = bytes.remaining();
+		if (captured + FRAME_HEADER_SIZE + length > maxSize) {
+			log.warn("frame capture {} reached {} bytes, capture stopped", file, maxSize);
+			stop();
+			return;
+		}
+		captured += FRAME_HEADER_SIZE + length;
+		if (buffer.remaining() < FRAME_HEADER_SIZE + length && !handOff()) {
+			return;
+		}
+		if (buffer.remaining() < FRAME_HEADER_SIZE + length) {
+			// larger than the buffer, handed over in a copy of its own
+			ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+			frame.putInt(length).put(direction).putShort((short) session).putLong(System.nanoTime()).put(bytes).flip();
+			full.add(frame);
+			return;
+		}
+		buffer.putInt(length).put(direction).putShort((short) session).putLong(System.nanoTime()).put(bytes);
+	}
+
+	/**
+	 * hands the buffer, unless empty, to the writer and takes an empty one
+	 *
+	 * @return false when none is left, capture is then stopped
+	 */
+	private boolean handOff() {
+		if (buffer.position() == 0) {
+			return true;
+		}
+		full.add(buffer.flip());
+		buffer = free.poll();
+		if (buffer == null) {
+			log.warn("frame capture {} cannot be written as fast as frames arrive, capture stopped", file);
+			stop();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * hands what is buffered to the writer, then the end of the capture
+	 */
+	private void stop() {
+		closed = true;
+		if (buffer != null && buffer.position() > 0) {
+			full.add(buffer.flip());
+		}
+		buffer = null;
+		full.add(END);
+	}
+
+	/**
+	 * the writer, until it takes {@link #END}
+	 */
+	private void writeOut() {
+		try {
+			while (true) {
+				ByteBuffer bytes = full.take();
+				if (bytes == END) {
+					break;
+				}
+				if (!failed) {
+					write(bytes);
+				}
+				if (bytes.isDirect()) {
+					free.add(bytes.clear());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				log.warn("could not close frame capture {}", file, e);
+			}
+		}
+	}
+
+	private void write(ByteBuffer bytes) {
+		try {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} catch (IOException e) {
+			failed = true;
+			log.warn("could not write frame capture {}, capture stopped", file, e);
+		}
+	}
+
+	/**
+	 * @return a new file named after the current millisecond
+	 */
+	private static Path createFile(Path directory) throws IOException {
+		String name = String.format("frames-%tY%<tm%<td-%<tH%<tM%<tS-%<tL", new Date());
+		for (int sequence = 0;; ++sequence) {
+			Path file = directory.resolve(sequence == 0 ? name + ".capture" : name + "-" + sequence + ".capture");
+			try {
+				return Files.createFile(file);
+			} catch (FileAlreadyExistsException e) {
+				// another capture opened in the same millisecond
+			}
+		}
+	}
+
+	/**
+	 * @return buffer, or a larger one, with at least needed bytes remaining
+	 *         unless the file ends at a frame boundary, when none remain
+	 */
+	private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+		if (buffer.remaining() >= needed) {
+			return buffer;
+		}
+		if (buffer.capacity() < needed) {
+			buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(needed) << 1).order(ByteOrder.LITTLE_ENDIAN)
+					.put(buffer);
+		} else {
+			buffer.compact();
+		}
+		while (buffer.position() < needed) {
+			if (channel.read(buffer) < 0) {
+				if (buffer.position() == 0) {
+					break;
+				}
+				throw new EOFException();
+			}
+		}
+		return buffer.flip();
+	}
+}
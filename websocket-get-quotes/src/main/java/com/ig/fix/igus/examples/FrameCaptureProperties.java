@@ -0,0 +1,23 @@
+package com.ig.fix.igus.examples;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+public class FrameCaptureProperties {
+	/**
+	 * write every websocket frame received and sent to a {@link FrameCapture}
+	 */
+	private boolean enabled;
+	private String directory = "capture";
+	/**
+	 * frames are copied into one of four buffers of this size, each written out
+	 * by the frame-capture thread when full. Capture stops if all four are full
+	 */
+	private DataSize bufferSize = DataSize.ofMegabytes(1);
+	/**
+	 * capture stops when the file reaches it
+	 */
+	private DataSize maxSize = DataSize.ofGigabytes(1);
+}
@@ -0,0 +1,87 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler.Worker;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps the outbound side of one session alive. Rather than restarting a
+ * timer after every outbound message, a single timer wakes up when the link
+ * would have been idle for heartbeatInterval since the last send and only then
+ * emits the pre-serialised heartbeat. Any other outbound message pushes the
+ * next heartbeat back.
+ * <p>
+ * Create one per session, it holds the time of the last send.
+ *
+ * @param <T> the type of the outbound messages
+ */
+public class HeartbeatEngine<T> {
+	private final T heartbeat;
+	private final long intervalNanos;
+	private final Counter sent;
+	private final Counter suppressed;
+
+	/**
+	 * System.nanoTime() of the last outbound message, 0 until the first one
+	 */
+	private volatile long lastSendNanos;
+
+	/**
+	 * @param heartbeat  the UnsequencedHeartbeat, the same instance is sent
+	 *                   every time
+	 * @param sent       incremented per heartbeat sent
+	 * @param suppressed incremented when the timer finds the link was not idle
+	 */
+	public HeartbeatEngine(T heartbeat, Duration interval, Counter sent, Counter suppressed) {
+		this.heartbeat = heartbeat;
+		this.intervalNanos = interval.toNanos();
+		this.sent = sent;
+		this.suppressed = suppressed;
+	}
+
+	/**
+	 * @return outbound with heartbeats merged in whenever it goes quiet.
+	 *         Heartbeats start after the first message of outbound and stop when
+	 *         it terminates
+	 */
+	public Flux<T> withHeartbeats(Flux<T> outbound) {
+		return outbound.publish(out -> Flux.merge(out, heartbeats().takeUntilOther(out.ignoreElements())))//
+				.doOnNext(msg -> lastSendNanos = System.nanoTime());
+	}
+
+	private Flux<T> heartbeats() {
+		return Flux.create(sink -> {
+			Worker worker = Schedulers.parallel().createWorker();
+			sink.onDispose(worker);
+			worker.schedule(() -> check(sink, worker), intervalNanos, TimeUnit.NANOSECONDS);
+		});
+	}
+
+	private void check(FluxSink<T> sink, Worker worker) {
+		long last = lastSendNanos;
+		long delay = intervalNanos;
+		if (last != 0) {
+			long idle = System.nanoTime() - last;
+			if (idle >= intervalNanos) {
+				sent.increment();
+				sink.next(heartbeat);
+			} else {
+				suppressed.increment();
+				delay = intervalNanos - idle;
+			}
+		}
+		if (!sink.isCancelled()) {
+			try {
+				worker.schedule(() -> check(sink, worker), delay, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// the session closed while checking
+			}
+		}
+	}
+}
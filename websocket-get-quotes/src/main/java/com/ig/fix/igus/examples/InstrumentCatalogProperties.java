@@ -0,0 +1,24 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+public class InstrumentCatalogProperties {
+	/**
+	 * subscribe to the instruments of an {@link InstrumentCatalog} as soon as a
+	 * session is established, reconciling them with the SecurityList later
+	 */
+	private boolean enabled;
+	private String file = "instrument-catalog.bin";
+	/**
+	 * an older catalog is ignored
+	 */
+	private Duration maxAge = Duration.ofDays(7);
+	/**
+	 * the SecurityList may come in several messages, it is taken as complete once
+	 * none came for this long
+	 */
+	private Duration settleTime = Duration.ofSeconds(5);
+}
@@ -0,0 +1,281 @@
+package com.ig.fix.igus.examples;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dense int ids for instruments, handed out from 0 in the order they are
+ * registered and never reused. The quote path resolves the SecurityID once and
+ * everything downstream ({@link QuoteBook}, {@link QuoteConflator},
+ * {@link TickJournal}) indexes flat arrays by id instead of hashing Strings.
+ * <p>
+ * The SecurityIDs are kept as bytes, {@value #ID_WIDTH} per instrument, and
+ * found through an open addressing table of ids, so {@link #find} and
+ * {@link #intern} of a known instrument take an {@link AsciiSequence} copied
+ * out of a frame and neither lock nor allocate. Adding an instrument is
+ * synchronized and publishes its id with a release store of the table entry,
+ * once the instrument is written.
+ * <p>
+ * Instruments of the SecurityList are registered with their SecurityIDSource,
+ * Symbol, SecurityGroup, ContractMultiplier, Currency and DealableCurrencies. One first
+ * seen on a quote, or in a replayed journal, is interned with its SecurityID
+ * only until the SecurityList registers it.
+ * <p>
+ * Once full, or for a SecurityID longer than {@value #ID_WIDTH} chars, an
+ * instrument is refused and gets no id: its quotes are to be dropped rather
+ * than take the session down. Refusals are counted, see {@link #refused()}.
+ */
+@Slf4j
+public class InstrumentRegistry {
+	/**
+	 * longest SecurityID taken
+	 */
+	public static final int ID_WIDTH = 64;
+
+	private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final int capacity;
+	private final TickScales tickScales;
+	/**
+	 * id + 1 per bucket, 0 when empty. At least twice the capacity so probes
+	 * stay short and always end on an empty bucket
+	 */
+	private final int[] table;
+	private final int mask;
+	private volatile int size;
+	private final AtomicLong refused = new AtomicLong();
+
+	private final byte[] securityIds;
+	private final int[] idLengths;
+	private final int[] hashes;
+	private final int[] scales;
+	// written and read under the lock, they are not for the quote path
+	private final String[] securityIdSources;
+	private final String[] symbols;
+	private final String[] securityGroups;
+	private final double[] contractMultipliers;
+	private final String[] currencies;
+	private final String[] dealableCurrencies;
+
+	public InstrumentRegistry(int capacity, TickScales tickScales) {
+		this.capacity = capacity;
+		this.tickScales = tickScales;
+		table = new int[Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1];
+		mask = table.length - 1;
+		securityIds = new byte[capacity * ID_WIDTH];
+		idLengths = new int[capacity];
+		hashes = new int[capacity];
+		scales = new int[capacity];
+		securityIdSources = new String[capacity];
+		symbols = new String[capacity];
+		securityGroups = new String[capacity];
+		contractMultipliers = new double[capacity];
+		currencies = new String[capacity];
+		dealableCurrencies = new String[capacity];
+	}
+
+	/**
+	 * @return the id of the instrument, -1 if it is not registered
+	 */
+	public int find(CharSequence securityId) {
+		if (securityId.length() > ID_WIDTH) {
+			return -1;
+		}
+		int hash = hash(securityId);
+		for (int bucket = hash & mask;; bucket = (bucket + 1) & mask) {
+			int entry = (int) ENTRIES.getAcquire(table, bucket);
+			if (entry == 0) {
+				return -1;
+			}
+			int id = entry - 1;
+			if (hashes[id] == hash && matches(id, securityId)) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * @return the id of the instrument, added with its SecurityID only when it
+	 *         is not registered yet, -1 if it cannot be added
+	 */
+	public int intern(CharSequence securityId) {
+		int id = find(securityId);
+		return id >= 0 ? id : add(securityId);
+	}
+
+	/**
+	 * registers an instrument of the SecurityList, or completes one that was
+	 * interned from a quote
+	 *
+	 * @param contractMultiplier NaN when the SecurityList has none
+	 * @return the id of the instrument, -1 if it cannot be added
+	 */
+	public synchronized int register(String securityId, String securityIdSource, String symbol,
+			String securityGroup, double contractMultiplier, String currency, String dealableCurrencies) {
+		int id = intern(securityId);
+		if (id < 0) {
+			return id;
+		}
+		securityIdSources[id] = securityIdSource;
+		symbols[id] = symbol;
+		securityGroups[id] = securityGroup;
+		contractMultipliers[id] = contractMultiplier;
+		currencies[id] = currency;
+		this.dealableCurrencies[id] = dealableCurrencies;
+		return id;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return how many times an instrument could not be added, each a quote
+	 *         dropped or an instrument of the SecurityList not subscribed to
+	 */
+	public long refused() {
+		return refused.get();
+	}
+
+	/**
+	 * @return the decimals the instrument is priced in
+	 */
+	public int scaleOf(int id) {
+		return scales[checked(id)];
+	}
+
+	/**
+	 * @return the SecurityID of the instrument, allocates
+	 */
+	public String securityId(int id) {
+		AsciiSequence securityId = new AsciiSequence(ID_WIDTH);
+		securityId(id, securityId);
+		return securityId.toString();
+	}
+
+	/**
+	 * copies the SecurityID of the instrument into a reused sequence
+	 */
+	public void securityId(int id, AsciiSequence into) {
+		into.clear();
+		int offset = checked(id) * ID_WIDTH;
+		for (int i = 0; i < idLengths[id]; ++i) {
+			into.append(securityIds[offset + i]);
+		}
+	}
+
+	public synchronized String securityIdSource(int id) {
+		return securityIdSources[checked(id)];
+	}
+
+	public synchronized String symbol(int id) {
+		return symbols[checked(id)];
+	}
+
+	public synchronized String securityGroup(int id) {
+		return securityGroups[checked(id)];
+	}
+
+	/**
+	 * @return NaN when unknown
+	 */
+	public synchronized double contractMultiplier(int id) {
+		return contractMultipliers[checked(id)];
+	}
+
+	public synchronized String currency(int id) {
+		return currencies[checked(id)];
+	}
+
+	public synchronized String dealableCurrencies(int id) {
+		return dealableCurrencies[checked(id)];
+	}
+
+	private synchronized int add(CharSequence securityId) {
+		int existing = find(securityId);
+		if (existing >= 0) {
+			return existing;
+		}
+		int id = size;
+		int length = securityId.length();
+		if (id == capacity || length > ID_WIDTH) {
+			if (refused.getAndIncrement() == 0) {
+				log.warn("refusing {}, {}", securityId, id == capacity
+						? "the registry is full, increase the capacity above " + capacity
+						: "longer than " + ID_WIDTH + " chars");
+			}
+			return -1;
+		}
+		int offset = id * ID_WIDTH;
+		for (int i = 0; i < length; ++i) {
+			securityIds[offset + i] = (byte) securityId.charAt(i);
+		}
+		idLengths[id] = length;
+		int hash = hash(securityId);
+		hashes[id] = hash;
+		scales[id] = tickScales.scaleOf(
+				securityId instanceof AsciiSequence ? (AsciiSequence) securityId : new AsciiSequence(securityId));
+		contractMultipliers[id] = Double.NaN;
+		int bucket = hash & mask;
+		while (table[bucket] != 0) {
+			bucket = (bucket + 1) & mask;
+		}
+		ENTRIES.setRelease(table, bucket, id + 1);
+		size = id + 1;
+		return id;
+	}
+
+	private boolean matches(int id, CharSequence securityId) {
+		int length = securityId.length();
+		if (idLengths[id] != length) {
+			return false;
+		}
+		int offset = id * ID_WIDTH;
+		if (securityId instanceof AsciiSequence) {
+			AsciiSequence ascii = (AsciiSequence) securityId;
+			for (int i = 0; i < length; ++i) {
+				if (securityIds[offset + i] != ascii.byteAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		for (int i = 0; i < length; ++i) {
+			if ((securityIds[offset + i] & 0xff) != securityId.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int checked(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("no instrument " + id);
+		}
+		return id;
+	}
+
+	private static int hash(CharSequence securityId) {
+		int length = securityId.length();
+		int h = 0;
+		if (securityId instanceof AsciiSequence) {
+			AsciiSequence ascii = (AsciiSequence) securityId;
+			for (int i = 0; i < length; ++i) {
+				h = 31 * h + (ascii.byteAt(i) & 0xff);
+			}
+		} else {
+			for (int i = 0; i < length; ++i) {
+				h = 31 * h + securityId.charAt(i);
+			}
+		}
+		// linear probing takes the low bits
+		return h ^ (h >>> 16);
+	}
+}
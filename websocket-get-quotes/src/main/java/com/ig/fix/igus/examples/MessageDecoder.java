@@ -0,0 +1,150 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.ig.orchestrations.fixp.EstablishmentAck;
+import com.ig.orchestrations.fixp.NegotiationResponse;
+import com.ig.orchestrations.us.rfed.groups.SecListGrp;
+import com.ig.orchestrations.us.rfed.messages.Quote;
+import com.ig.orchestrations.us.rfed.messages.QuoteRequestReject;
+import com.ig.orchestrations.us.rfed.messages.SecurityList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decodes an inbound frame in a single pass: the fields preceding the
+ * discriminator (MessageType for FIXP session messages, MsgType for application
+ * messages) are buffered as tokens, and once the discriminator is known the
+ * buffered tokens followed by the rest of the frame are bound straight to the
+ * target type. No String copy of the payload and no intermediate JsonNode tree
+ * is created.
+ * <p>
+ * A SecurityList can also be streamed, see
+ * {@link #decode(DataBuffer, UnaryOperator)}.
+ */
+@Component
+@Slf4j
+public class MessageDecoder {
+	private static final String MESSAGE_TYPE = "MessageType";
+	private static final String MSG_TYPE = "MsgType";
+	private static final String SEC_LIST_GRP = "SecListGrp";
+
+	/**
+	 * types this client binds, keyed by the value of the discriminator. Anything
+	 * else is decoded to a body of null.
+	 */
+	private static final Map<String, Class<?>> TYPES = Map.of(//
+			"NegotiationResponse", NegotiationResponse.class, //
+			"EstablishmentAck", EstablishmentAck.class, //
+			"SecurityList", SecurityList.class, //
+			"Quote", Quote.class, //
+			"QuoteRequestReject", QuoteRequestReject.class);
+
+	private final ObjectMapper objectMapper;
+
+	public MessageDecoder(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	public DecodedMessage decode(DataBuffer payload) {
+		return decode(payload, null);
+	}
+
+	/**
+	 * as {@link #decode(DataBuffer)}, except that the SecListGrp entries of a
+	 * SecurityList are bound one at a time and handed to admit as they are read.
+	 * Only what admit returns is kept in the SecurityList, an entry it returns
+	 * null for is garbage right away. So however large the instrument universe,
+	 * the whole list is never held at once.
+	 *
+	 * @param admit null to bind the SecurityList in full
+	 */
+	public DecodedMessage decode(DataBuffer payload, UnaryOperator<SecListGrp> admit) {
+		long receivedNanos = System.nanoTime();
+		try (InputStream in = payload.asInputStream(); //
+				JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			return decode(parser, receivedNanos, admit);
+		} catch (IOException e) {
+			log.error("this should not happen for ", e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	DecodedMessage decode(JsonParser parser, long receivedNanos) throws IOException {
+		return decode(parser, receivedNanos, null);
+	}
+
+	private DecodedMessage decode(JsonParser parser, long receivedNanos, UnaryOperator<SecListGrp> admit)
+			throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("expected a json object but got " + parser.currentToken());
+		}
+		TokenBuffer preceding = new TokenBuffer(parser);
+		preceding.writeStartObject();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if (MESSAGE_TYPE.equals(fieldName) || MSG_TYPE.equals(fieldName)) {
+				String type = parser.getText();
+				Class<?> clazz = TYPES.get(type);
+				Object body = null;
+				if (clazz != null) {
+					// the bound types carry the discriminator too, so replay it
+					preceding.writeStringField(fieldName, type);
+					JsonParser bodyParser = JsonParserSequence.createFlattened(false, preceding.asParser(parser),
+							parser);
+					bodyParser.nextToken();
+					body = admit != null && clazz == SecurityList.class ? readSecurityList(bodyParser, admit)
+							: objectMapper.readValue(bodyParser, clazz);
+				}
+				return MESSAGE_TYPE.equals(fieldName) ? new DecodedMessage(type, "", body, receivedNanos)
+						: new DecodedMessage("", type, body, receivedNanos);
+			}
+			preceding.writeFieldName(fieldName);
+			preceding.copyCurrentStructure(parser);
+		}
+		return new DecodedMessage("", "", null, receivedNanos);
+	}
+
+	/**
+	 * binds the fields other than SecListGrp as usual, and each SecListGrp entry
+	 * on its own as the array is read
+	 */
+	private SecurityList readSecurityList(JsonParser parser, UnaryOperator<SecListGrp> admit) throws IOException {
+		TokenBuffer others = new TokenBuffer(parser);
+		others.writeStartObject();
+		List<SecListGrp> admitted = new ArrayList<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if (SEC_LIST_GRP.equals(fieldName) && parser.currentToken() == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					SecListGrp grp = admit.apply(objectMapper.readValue(parser, SecListGrp.class));
+					if (grp != null) {
+						admitted.add(grp);
+					}
+				}
+			} else {
+				others.writeFieldName(fieldName);
+				others.copyCurrentStructure(parser);
+			}
+		}
+		others.writeEndObject();
+		SecurityList securityList = objectMapper.readValue(others.asParser(parser), SecurityList.class);
+		securityList.setSecListGrp(admitted);
+		return securityList;
+	}
+}
@@ -0,0 +1,98 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
+import com.ig.orchestrations.us.rfed.groups.QuotReqGrp;
+import com.ig.orchestrations.us.rfed.groups.SecListGrp;
+import com.ig.orchestrations.us.rfed.messages.QuoteRequest;
+
+/**
+ * Serialises outbound messages straight into buffers of the session's
+ * (pooled) allocator. QuoteRequests shaped like the ones the client builds go
+ * through a precompiled {@link MessageTemplate} with only QuoteReqID,
+ * SecurityID and SendingTime patched in, strings are taken as already
+ * serialised and anything else goes through Jackson.
+ * <p>
+ * Not thread safe: use one instance per session.
+ */
+public class OutboundEncoder {
+	private static final int QUOTE_REQ_ID = 0;
+	private static final int SECURITY_ID = 1;
+	private static final int SENDING_TIME = 2;
+
+	private final ObjectMapper objectMapper;
+	private final MessageTemplate quoteRequestTemplate;
+	/**
+	 * the constant fields of templated QuoteRequests
+	 */
+	private final QuoteRequest quoteRequestShape;
+	private final Object[] values = new Object[3];
+
+	/**
+	 * @param quoteRequests how the client turns an instrument into a QuoteRequest
+	 */
+	public OutboundEncoder(ObjectMapper objectMapper, Function<SecListGrp, QuoteRequest> quoteRequests) {
+		this.objectMapper = objectMapper;
+		MessageTemplate.Prototype prototype = fields -> {
+			SecListGrp grp = new SecListGrp();
+			grp.setSecurityID((String) fields[SECURITY_ID]);
+			grp.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+			QuoteRequest req = quoteRequests.apply(grp);
+			req.setQuoteReqID((String) fields[QUOTE_REQ_ID]);
+			req.setSendingTime((Date) fields[SENDING_TIME]);
+			return req;
+		};
+		Object[] base = { "A", "A", new Date(0) };
+		Object[] altered = { "B", "B", new Date(4102444799999L) };
+		quoteRequestTemplate = new MessageTemplate(objectMapper, prototype, base, altered);
+		quoteRequestShape = (QuoteRequest) prototype.build(base);
+	}
+
+	public DataBuffer encode(Object msg, DataBufferFactory bufferFactory) {
+		if (msg instanceof String) {
+			return bufferFactory.wrap(((String) msg).getBytes(StandardCharsets.UTF_8));
+		}
+		if (msg instanceof QuoteRequest && fitsTemplate((QuoteRequest) msg)) {
+			QuoteRequest req = (QuoteRequest) msg;
+			values[QUOTE_REQ_ID] = req.getQuoteReqID();
+			values[SECURITY_ID] = req.getQuotReqGrp().get(0).getSecurityID();
+			values[SENDING_TIME] = req.getSendingTime();
+			return quoteRequestTemplate.write(bufferFactory.allocateBuffer(quoteRequestTemplate.estimatedSize()),
+					values);
+		}
+		DataBuffer out = bufferFactory.allocateBuffer();
+		try {
+			objectMapper.writeValue(out.asOutputStream(), msg);
+			return out;
+		} catch (IOException e) {
+			DataBufferUtils.release(out);
+			throw new RuntimeException("this should not happen for " + msg, e);
+		}
+	}
+
+	private boolean fitsTemplate(QuoteRequest req) {
+		List<QuotReqGrp> quotReqGrp = req.getQuotReqGrp();
+		if (quotReqGrp == null || quotReqGrp.size() != 1 || req.getQuoteReqID() == null
+				|| req.getSendingTime() == null) {
+			return false;
+		}
+		QuotReqGrp grp = quotReqGrp.get(0);
+		QuotReqGrp shape = quoteRequestShape.getQuotReqGrp().get(0);
+		return grp.getSecurityID() != null //
+				&& Objects.equals(grp.getSecurityIDSource(), shape.getSecurityIDSource()) //
+				&& Objects.equals(req.getSubscriptionRequestType(), quoteRequestShape.getSubscriptionRequestType()) //
+				&& Objects.equals(req.getApplVerID(), quoteRequestShape.getApplVerID()) //
+				&& Objects.equals(req.getMsgType(), quoteRequestShape.getMsgType());
+	}
+}
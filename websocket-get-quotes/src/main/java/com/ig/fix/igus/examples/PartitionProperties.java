@@ -0,0 +1,24 @@
+package com.ig.fix.igus.examples;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+public class PartitionProperties {
+	/**
+	 * websocket sessions the instruments are spread over, each on an event loop
+	 * of its own
+	 */
+	private int sessions = 1;
+	/**
+	 * session index by SecurityGroup (CURRENCIES...), instruments of other groups
+	 * are spread by SecurityID
+	 */
+	private Map<String, Integer> groups = new HashMap<>();
+
+	public SessionPartitioner toPartitioner() {
+		return new SessionPartitioner(sessions, groups);
+	}
+}
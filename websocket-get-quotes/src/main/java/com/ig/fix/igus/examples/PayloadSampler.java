@@ -0,0 +1,38 @@
+package com.ig.fix.igus.examples;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs one inbound and one outbound payload in every sampleEvery, at INFO.
+ * Switched off with 0, which leaves a single comparison per message.
+ */
+@Slf4j
+public class PayloadSampler {
+	private final int sampleEvery;
+	private int inbound;
+	private int outbound;
+
+	public PayloadSampler(int sampleEvery) {
+		this.sampleEvery = sampleEvery;
+	}
+
+	public void inbound(DataBuffer payload) {
+		if (sampleEvery > 0 && ++inbound >= sampleEvery) {
+			inbound = 0;
+			log.info("in {}", payload.toString(payload.readPosition(), payload.readableByteCount(),
+					StandardCharsets.UTF_8));
+		}
+	}
+
+	public void outbound(DataBuffer payload) {
+		if (sampleEvery > 0 && ++outbound >= sampleEvery) {
+			outbound = 0;
+			log.info("out {}", payload.toString(payload.readPosition(), payload.readableByteCount(),
+					StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.ig.fix.igus.examples;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import reactor.core.publisher.Flux;
+
+/**
+ * Meters of the inbound and outbound pipelines, replacing the per signal
+ * logging:
+ * <ul>
+ * <li>websocket.messages.received, tagged with the MessageType or MsgType</li>
+ * <li>websocket.messages.sent</li>
+ * <li>websocket.decode.time, frame received to bound message</li>
+ * <li>websocket.handle.time, frame received to its handler returning</li>
+ * <li>websocket.outbound.pending, bytes written to the socket but not yet
+ * flushed to the network, tagged with the session</li>
+ * </ul>
+ * Recording is allocation free once every message type has been seen.
+ */
+public class PipelineMetrics {
+	private final MeterRegistry meterRegistry;
+	private final Map<String, Counter> received = new ConcurrentHashMap<>();
+	private final Counter sent;
+	private final Timer decodeTime;
+	private final Timer handleTime;
+
+	/**
+	 * the latest connection of each session
+	 */
+	private final AtomicReferenceArray<Channel> channels;
+
+	public PipelineMetrics(MeterRegistry meterRegistry, int sessions) {
+		this.meterRegistry = meterRegistry;
+		sent = meterRegistry.counter("websocket.messages.sent");
+		decodeTime = Timer.builder("websocket.decode.time")//
+				.description("from receiving a frame to the bound message")//
+				.publishPercentileHistogram()//
+				.register(meterRegistry);
+		handleTime = Timer.builder("websocket.handle.time")//
+				.description("from receiving a frame to its handler returning")//
+				.publishPercentileHistogram()//
+				.register(meterRegistry);
+		channels = new AtomicReferenceArray<>(sessions);
+		for (int i = 0; i < sessions; ++i) {
+			int session = i;
+			Gauge.builder("websocket.outbound.pending", this, metrics -> metrics.pendingWriteBytes(session))//
+					.description("bytes queued on the socket of the current connection of the session")//
+					.baseUnit("bytes")//
+					.tag("session", String.valueOf(session))//
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * the outbound gauge of the session follows its latest connection
+	 */
+	public void attach(int session, Channel channel) {
+		channels.set(session, channel);
+	}
+
+	public void decoded(DecodedMessage decoded) {
+		decoded(decoded.getMessageType().isEmpty() ? decoded.getMsgType() : decoded.getMessageType(),
+				decoded.getReceivedNanos());
+	}
+
+	public void decoded(String type, long receivedNanos) {
+		counter(type).increment();
+		decodeTime.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return replies, untouched
+	 */
+	public <T> Flux<T> handled(long receivedNanos, Flux<T> replies) {
+		handled(receivedNanos);
+		return replies;
+	}
+
+	public void handled(long receivedNanos) {
+		handleTime.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void sent() {
+		sent.increment();
+	}
+
+	private Counter counter(String type) {
+		Counter counter = received.get(type);
+		if (counter == null) {
+			counter = received.computeIfAbsent(type, t -> meterRegistry.counter("websocket.messages.received", "type", t));
+		}
+		return counter;
+	}
+
+	private double pendingWriteBytes(int session) {
+		Channel current = channels.get(session);
+		if (current == null) {
+			return 0;
+		}
+		ChannelOutboundBuffer outboundBuffer = current.unsafe().outboundBuffer();
+		return outboundBuffer == null ? 0 : outboundBuffer.totalPendingWriteBytes();
+	}
+}
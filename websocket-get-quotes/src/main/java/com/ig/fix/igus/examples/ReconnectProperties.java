@@ -0,0 +1,21 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+public class ReconnectProperties {
+	/**
+	 * wait before the first reconnect attempt, doubled after every failed attempt
+	 */
+	private Duration minBackoff = Duration.ofSeconds(1);
+	/**
+	 * upper bound of the wait between two attempts
+	 */
+	private Duration maxBackoff = Duration.ofSeconds(30);
+	/**
+	 * each wait is randomly spread by up to this fraction, 0.5 is +/-50%
+	 */
+	private double jitter = 0.5;
+}
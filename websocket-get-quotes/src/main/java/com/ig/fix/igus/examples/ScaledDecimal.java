@@ -0,0 +1,175 @@
+package com.ig.fix.igus.examples;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * decimal prices held as a long number of ticks: 1.39012 at scale 5 is 139012.
+ * Parsing and formatting work on CharSequence so that they do not allocate on
+ * the hot path.
+ */
+@Slf4j
+public final class ScaledDecimal {
+	/**
+	 * marks a price that was not present in the message
+	 */
+	public static final long NONE = Long.MIN_VALUE;
+	/**
+	 * longest exponent taken, past it the digits are not worth scanning
+	 */
+	private static final int MAX_EXPONENT = 9999;
+
+	private static final AtomicLong malformed = new AtomicLong();
+
+	private ScaledDecimal() {
+	}
+
+	/**
+	 * parses plain (1.39012) or exponent (1.39012E+2) notation, rounding half up
+	 * to scale decimals
+	 *
+	 * @throws NumberFormatException when text is not a decimal, or does not fit a
+	 *                               long at scale
+	 */
+	public static long parse(CharSequence text, int scale) {
+		try {
+			return parseExact(text, scale);
+		} catch (ArithmeticException e) {
+			throw new NumberFormatException("out of range at scale " + scale + ": " + text);
+		}
+	}
+
+	/**
+	 * for prices of a received quote, one that does not parse is left out rather
+	 * than take the session down
+	 *
+	 * @return {@link #NONE} when text does not parse, counted by
+	 *         {@link #malformed()}
+	 */
+	public static long parseOrNone(CharSequence text, int scale) {
+		try {
+			return parse(text, scale);
+		} catch (NumberFormatException e) {
+			if (malformed.getAndIncrement() == 0) {
+				log.warn("leaving out a price, further ones are only counted", e);
+			}
+			return NONE;
+		}
+	}
+
+	/**
+	 * @return how many prices {@link #parseOrNone} left out
+	 */
+	public static long malformed() {
+		return malformed.get();
+	}
+
+	private static long parseExact(CharSequence text, int scale) {
+		int length = text.length();
+		if (length == 0) {
+			return NONE;
+		}
+		int i = 0;
+		boolean negative = false;
+		char c = text.charAt(0);
+		if (c == '-' || c == '+') {
+			negative = c == '-';
+			++i;
+		}
+		long mantissa = 0;
+		int fractionDigits = 0;
+		boolean inFraction = false;
+		int exponent = 0;
+		for (; i < length; ++i) {
+			c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), c - '0');
+				if (inFraction) {
+					++fractionDigits;
+				}
+			} else if (c == '.' && !inFraction) {
+				inFraction = true;
+			} else if (c == 'e' || c == 'E') {
+				exponent = parseExponent(text, i + 1, length);
+				break;
+			} else {
+				throw new NumberFormatException("not a decimal: " + text);
+			}
+		}
+		if (mantissa == 0) {
+			return 0;
+		}
+		int shift = scale - fractionDigits + exponent;
+		// half up only looks at the first digit dropped, those after it can go first
+		for (; shift < -18; ++shift) {
+			if (mantissa == 0) {
+				return 0;
+			}
+			mantissa /= 10;
+		}
+		long value = shift >= 0 ? Math.multiplyExact(mantissa, pow10(shift)) : roundHalfUp(mantissa, pow10(-shift));
+		return negative ? -value : value;
+	}
+
+	private static int parseExponent(CharSequence text, int from, int to) {
+		boolean negative = false;
+		int i = from;
+		if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+			negative = text.charAt(i) == '-';
+			++i;
+		}
+		int exponent = 0;
+		for (; i < to; ++i) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new NumberFormatException("not a decimal: " + text);
+			}
+			exponent = exponent * 10 + (c - '0');
+			if (exponent > MAX_EXPONENT) {
+				throw new NumberFormatException("exponent out of range: " + text);
+			}
+		}
+		return negative ? -exponent : exponent;
+	}
+
+	private static long roundHalfUp(long value, long divisor) {
+		long quotient = value / divisor;
+		return value % divisor * 2 >= divisor ? quotient + 1 : quotient;
+	}
+
+	private static long pow10(int exponent) {
+		if (exponent > 18) {
+			throw new ArithmeticException("scale out of range 10^" + exponent);
+		}
+		long result = 1;
+		for (int i = 0; i < exponent; ++i) {
+			result *= 10;
+		}
+		return result;
+	}
+
+	/**
+	 * appends the price in plain notation. Use for logging only.
+	 */
+	public static StringBuilder format(long value, int scale, StringBuilder to) {
+		if (value == NONE) {
+			return to.append("none");
+		}
+		if (value < 0) {
+			to.append('-');
+			value = -value;
+		}
+		long unit = pow10(scale);
+		to.append(value / unit);
+		if (scale > 0) {
+			to.append('.');
+			String fraction = Long.toString(value % unit);
+			for (int i = fraction.length(); i < scale; ++i) {
+				to.append('0');
+			}
+			to.append(fraction);
+		}
+		return to;
+	}
+}
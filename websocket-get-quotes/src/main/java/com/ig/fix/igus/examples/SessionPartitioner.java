@@ -0,0 +1,67 @@
+package com.ig.fix.igus.examples;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads the instruments of a SecurityList over the sessions of the client,
+ * so quote intake scales with the number of sessions, each received on a
+ * thread of its own. Instruments of a SecurityGroup pinned to a session go to
+ * it, the others are spread by a hash of their SecurityID. Every instrument is
+ * quoted on exactly one session, which keeps the single writer per instrument
+ * the {@link QuoteBook} relies on.
+ */
+public class SessionPartitioner {
+	private final int sessions;
+	private final Map<String, Integer> groups;
+
+	/**
+	 * @param groups session index by SecurityGroup
+	 */
+	public SessionPartitioner(int sessions, Map<String, Integer> groups) {
+		if (sessions < 1) {
+			throw new IllegalArgumentException("at least one session is needed, not " + sessions);
+		}
+		groups.forEach((group, session) -> {
+			if (session < 0 || session >= sessions) {
+				throw new IllegalArgumentException(group + " pinned to session " + session + " of " + sessions);
+			}
+		});
+		this.sessions = sessions;
+		this.groups = Map.copyOf(groups);
+	}
+
+	public int sessions() {
+		return sessions;
+	}
+
+	/**
+	 * @return the index of the session quoting the instrument
+	 */
+	public int sessionOf(String securityId, String securityGroup) {
+		if (sessions == 1) {
+			return 0;
+		}
+		Integer pinned = securityGroup == null ? null : groups.get(securityGroup);
+		if (pinned != null) {
+			return pinned;
+		}
+		int hash = securityId.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), sessions);
+	}
+
+	/**
+	 * @return the instruments quoted on the session, in their original order
+	 */
+	public <T> List<T> partition(int session, List<T> instruments, Function<T, String> securityIdOf,
+			Function<T, String> securityGroupOf) {
+		if (sessions == 1) {
+			return instruments;
+		}
+		return instruments.stream()//
+				.filter(i -> sessionOf(securityIdOf.apply(i), securityGroupOf.apply(i)) == session)//
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,175 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Turns a SecurityList into a paced stream of subscriptions so that thousands
+ * of QuoteRequests do not hit the socket, and the server rate limiter, at once.
+ * Instruments are filtered, watchlist instruments are moved to the front, then
+ * they are added to the {@link SessionQueue} of the connection, which releases
+ * them batchSize at a time every {@link SubscriptionProperties#batchInterval()}.
+ * A SecurityList comes in fragments and every one of them, like the
+ * instruments resubscribed to, joins the same queue, so the rate holds for the
+ * session as a whole.
+ */
+@Slf4j
+public class SubscriptionScheduler {
+	private final SubscriptionProperties properties;
+	private final List<Pattern> include;
+	private final Map<String, Integer> watchlistRanks = new HashMap<>();
+
+	private final Counter sent;
+	private final AtomicInteger pending;
+	private final Timer timeToFullySubscribed;
+
+	public SubscriptionScheduler(SubscriptionProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		include = properties.getInclude().stream().map(Pattern::compile).collect(Collectors.toList());
+		for (String securityId : properties.getWatchlist()) {
+			watchlistRanks.putIfAbsent(securityId, watchlistRanks.size());
+		}
+		sent = meterRegistry.counter("quote.subscriptions.sent");
+		pending = meterRegistry.gauge("quote.subscriptions.pending", new AtomicInteger());
+		timeToFullySubscribed = Timer.builder("quote.subscriptions.time.to.fully.subscribed")//
+				.description("from receiving the SecurityList to sending the last QuoteRequest")//
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return the instruments to subscribe to, watchlist first
+	 */
+	public <T> List<T> plan(Collection<T> instruments, Function<T, String> securityIdOf,
+			Function<T, String> securityGroupOf) {
+		List<T> planned = instruments.stream()//
+				.filter(i -> accepts(securityIdOf.apply(i), securityGroupOf.apply(i)))//
+				.collect(Collectors.toList());
+		// stable, the SecurityList order is kept outside the watchlist
+		planned.sort(Comparator.comparingInt(i -> watchlistRanks.getOrDefault(securityIdOf.apply(i), Integer.MAX_VALUE)));
+		log.info("subscribing to {} of {} instruments", planned.size(), instruments.size());
+		return planned;
+	}
+
+	/**
+	 * @return true when the instrument passes the filters, so that plan would
+	 *         keep it
+	 */
+	public boolean accepts(String securityId, String securityGroup) {
+		if (watchlistRanks.containsKey(securityId)) {
+			return true;
+		}
+		if (!properties.getSecurityGroups().isEmpty() && !properties.getSecurityGroups().contains(securityGroup)) {
+			return false;
+		}
+		return include.isEmpty() || include.stream().anyMatch(p -> p.matcher(securityId).matches());
+	}
+
+	/**
+	 * one per connection, sessions are paced independently and the pending gauge
+	 * adds them up
+	 */
+	public <T> SessionQueue<T> newQueue() {
+		return new SessionQueue<>();
+	}
+
+	/**
+	 * The subscriptions of one connection, whatever is added to it is released in
+	 * order at the pace of the session.
+	 */
+	public class SessionQueue<T> {
+		private final Sinks.Many<List<T>> added = Sinks.many().unicast().onBackpressureBuffer();
+		private final AtomicInteger remaining = new AtomicInteger();
+		/**
+		 * when the queue last went from empty to not
+		 */
+		private volatile long startNanos;
+		/**
+		 * when the last batch was released, only read and written releasing one
+		 */
+		private long lastBatchNanos;
+		private int sentSinceStart;
+
+		/**
+		 * queues the planned instruments behind those already queued, nothing is
+		 * queued once the connection is gone
+		 */
+		public synchronized void add(List<T> planned) {
+			if (planned.isEmpty()) {
+				return;
+			}
+			if (remaining.getAndAdd(planned.size()) == 0) {
+				startNanos = System.nanoTime();
+			}
+			pending.addAndGet(planned.size());
+			if (added.tryEmitNext(planned).isFailure()) {
+				remaining.addAndGet(-planned.size());
+				pending.addAndGet(-planned.size());
+			}
+		}
+
+		/**
+		 * @return the queued instruments, batch by batch, to be subscribed to once
+		 *         for the connection
+		 */
+		public Flux<T> paced() {
+			long interval = properties.batchInterval().toNanos();
+			return added.asFlux()//
+					.concatMapIterable(planned -> batches(planned))//
+					// the wait is worked out as the batch comes up, not as it is queued
+					.concatMap(batch -> Mono.defer(() -> Mono.delay(Duration.ofNanos(untilNextBatch(interval))))
+							.thenReturn(batch))//
+					.doOnNext(batch -> lastBatchNanos = System.nanoTime())//
+					.concatMapIterable(batch -> batch)//
+					.doOnNext(i -> released())//
+					// a session lost mid way leaves nothing pending
+					.doOnCancel(() -> pending.addAndGet(-remaining.getAndSet(0)));
+		}
+
+		private List<List<T>> batches(List<T> planned) {
+			int batchSize = properties.getBatchSize();
+			List<List<T>> batches = new ArrayList<>((planned.size() + batchSize - 1) / batchSize);
+			for (int from = 0; from < planned.size(); from += batchSize) {
+				batches.add(planned.subList(from, Math.min(planned.size(), from + batchSize)));
+			}
+			return batches;
+		}
+
+		/**
+		 * @return how long the next batch is to wait for the interval since the
+		 *         previous one to pass, 0 for the first one or after a pause
+		 */
+		private long untilNextBatch(long interval) {
+			return lastBatchNanos == 0 ? 0 : Math.max(0, lastBatchNanos + interval - System.nanoTime());
+		}
+
+		private void released() {
+			sent.increment();
+			pending.decrementAndGet();
+			++sentSinceStart;
+			if (remaining.decrementAndGet() == 0) {
+				long elapsed = System.nanoTime() - startNanos;
+				timeToFullySubscribed.record(elapsed, TimeUnit.NANOSECONDS);
+				log.info("sent {} subscriptions in {}ms", sentSinceStart, TimeUnit.NANOSECONDS.toMillis(elapsed));
+				sentSinceStart = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append only journal of received quotes in fixed size binary records, written
+ * through memory mapped segment files so an append is a few stores into the
+ * page cache with no system call.
+ * <p>
+ * A segment is a {@value #HEADER_SIZE} byte header followed by
+ * {@value #RECORD_SIZE} byte records:
+ *
+ * <pre>
+ *   0 int    marker, written last, a record without it ends the segment
+ *   4 int    instrument index, the InstrumentRegistry id when it was recorded
+ *   8 long   receive time, System.nanoTime
+ *  16 long   BidPx, scaled
+ *  24 long   OfferPx, scaled
+ *  32 int    scale
+ *  36 byte   QuoteReqID length, 37 BidID length, 38 OfferID length
+ *  40 byte[64] QuoteReqID, 104 byte[64] BidID, 168 byte[64] OfferID
+ * </pre>
+ *
+ * The QuoteReqID is the SecurityID in these examples, so a segment can be read
+ * without the InstrumentRegistry that recorded it. The header holds the wall
+ * clock and nanoTime at which the segment was opened so receive times can be
+ * related to the time of day. When a segment is full
+ * the next one is created; segments are named after their sequence so a
+ * restart carries on after the last one instead of overwriting it. Only the
+ * newest retainSegments are kept when it is above 0.
+ * <p>
+ * {@link #replay} reads the segments back in order, at the original pace or as
+ * fast as possible, for backtesting and regression tests. nanoTime has another
+ * origin in every run, so the original pace is kept within the segments of a
+ * run, told apart by their headers, and the next run follows without waiting
+ * out the time in between.
+ */
+@Slf4j
+public class TickJournal implements AutoCloseable {
+	public static final int HEADER_SIZE = 64;
+	public static final int RECORD_SIZE = 256;
+
+	private static final int MAGIC = 0x54494B31;// TIK1
+	/**
+	 * how far the nanoTime origins of two segments may be apart and still be of
+	 * the same run, allowing for the millisecond wall clock and its adjustments
+	 */
+	private static final long SAME_RUN_NANOS = 1_000_000_000L;
+	private static final int MARKER = 0x7E1C7E1C;
+	private static final String PREFIX = "ticks-";
+	private static final String SUFFIX = ".journal";
+	private static final int ID_WIDTH = InstrumentRegistry.ID_WIDTH;
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * called for every replayed record, the quote is reused
+	 */
+	public interface Handler {
+		void onTick(long receivedNanos, int securityIndex, FastQuote quote);
+	}
+
+	private final Path directory;
+	private final int recordsPerSegment;
+	private final int retainSegments;
+
+	private long segmentSequence;
+	private MappedByteBuffer segment;
+	private int records;
+	private boolean closed;
+
+	public TickJournal(Path directory, long segmentSize, int retainSegments) {
+		this.directory = directory;
+		recordsPerSegment = (int) Math.min(Integer.MAX_VALUE / RECORD_SIZE - 1,
+				Math.max(1, (segmentSize - HEADER_SIZE) / RECORD_SIZE));
+		this.retainSegments = retainSegments;
+		try {
+			Files.createDirectories(directory);
+			List<Path> existing = segments(directory);
+			segmentSequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1));
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot open tick journal in " + directory, e);
+		}
+		roll();
+		log.info("journalling ticks to {} in segments of {} records", directory, recordsPerSegment);
+	}
+
+	/**
+	 * appends the quote, safe to call from more than one thread
+	 */
+	public synchronized void append(long receivedNanos, int securityIndex, FastQuote quote) {
+		if (closed) {
+			return;
+		}
+		if (records == recordsPerSegment) {
+			roll();
+		}
+		int offset = HEADER_SIZE + records * RECORD_SIZE;
+		MappedByteBuffer buffer = segment;
+		buffer.putInt(offset + 4, securityIndex);
+		buffer.putLong(offset + 8, receivedNanos);
+		buffer.putLong(offset + 16, quote.getBidPx());
+		buffer.putLong(offset + 24, quote.getOfferPx());
+		buffer.putInt(offset + 32, quote.getScale());
+		buffer.put(offset + 36, put(buffer, offset + 40, quote.getQuoteReqId()));
+		buffer.put(offset + 37, put(buffer, offset + 40 + ID_WIDTH, quote.getBidId()));
+		buffer.put(offset + 38, put(buffer, offset + 40 + 2 * ID_WIDTH, quote.getOfferId()));
+		// a reader mapping the same file sees either no record or all of it
+		INTS.setRelease(buffer, offset, MARKER);
+		records++;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			segment.force();
+		}
+	}
+
+	/**
+	 * feeds every record of the journal in directory to the handler
+	 *
+	 * @param originalSpeed when set the records are spaced as they were received,
+	 *                      otherwise they are replayed as fast as possible
+	 * @return the number of records replayed
+	 */
+	public static long replay(Path directory, boolean originalSpeed, Handler handler) {
+		FastQuote quote = new FastQuote();
+		long count = 0;
+		long runOrigin = 0;
+		boolean rebase = true;
+		long firstNanos = 0;
+		long startNanos = 0;
+		try {
+			for (Path path : segments(directory)) {
+				ByteBuffer buffer = map(path);
+				if (buffer.getInt(0) != MAGIC || buffer.getInt(8) != RECORD_SIZE) {
+					log.warn("skipping {}, not a tick journal segment", path);
+					continue;
+				}
+				// wall clock minus nanoTime, in nanos, the same for the segments of a run
+				long origin = buffer.getLong(16) * 1_000_000 - buffer.getLong(24);
+				if (count == 0 || Math.abs(origin - runOrigin) > SAME_RUN_NANOS) {
+					runOrigin = origin;
+					rebase = true;
+				}
+				for (int offset = HEADER_SIZE; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+					if ((int) INTS.getAcquire(buffer, offset) != MARKER) {
+						break;
+					}
+					long receivedNanos = buffer.getLong(offset + 8);
+					if (rebase) {
+						// the first record, or the first of a later run
+						firstNanos = receivedNanos;
+						startNanos = System.nanoTime();
+						rebase = false;
+					} else if (originalSpeed) {
+						long due = startNanos + (receivedNanos - firstNanos);
+						for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+							LockSupport.parkNanos(wait);
+						}
+					}
+					read(buffer, offset, quote);
+					handler.onTick(receivedNanos, buffer.getInt(offset + 4), quote);
+					count++;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot replay the tick journal in " + directory, e);
+		}
+		return count;
+	}
+
+	private void roll() {
+		if (segment != null) {
+			segment.force();
+		}
+		segmentSequence++;
+		Path path = directory.resolve(String.format("%s%012d%s", PREFIX, segmentSequence, SUFFIX));
+		long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// the mapping stays valid once the channel is closed
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} catch (IOException e) {
+			throw new UncheckedIOException("cannot create tick journal segment " + path, e);
+		}
+		segment.order(ByteOrder.LITTLE_ENDIAN);
+		segment.putInt(0, MAGIC);
+		segment.putInt(4, HEADER_SIZE);
+		segment.putInt(8, RECORD_SIZE);
+		segment.putLong(16, System.currentTimeMillis());
+		segment.putLong(24, System.nanoTime());
+		records = 0;
+		deleteOldSegments();
+	}
+
+	private void deleteOldSegments() {
+		if (retainSegments <= 0) {
+			return;
+		}
+		try {
+			List<Path> existing = segments(directory);
+			for (int i = 0; i < existing.size() - retainSegments; ++i) {
+				Files.deleteIfExists(existing.get(i));
+			}
+		} catch (IOException e) {
+			log.warn("could not delete old tick journal segments in {}", directory, e);
+		}
+	}
+
+	private static byte put(ByteBuffer buffer, int offset, AsciiSequence id) {
+		int length = Math.min(id.length(), ID_WIDTH);
+		for (int i = 0; i < length; ++i) {
+			buffer.put(offset + i, id.byteAt(i));
+		}
+		return (byte) length;
+	}
+
+	private static void read(ByteBuffer buffer, int offset, FastQuote into) {
+		into.clear();
+		into.setBidPx(buffer.getLong(offset + 16));
+		into.setOfferPx(buffer.getLong(offset + 24));
+		into.setScale(buffer.getInt(offset + 32));
+		get(buffer, offset + 40, buffer.get(offset + 36), into.getQuoteReqId());
+		get(buffer, offset + 40 + ID_WIDTH, buffer.get(offset + 37), into.getBidId());
+		get(buffer, offset + 40 + 2 * ID_WIDTH, buffer.get(offset + 38), into.getOfferId());
+	}
+
+	private static void get(ByteBuffer buffer, int offset, int length, AsciiSequence into) {
+		into.clear();
+		for (int i = 0; i < length; ++i) {
+			into.append(buffer.get(offset + i));
+		}
+	}
+
+	private static ByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	private static List<Path> segments(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<>();
+		if (!Files.isDirectory(directory)) {
+			return segments;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			stream.forEach(segments::add);
+		}
+		// zero padded, so the names sort in sequence order
+		Collections.sort(segments);
+		return segments;
+	}
+
+	private static long sequenceOf(Path segment) {
+		String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+}
@@ -0,0 +1,23 @@
+package com.ig.fix.igus.examples;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * number of decimals each instrument is priced in, keyed by SecurityID.
+ * Instruments that are not configured use the default scale.
+ */
+public class TickScales {
+	private final int defaultScale;
+	private final Map<AsciiSequence, Integer> scales = new HashMap<>();
+
+	public TickScales(int defaultScale, Map<String, Integer> scales) {
+		this.defaultScale = defaultScale;
+		scales.forEach((securityId, scale) -> this.scales.put(new AsciiSequence(securityId), scale));
+	}
+
+	public int scaleOf(AsciiSequence securityId) {
+		Integer scale = scales.get(securityId);
+		return scale == null ? defaultScale : scale;
+	}
+}
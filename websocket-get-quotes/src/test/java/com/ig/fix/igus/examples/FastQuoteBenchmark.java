@@ -0,0 +1,85 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.ig.orchestrations.us.rfed.messages.Quote;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * allocation profile of the Quote hot path: binding a Quote versus decoding
+ * into a reused {@link FastQuote}. Look at gc.alloc.rate.norm, fastQuote is
+ * expected to report 0 B/op.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.FastQuoteBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastQuoteBenchmark {
+
+	/**
+	 * the same buffer type the reactor netty websocket session hands out
+	 */
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+	private byte[] bytes;
+	private DataBuffer payload;
+	private MessageDecoder messageDecoder;
+	private FastQuoteDecoder fastQuoteDecoder;
+	private final FastQuote quoteRecord = new FastQuote();
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream in = getClass().getResourceAsStream("/payloads/quote.json")) {
+			bytes = in.readAllBytes();
+		}
+		// decoding reads without moving the read position so one buffer serves every
+		// invocation
+		payload = bufferFactory.wrap(bytes);
+		messageDecoder = new MessageDecoder(Jackson2ObjectMapperBuilder.json().build());
+		fastQuoteDecoder = new FastQuoteDecoder(new InstrumentRegistry(16, new TickScales(5, Map.of())));
+	}
+
+	@Benchmark
+	public Quote boundQuote() {
+		return (Quote) messageDecoder.decode(bufferFactory.wrap(bytes)).getBody();
+	}
+
+	@Benchmark
+	public long fastQuote() {
+		fastQuoteDecoder.decode(payload, quoteRecord);
+		return quoteRecord.getBidPx() + quoteRecord.getOfferPx();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FastQuoteBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
@@ -0,0 +1,118 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * captures the frames of two sessions with a local {@link StubExchange}, then
+ * replays them through the client with no network, logging the replay
+ * throughput and the decode and handle times.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.frame-capture.enabled=true", //
+		"client.partition.sessions=2", //
+		"client.subscription.batch-size=500", //
+		"client.subscription.pacing=10ms", //
+		"client.subscription.max-rate=100000" })
+@Slf4j
+class FrameReplayTest {
+	private static final int INSTRUMENTS = 1000;
+	private static final int REPLAYS = 5;
+	private static StubExchange stubExchange;
+	private static Path captureDirectory;
+
+	@Autowired
+	private Client client;
+	@Autowired
+	private FrameCapture frameCapture;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	@SneakyThrows
+	static void startStubExchange(DynamicPropertyRegistry registry) {
+		stubExchange = new StubExchange();
+		stubExchange.setInstruments(INSTRUMENTS);
+		stubExchange.setQuoteRate(50_000);
+		stubExchange.setBurstSize(500);
+		stubExchange.start();
+		captureDirectory = Files.createTempDirectory("frames");
+		registry.add("URL", () -> stubExchange.url());
+		registry.add("client.frame-capture.directory", () -> captureDirectory.toString());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void replaysCapturedFrames() throws Exception {
+		assertTrue(await(Duration.ofSeconds(10), () -> stubExchange.getQuoteRequests().get() == INSTRUMENTS),
+				"subscribed to " + stubExchange.getQuoteRequests().get() + " instruments");
+		TimeUnit.SECONDS.sleep(1);
+		client.stopConnection();
+		frameCapture.close();
+
+		Path capture;
+		try (Stream<Path> files = Files.list(captureDirectory)) {
+			capture = files.findFirst().orElseThrow();
+		}
+		long[] outboundBySession = new long[2];
+		long outbound = FrameCapture.replay(capture, FrameCapture.OUTBOUND, (session, nanos, payload) -> {
+			outboundBySession[session]++;
+		});
+		assertTrue(outbound > INSTRUMENTS, outbound + " outbound frames");
+		assertTrue(outboundBySession[0] > 0 && outboundBySession[1] > 0,
+				outboundBySession[0] + " and " + outboundBySession[1] + " outbound frames by session");
+
+		Timer decodeTime = meterRegistry.timer("websocket.decode.time");
+		Timer handleTime = meterRegistry.timer("websocket.handle.time");
+		long frames = 0;
+		for (int i = 0; i < REPLAYS; ++i) {
+			long countBefore = decodeTime.count();
+			long startNanos = System.nanoTime();
+			frames = client.replayFrames(capture);
+			double seconds = (System.nanoTime() - startNanos) / 1e9;
+			assertEquals(frames, decodeTime.count() - countBefore);
+			log.info("replayed {} frames of {} in {}ms, {} frames/s", frames, capture, (long) (seconds * 1000),
+					(long) (frames / seconds));
+		}
+		log.info("decode mean={}us max={}us, handle mean={}us max={}us", (long) decodeTime.mean(TimeUnit.MICROSECONDS),
+				(long) decodeTime.max(TimeUnit.MICROSECONDS), (long) handleTime.mean(TimeUnit.MICROSECONDS),
+				(long) handleTime.max(TimeUnit.MICROSECONDS));
+		assertTrue(frames > INSTRUMENTS, frames + " inbound frames");
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
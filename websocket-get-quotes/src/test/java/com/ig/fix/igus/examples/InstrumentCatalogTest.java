@@ -0,0 +1,125 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * starts with a catalog holding most instruments of a local
+ * {@link StubExchange} plus some it no longer lists, and a SecurityList that
+ * comes late. The catalog instruments are quoted before the SecurityList
+ * arrives, the listed ones are each subscribed to once, and once settled the
+ * saved catalog holds exactly the listed instruments.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.instrument-catalog.enabled=true", //
+		"client.instrument-catalog.settle-time=500ms", //
+		"client.subscription.batch-size=500", //
+		"client.subscription.pacing=10ms", //
+		"client.subscription.max-rate=100000" })
+class InstrumentCatalogTest {
+	private static final int INSTRUMENTS = 200;
+	private static final int CATALOGUED = 150;
+	private static final int DELISTED = 5;
+	private static StubExchange stubExchange;
+	private static Path catalogFile;
+
+	@Autowired
+	private QuoteBook quoteBook;
+
+	@DynamicPropertySource
+	static void startStubExchange(DynamicPropertyRegistry registry) throws IOException {
+		catalogFile = Files.createTempDirectory("instrument-catalog").resolve("catalog.bin");
+		List<InstrumentCatalog.Instrument> instruments = new ArrayList<>();
+		for (int i = 0; i < CATALOGUED; ++i) {
+			instruments.add(instrument(securityId(i)));
+		}
+		for (int i = 0; i < DELISTED; ++i) {
+			instruments.add(instrument(String.format("CS.D.GONE%d.CZD.IP", i)));
+		}
+		try (InstrumentCatalog catalog = new InstrumentCatalog(catalogFile, Duration.ofDays(1), Duration.ZERO)) {
+			catalog.begin("seed", instrument -> true);
+			catalog.listed("seed", instruments);
+		}
+		stubExchange = new StubExchange();
+		stubExchange.setInstruments(INSTRUMENTS);
+		stubExchange.setSecurityListDelay(Duration.ofSeconds(3));
+		stubExchange.setQuoteRate(1000);
+		stubExchange.start();
+		registry.add("URL", () -> stubExchange.url());
+		registry.add("client.instrument-catalog.file", () -> catalogFile.toString());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void quotesCatalogInstrumentsBeforeTheSecurityList() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(3), () -> quoteBook.size() > 0), "no quote");
+		assertEquals(0, stubExchange.getSecurityListsSent().get(), "quoted only after the SecurityList");
+
+		// the delisted instruments of the catalog were subscribed to before the
+		// SecurityList told otherwise, the listed ones only once
+		assertTrue(await(Duration.ofSeconds(10),
+				() -> stubExchange.getQuoteRequests().get() == INSTRUMENTS + DELISTED),
+				"subscribed to " + stubExchange.getQuoteRequests().get() + " instruments");
+		TimeUnit.SECONDS.sleep(1);
+		assertEquals(INSTRUMENTS + DELISTED, stubExchange.getQuoteRequests().get());
+
+		Set<String> listed = new TreeSet<>();
+		for (int i = 0; i < INSTRUMENTS; ++i) {
+			listed.add(securityId(i));
+		}
+		assertTrue(await(Duration.ofSeconds(5), () -> listed.equals(saved())), "saved " + saved());
+	}
+
+	private static Set<String> saved() {
+		try (InstrumentCatalog catalog = new InstrumentCatalog(catalogFile, Duration.ofDays(1), Duration.ZERO)) {
+			return catalog.instruments().stream()//
+					.map(InstrumentCatalog.Instrument::getSecurityId)//
+					.collect(Collectors.toCollection(TreeSet::new));
+		}
+	}
+
+	private static String securityId(int i) {
+		return String.format("CS.D.S%05d.CZD.IP", i);
+	}
+
+	private static InstrumentCatalog.Instrument instrument(String securityId) {
+		return new InstrumentCatalog.Instrument(securityId, "MARKETPLACE_ASSIGNED_IDENTIFIER", "CURRENCIES", null,
+				Double.NaN, "USD", null);
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
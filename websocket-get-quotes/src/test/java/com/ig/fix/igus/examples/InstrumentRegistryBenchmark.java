@@ -0,0 +1,102 @@
+package com.ig.fix.igus.examples;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * per quote cost of resolving the QuoteReqID copied out of a frame to the slot
+ * and tick scale of its instrument: {@link InstrumentRegistry#intern} against
+ * the QuoteBook map of slots plus the TickScales map the quote path used
+ * before. Both walk the instruments in turn from a reused
+ * {@link AsciiSequence}, half of them with a configured tick scale.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.InstrumentRegistryBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentRegistryBenchmark {
+	@Param({ "100", "4000" })
+	private int instruments;
+
+	private AsciiSequence[] securityIds;
+	private final AsciiSequence quoteReqId = new AsciiSequence(32);
+	private int next;
+
+	private InstrumentRegistry instrumentRegistry;
+	private final Map<AsciiSequence, Integer> slots = new ConcurrentHashMap<>();
+	private TickScales tickScales;
+
+	@Setup
+	public void setup() {
+		Map<String, Integer> scales = new HashMap<>();
+		securityIds = new AsciiSequence[instruments];
+		for (int i = 0; i < instruments; ++i) {
+			String securityId = String.format("CS.D.%06d.CZD.IP", i);
+			securityIds[i] = new AsciiSequence(securityId);
+			if (i % 2 == 0) {
+				scales.put(securityId, 3);
+			}
+		}
+		tickScales = new TickScales(5, scales);
+		instrumentRegistry = new InstrumentRegistry(instruments, tickScales);
+		for (int i = 0; i < instruments; ++i) {
+			instrumentRegistry.register(securityIds[i].toString(), null, null, null, Double.NaN, null, null);
+			slots.put(securityIds[i], i);
+		}
+	}
+
+	@Benchmark
+	public int registry() {
+		int id = instrumentRegistry.intern(nextQuoteReqId());
+		return id + instrumentRegistry.scaleOf(id);
+	}
+
+	@Benchmark
+	public int maps() {
+		AsciiSequence securityId = nextQuoteReqId();
+		return slots.get(securityId) + tickScales.scaleOf(securityId);
+	}
+
+	/**
+	 * copied as the decoder copies it out of a frame
+	 */
+	private AsciiSequence nextQuoteReqId() {
+		AsciiSequence securityId = securityIds[next];
+		next = next + 1 == instruments ? 0 : next + 1;
+		quoteReqId.clear();
+		for (int i = 0; i < securityId.length(); ++i) {
+			quoteReqId.append(securityId.byteAt(i));
+		}
+		return quoteReqId;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(InstrumentRegistryBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
@@ -0,0 +1,107 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.groups.SecListGrp;
+import com.ig.orchestrations.us.rfed.messages.Quote;
+import com.ig.orchestrations.us.rfed.messages.SecurityList;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * compares the previous decode path (payload to String, readTree, treeToValue)
+ * with {@link MessageDecoder} on recorded payloads, and with SecurityList
+ * entries streamed into the slim form the client keeps.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.MessageDecoderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDecoderBenchmark {
+
+	@Param({ "quote.json", "security-list.json" })
+	private String payload;
+
+	/**
+	 * the same buffer type the reactor netty websocket session hands out
+	 */
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+	private byte[] bytes;
+	private ObjectMapper objectMapper;
+	private MessageDecoder messageDecoder;
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream in = getClass().getResourceAsStream("/payloads/" + payload)) {
+			bytes = in.readAllBytes();
+		}
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		messageDecoder = new MessageDecoder(objectMapper);
+	}
+
+	@Benchmark
+	public Object treeThenBind() throws IOException {
+		DataBuffer buffer = bufferFactory.wrap(bytes);
+		String text = buffer.toString(StandardCharsets.UTF_8);
+		JsonNode jsonNode = objectMapper.readTree(text);
+		String msgType = Optional.ofNullable(jsonNode.get("MsgType")).map(i -> i.asText()).orElse("");
+		switch (msgType) {
+		case "Quote":
+			return objectMapper.treeToValue(jsonNode, Quote.class);
+		case "SecurityList":
+			return objectMapper.treeToValue(jsonNode, SecurityList.class);
+		default:
+			return jsonNode;
+		}
+	}
+
+	@Benchmark
+	public Object singlePass() {
+		return messageDecoder.decode(bufferFactory.wrap(bytes));
+	}
+
+	@Benchmark
+	public Object streamed() {
+		return messageDecoder.decode(bufferFactory.wrap(bytes), grp -> {
+			SecListGrp admitted = new SecListGrp();
+			admitted.setSecurityID(grp.getSecurityID());
+			admitted.setSecurityIDSource(grp.getSecurityIDSource());
+			admitted.setSecurityGroup(grp.getSecurityGroup());
+			return admitted;
+		});
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(MessageDecoderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,115 @@
+package com.ig.fix.igus.examples;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.fields.ApplVerID;
+import com.ig.orchestrations.us.rfed.fields.MsgType;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
+import com.ig.orchestrations.us.rfed.fields.SubscriptionRequestType;
+import com.ig.orchestrations.us.rfed.groups.QuotReqGrp;
+import com.ig.orchestrations.us.rfed.groups.SecListGrp;
+import com.ig.orchestrations.us.rfed.messages.QuoteRequest;
+
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * QuoteRequest to websocket frame payload: objectToJson followed by
+ * session.textMessage versus {@link OutboundEncoder}'s template written into a
+ * pooled buffer.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.OutboundEncoderBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundEncoderBenchmark {
+
+	/**
+	 * the allocator reactor netty hands to the websocket session
+	 */
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+	private ObjectMapper objectMapper;
+	private OutboundEncoder outboundEncoder;
+	private QuoteRequest quoteRequest;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		outboundEncoder = new OutboundEncoder(objectMapper, grp -> toQuoteRequest(grp));
+		SecListGrp grp = new SecListGrp();
+		grp.setSecurityID("CS.D.GBPUSD.CZD.IP");
+		grp.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+		quoteRequest = toQuoteRequest(grp);
+	}
+
+	/**
+	 * as Client.toQuoteRequest
+	 */
+	private static QuoteRequest toQuoteRequest(SecListGrp grp) {
+		QuoteRequest req = new QuoteRequest();
+		req.setSendingTime(new Date());
+		req.setApplVerID(ApplVerID.FIX_50_SP_2);
+		req.setMsgType(MsgType.QUOTE_REQUEST);
+		req.setQuoteReqID(grp.getSecurityID());
+		req.setSubscriptionRequestType(SubscriptionRequestType.SNAPSHOT);
+		QuotReqGrp quotReqGrp = new QuotReqGrp();
+		quotReqGrp.setSecurityID(grp.getSecurityID());
+		quotReqGrp.setSecurityIDSource(grp.getSecurityIDSource());
+		req.setQuotReqGrp(List.of(quotReqGrp));
+		return req;
+	}
+
+	@Benchmark
+	public int jackson() throws JsonProcessingException {
+		quoteRequest.setSendingTime(new Date());
+		DataBuffer payload = bufferFactory
+				.wrap(objectMapper.writeValueAsString(quoteRequest).getBytes(StandardCharsets.UTF_8));
+		int size = payload.readableByteCount();
+		DataBufferUtils.release(payload);
+		return size;
+	}
+
+	@Benchmark
+	public int template() {
+		quoteRequest.setSendingTime(new Date());
+		DataBuffer payload = outboundEncoder.encode(quoteRequest, bufferFactory);
+		int size = payload.readableByteCount();
+		DataBufferUtils.release(payload);
+		return size;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OutboundEncoderBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
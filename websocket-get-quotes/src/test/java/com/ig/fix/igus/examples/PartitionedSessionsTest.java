@@ -0,0 +1,89 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * spreads the instruments of a local {@link StubExchange} over three sessions,
+ * CURRENCIES pinned to the first, and checks every instrument is subscribed to
+ * once and quoted into the one book.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.partition.sessions=3", //
+		"client.partition.groups.CURRENCIES=0", //
+		"client.subscription.batch-size=500", //
+		"client.subscription.pacing=10ms", //
+		"client.subscription.max-rate=100000" })
+@Slf4j
+class PartitionedSessionsTest {
+	private static final int INSTRUMENTS = 3000;
+	private static StubExchange stubExchange;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private QuoteBook quoteBook;
+
+	@DynamicPropertySource
+	static void startStubExchange(DynamicPropertyRegistry registry) {
+		stubExchange = new StubExchange();
+		stubExchange.setInstruments(INSTRUMENTS);
+		stubExchange.setQuoteRate(50_000);
+		stubExchange.setBurstSize(500);
+		stubExchange.start();
+		registry.add("URL", () -> stubExchange.url());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void spreadsInstrumentsOverSessions() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(10), () -> stubExchange.getQuoteRequests().get() == INSTRUMENTS),
+				"subscribed to " + stubExchange.getQuoteRequests().get() + " instruments");
+		assertEquals(3, stubExchange.getConnections().get());
+		// one outbound gauge per session, not one following the latest connection
+		assertEquals(3, meterRegistry.find("websocket.outbound.pending").gauges().size());
+
+		Counter quotesReceived = meterRegistry.counter("websocket.messages.received", "type", "Quote");
+		double receivedBefore = quotesReceived.count();
+		long startNanos = System.nanoTime();
+		TimeUnit.SECONDS.sleep(2);
+		long sent = stubExchange.getQuotesSent().get();
+		assertTrue(await(Duration.ofSeconds(5), () -> quotesReceived.count() >= sent),
+				"received " + quotesReceived.count() + " of " + sent + " quotes");
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		log.info("{} quotes/s over 3 sessions", (long) ((quotesReceived.count() - receivedBefore) / seconds));
+		assertEquals(INSTRUMENTS, quoteBook.size());
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,92 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * drops the connection to a local {@link StubExchange} once every instrument
+ * is quoted, one of them being rejected, and checks the session established
+ * again requests the instruments it had, and only those, and times the
+ * recovery.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.reconnect.min-backoff=100ms", //
+		"client.subscription.batch-size=500", //
+		"client.subscription.pacing=10ms", //
+		"client.subscription.max-rate=100000" })
+class ResubscriptionTest {
+	private static final int INSTRUMENTS = 300;
+	private static final String REJECTED = "CS.D.S00007.CZD.IP";
+	private static StubExchange stubExchange;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void startStubExchange(DynamicPropertyRegistry registry) {
+		stubExchange = new StubExchange();
+		stubExchange.setInstruments(INSTRUMENTS);
+		stubExchange.setRejected(Set.of(REJECTED));
+		stubExchange.setQuoteRate(10_000);
+		stubExchange.setBurstSize(100);
+		stubExchange.start();
+		registry.add("URL", () -> stubExchange.url());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void resubscribesWhatTheSessionHad() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(10), () -> subscriptions("active") == INSTRUMENTS - 1),
+				subscriptions("active") + " active subscriptions");
+		assertEquals(1, subscriptions("rejected"));
+		assertEquals(INSTRUMENTS, stubExchange.getQuoteRequests().get());
+
+		stubExchange.dropConnections();
+		Timer recoveryTime = meterRegistry.timer("quote.subscriptions.recovery.time");
+		assertTrue(await(Duration.ofSeconds(10), () -> recoveryTime.count() == 1), "not recovered");
+		assertEquals(2, stubExchange.getConnections().get());
+		assertEquals(INSTRUMENTS - 1, subscriptions("active"));
+
+		// neither the rejected instrument nor the SecurityList of the new session
+		// are requested again
+		TimeUnit.SECONDS.sleep(1);
+		assertEquals(INSTRUMENTS + INSTRUMENTS - 1, stubExchange.getQuoteRequests().get());
+		assertEquals(INSTRUMENTS - 1, meterRegistry.counter("quote.subscriptions.resubscribed").count());
+	}
+
+	private int subscriptions(String state) {
+		return (int) meterRegistry.get("quote.subscriptions").tag("state", state).gauge().value();
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,76 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * parses prices as a quote carries them, and those no quote should carry: a
+ * price that does not fit the scale is a NumberFormatException, never an
+ * ArithmeticException the session would close on.
+ */
+class ScaledDecimalTest {
+
+	@Test
+	void parsesPlainAndExponentNotation() {
+		assertEquals(139012, ScaledDecimal.parse("1.39012", 5));
+		assertEquals(139012, ScaledDecimal.parse("+1.39012", 5));
+		assertEquals(-139012, ScaledDecimal.parse("-1.39012", 5));
+		assertEquals(139000, ScaledDecimal.parse("1.39", 5));
+		assertEquals(13901200, ScaledDecimal.parse("1.39012E+2", 5));
+		assertEquals(13901200, ScaledDecimal.parse("1.39012e2", 5));
+		assertEquals(139, ScaledDecimal.parse("139012E-3", 0));
+		assertEquals(0, ScaledDecimal.parse("0", 5));
+		assertEquals(ScaledDecimal.NONE, ScaledDecimal.parse("", 5));
+	}
+
+	@Test
+	void roundsHalfUpToTheScale() {
+		assertEquals(139012, ScaledDecimal.parse("1.390115", 5));
+		assertEquals(139011, ScaledDecimal.parse("1.3901149", 5));
+		assertEquals(-139012, ScaledDecimal.parse("-1.390115", 5));
+		assertEquals(1, ScaledDecimal.parse("0.5", 0));
+		assertEquals(0, ScaledDecimal.parse("0.49999", 0));
+		assertEquals(1, ScaledDecimal.parse("5E-1", 0));
+	}
+
+	@Test
+	void takesExponentsPastWhatALongHolds() {
+		assertEquals(0, ScaledDecimal.parse("1E-30", 5));
+		assertEquals(0, ScaledDecimal.parse("0E+30", 5));
+		assertEquals(1, ScaledDecimal.parse("5E-19", 18));
+		// the first digit dropped decides, 19 places down
+		assertEquals(1, ScaledDecimal.parse("5000000000000000000E-19", 0));
+		assertEquals(0, ScaledDecimal.parse("4999999999999999999E-19", 0));
+		assertEquals(1000000000000000000L, ScaledDecimal.parse("1E+18", 0));
+	}
+
+	@Test
+	void refusesWhatDoesNotFitALong() {
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1E+19", 0));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1E+14", 5));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("99999999999999999999", 0));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1.00000000000000000001", 5));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1E99999999999", 5));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1.2.3", 5));
+		assertThrows(NumberFormatException.class, () -> ScaledDecimal.parse("1,2", 5));
+	}
+
+	@Test
+	void leavesOutAPriceThatDoesNotParse() {
+		long malformed = ScaledDecimal.malformed();
+		assertEquals(ScaledDecimal.NONE, ScaledDecimal.parseOrNone("1E+19", 0));
+		assertEquals(ScaledDecimal.NONE, ScaledDecimal.parseOrNone("bid", 5));
+		assertEquals(139012, ScaledDecimal.parseOrNone("1.39012", 5));
+		assertEquals(malformed + 2, ScaledDecimal.malformed());
+	}
+
+	@Test
+	void formatsPlainNotation() {
+		assertEquals("1.39012", ScaledDecimal.format(139012, 5, new StringBuilder()).toString());
+		assertEquals("-0.00012", ScaledDecimal.format(-12, 5, new StringBuilder()).toString());
+		assertEquals("139", ScaledDecimal.format(139, 0, new StringBuilder()).toString());
+		assertEquals("none", ScaledDecimal.format(ScaledDecimal.NONE, 5, new StringBuilder()).toString());
+	}
+}
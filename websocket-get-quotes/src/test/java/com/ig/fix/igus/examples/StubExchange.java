@@ -0,0 +1,275 @@
+package com.ig.fix.igus.examples;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+/**
+ * An exchange on localhost speaking FIXP over websocket, enough of it to run
+ * the clients end to end without an IG endpoint:
+ * <ul>
+ * <li>Negotiate and Establish are accepted whatever the credentials, then
+ * UnsequencedHeartbeats are sent every keepaliveInterval</li>
+ * <li>SecurityListRequest is answered with generated instruments, in
+ * SecurityLists of up to securityListFragment instruments to stay under the
+ * maximum frame size of the client, securityListDelay after the request</li>
+ * <li>every QuoteRequest adds its instrument to a quote stream of quoteRate
+ * quotes per second across all instruments of the session, sent in back to
+ * back bursts of burstSize, unless its SecurityID is in rejected which gets a
+ * QuoteRequestReject instead</li>
+ * <li>every NewOrderSingle is acknowledged and filled executionLatency
+ * later</li>
+ * </ul>
+ * Set the properties before {@link #start()}. {@link #dropConnections()}
+ * closes every open session, as a network failure would.
+ */
+@Slf4j
+public class StubExchange implements AutoCloseable {
+	/**
+	 * size of the SecurityList
+	 */
+	@Setter
+	private int instruments = 10;
+	@Setter
+	private int securityListFragment = 100;
+	@Setter
+	private Duration securityListDelay = Duration.ZERO;
+	@Setter
+	private Duration keepaliveInterval = Duration.ofSeconds(1);
+	/**
+	 * quotes per second of a session, 0 for none
+	 */
+	@Setter
+	private int quoteRate = 100;
+	@Setter
+	private int burstSize = 1;
+	@Setter
+	private Set<String> rejected = Set.of();
+	/**
+	 * from receiving a NewOrderSingle to its ExecutionReports
+	 */
+	@Setter
+	private Duration executionLatency = Duration.ZERO;
+
+	@Getter
+	private final AtomicInteger connections = new AtomicInteger();
+	@Getter
+	private final AtomicInteger securityListsSent = new AtomicInteger();
+	@Getter
+	private final AtomicInteger quoteRequests = new AtomicInteger();
+	/**
+	 * System.nanoTime() of every QuoteRequest received
+	 */
+	@Getter
+	private final List<Long> quoteRequestNanos = Collections.synchronizedList(new ArrayList<>());
+	@Getter
+	private final AtomicLong quotesSent = new AtomicLong();
+	@Getter
+	private final AtomicInteger ordersReceived = new AtomicInteger();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Sinks.Many<Boolean> drops = Sinks.many().multicast().directBestEffort();
+	private DisposableServer server;
+
+	public StubExchange start() {
+		server = HttpServer.create().host("localhost").port(0)//
+				.route(routes -> routes.ws("/", this::handle))//
+				.bindNow();
+		return this;
+	}
+
+	/**
+	 * @return the URL for the client
+	 */
+	public String url() {
+		return "ws://localhost:" + server.port() + "/";
+	}
+
+	public void dropConnections() {
+		drops.tryEmitNext(true);
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private Publisher<Void> handle(WebsocketInbound in, WebsocketOutbound out) {
+		connections.incrementAndGet();
+		StubSession session = new StubSession();
+		return out.sendString(in.receive().asString()//
+				.flatMap(frame -> session.reply(frame))//
+				.publish(replies -> Flux.merge(replies, //
+						session.heartbeats().takeUntilOther(replies.ignoreElements()), //
+						session.quotes().takeUntilOther(replies.ignoreElements())))//
+				.takeUntilOther(drops.asFlux()));
+	}
+
+	private class StubSession {
+		private final String sessionId = UUID.randomUUID().toString();
+		private final Sinks.One<Void> established = Sinks.one();
+		/**
+		 * SecurityIDs subscribed to, guarded by itself
+		 */
+		private final List<String> subscriptions = new ArrayList<>();
+		private int nextQuote;
+		private long quoteSeq;
+		private final AtomicLong orderSeq = new AtomicLong();
+
+		Flux<String> reply(String frame) {
+			JsonNode msg = readTree(frame);
+			String messageType = msg.path("MessageType").asText();
+			switch (messageType) {
+			case "Negotiate":
+				return Flux.just("{\"MessageType\":\"NegotiationResponse\",\"SessionId\":\"" + sessionId
+						+ "\",\"RequestTimestamp\":" + msg.path("Timestamp").asLong() + "}");
+			case "Establish":
+				established.tryEmitEmpty();
+				return Flux.just("{\"MessageType\":\"EstablishmentAck\",\"SessionId\":\"" + sessionId
+						+ "\",\"RequestTimestamp\":" + msg.path("Timestamp").asLong() + ",\"KeepaliveInterval\":"
+						+ keepaliveInterval.toMillis() + "}");
+			case "":
+				break;
+			default:
+				// UnsequencedHeartbeat
+				return Flux.empty();
+			}
+			switch (msg.path("MsgType").asText()) {
+			case "SecurityListRequest":
+				return securityLists(msg.path("SecurityReqID").asText());
+			case "QuoteRequest":
+				quoteRequests.incrementAndGet();
+				quoteRequestNanos.add(System.nanoTime());
+				String securityID = msg.path("QuotReqGrp").path(0).path("SecurityID").asText();
+				if (rejected.contains(securityID)) {
+					return Flux.just("{\"MsgType\":\"QuoteRequestReject\",\"ApplVerID\":\"FIX50SP2\",\"QuoteReqID\":"
+							+ msg.path("QuoteReqID").toString() + ",\"Text\":\"unknown instrument\"}");
+				}
+				synchronized (subscriptions) {
+					subscriptions.add(securityID);
+				}
+				return Flux.empty();
+			case "NewOrderSingle":
+				ordersReceived.incrementAndGet();
+				Flux<String> executionReports = Flux.just(executionReport(msg, "New", "New"),
+						executionReport(msg, "Trade", "Filled"));
+				return executionLatency.isZero() ? executionReports
+						: Mono.delay(executionLatency).thenMany(executionReports);
+			default:
+				log.info("stub ignoring {}", frame);
+				return Flux.empty();
+			}
+		}
+
+		Flux<String> heartbeats() {
+			return established.asMono()
+					.thenMany(Flux.interval(keepaliveInterval).onBackpressureDrop()
+							.map(tick -> "{\"MessageType\":\"UnsequencedHeartbeat\"}"));
+		}
+
+		Flux<String> quotes() {
+			if (quoteRate <= 0) {
+				return Flux.empty();
+			}
+			Duration burstInterval = Duration.ofNanos(1_000_000_000L * burstSize / quoteRate);
+			return established.asMono()
+					.thenMany(Flux.interval(burstInterval).onBackpressureDrop().concatMapIterable(tick -> burst()));
+		}
+
+		private List<String> burst() {
+			List<String> quotes = new ArrayList<>(burstSize);
+			synchronized (subscriptions) {
+				for (int i = 0; i < burstSize && !subscriptions.isEmpty(); ++i) {
+					nextQuote = (nextQuote + 1) % subscriptions.size();
+					quotes.add(quote(subscriptions.get(nextQuote), ++quoteSeq));
+				}
+			}
+			quotesSent.addAndGet(quotes.size());
+			return quotes;
+		}
+
+		private String quote(String securityID, long seq) {
+			long mid = 100_000 + ThreadLocalRandom.current().nextInt(100_000);
+			return "{\"MsgType\":\"Quote\",\"ApplVerID\":\"FIX50SP2\",\"QuoteReqID\":\"" + securityID
+					+ "\",\"QuoteID\":\"" + securityID + "-" + seq + "\",\"SecurityID\":\"" + securityID
+					+ "\",\"SecurityIDSource\":\"MarketplaceAssignedIdentifier\",\"BidID\":\"" + securityID + "-B-" + seq
+					+ "\",\"BidPx\":" + BigDecimal.valueOf(mid - 5, 5)
+					+ ",\"OfferID\":\"" + securityID + "-O-" + seq + "\",\"OfferPx\":"
+					+ BigDecimal.valueOf(mid + 5, 5) + "}";
+		}
+
+		private String executionReport(JsonNode order, String execType, String ordStatus) {
+			boolean filled = "Filled".equals(ordStatus);
+			String orderQty = order.path("OrderQty").asText("1");
+			return "{\"MsgType\":\"ExecutionReport\",\"ApplVerID\":\"FIX50SP2\",\"ClOrdID\":"
+					+ order.path("ClOrdID").toString() + ",\"OrderID\":\"" + sessionId + "-" + order.path("ClOrdID").asText()
+					+ "\",\"ExecID\":\"" + sessionId + "-" + orderSeq.incrementAndGet() + "\",\"ExecType\":\"" + execType
+					+ "\",\"OrdStatus\":\"" + ordStatus + "\",\"SecurityID\":" + order.path("SecurityID").toString()
+					+ ",\"Side\":" + order.path("Side").toString() + ",\"OrderQty\":" + orderQty
+					+ (filled ? ",\"LastPx\":1.39012,\"LastQty\":" + orderQty + ",\"CumQty\":" + orderQty + ",\"LeavesQty\":0"
+							: ",\"CumQty\":0,\"LeavesQty\":" + orderQty)
+					+ "}";
+		}
+	}
+
+	private Flux<String> securityLists(String securityReqID) {
+		Flux<String> securityLists = Flux.range(0, (instruments + securityListFragment - 1) / securityListFragment)//
+				.map(fragment -> securityList(securityReqID, fragment * securityListFragment,
+						Math.min(instruments, (fragment + 1) * securityListFragment)))//
+				.doOnNext(securityList -> securityListsSent.incrementAndGet());
+		return securityListDelay.isZero() ? securityLists : Mono.delay(securityListDelay).thenMany(securityLists);
+	}
+
+	private String securityList(String securityReqID, int from, int to) {
+		StringBuilder json = new StringBuilder(256 * (to - from));
+		json.append("{\"MsgType\":\"SecurityList\",\"ApplVerID\":\"FIX50SP2\",\"SecurityReqID\":\"")
+				.append(securityReqID).append("\",\"SecurityResponseID\":\"").append(securityReqID)
+				.append("\",\"SecurityRequestResult\":\"ValidRequest\",\"SecListGrp\":[");
+		for (int i = from; i < to; ++i) {
+			if (i > from) {
+				json.append(',');
+			}
+			String name = String.format("S%05d", i);
+			json.append("{\"Symbol\":\"").append(name).append("/USD\",\"SecurityID\":\"CS.D.").append(name)
+					.append(".CZD.IP\",\"SecurityIDSource\":\"MarketplaceAssignedIdentifier\",\"SecAltIDGrp\":[],")
+					.append("\"SecurityGroup\":\"").append(i % 3 == 0 ? "CURRENCIES" : i % 3 == 1 ? "INDICES" : "SHARES")
+					.append("\",\"ContractMultiplier\":100000.0,\"SecurityDesc\":\"").append(name)
+					.append(" Contract\",\"ShortSaleRestriction\":\"NoRestrictions\",")
+					.append("\"AttrbGrp\":[{\"InstrAttribType\":\"DealableCurrencies\",\"InstrAttribValue\":\"USD\"}],")
+					.append("\"UndInstrmtGrp\":[],\"Currency\":\"USD\"}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private JsonNode readTree(String frame) {
+		try {
+			return objectMapper.readTree(frame);
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("this should not happen for " + frame, e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * subscribes to a SecurityList a local {@link StubExchange} sends in many
+ * fragments and checks the QuoteRequests of all of them together stay under
+ * max-rate.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.subscription.batch-size=10", //
+		"client.subscription.pacing=10ms", //
+		"client.subscription.max-rate=" + SubscriptionPacingTest.MAX_RATE })
+class SubscriptionPacingTest {
+	static final int MAX_RATE = 100;
+	private static final int BATCH_SIZE = 10;
+	private static final int INSTRUMENTS = 200;
+	private static StubExchange stubExchange;
+
+	@DynamicPropertySource
+	static void startStubExchange(DynamicPropertyRegistry registry) {
+		stubExchange = new StubExchange();
+		stubExchange.setInstruments(INSTRUMENTS);
+		stubExchange.setSecurityListFragment(10);
+		stubExchange.setQuoteRate(0);
+		stubExchange.start();
+		registry.add("URL", () -> stubExchange.url());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void pacesEveryFragmentAsOneStream() throws InterruptedException {
+		assertTrue(await(Duration.ofSeconds(10), () -> stubExchange.getQuoteRequests().get() == INSTRUMENTS),
+				stubExchange.getQuoteRequests().get() + " QuoteRequests");
+		assertEquals(INSTRUMENTS / 10, stubExchange.getSecurityListsSent().get());
+
+		List<Long> nanos;
+		synchronized (stubExchange.getQuoteRequestNanos()) {
+			nanos = new ArrayList<>(stubExchange.getQuoteRequestNanos());
+		}
+		// a batch may go out right at either end of a second. The first one is left
+		// out, the stub reads it late while it is still sending the SecurityList
+		int mostInOneSecond = 0;
+		for (int first = BATCH_SIZE, last = BATCH_SIZE; last < nanos.size(); ++last) {
+			while (nanos.get(last) - nanos.get(first) >= TimeUnit.SECONDS.toNanos(1)) {
+				++first;
+			}
+			mostInOneSecond = Math.max(mostInOneSecond, last - first + 1);
+		}
+		assertTrue(mostInOneSecond <= MAX_RATE + BATCH_SIZE, mostInOneSecond + " QuoteRequests in one second");
+		long elapsed = nanos.get(nanos.size() - 1) - nanos.get(0);
+		long batchInterval = TimeUnit.SECONDS.toNanos(1) * BATCH_SIZE / MAX_RATE;
+		assertTrue(elapsed >= (INSTRUMENTS / BATCH_SIZE - 2) * batchInterval,
+				TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms from the first QuoteRequest to the last");
+	}
+
+	private static boolean await(Duration timeout, BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		return true;
+	}
+}
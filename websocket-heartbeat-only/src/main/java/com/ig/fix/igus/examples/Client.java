@@ -4,7 +4,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
-import java.util.Optional;
 import java.util.UUID;
 
 import javax.annotation.PostConstruct;
@@ -14,22 +13,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ig.orchestrations.fixp.Establish;
+import com.ig.orchestrations.fixp.EstablishmentAck;
 import com.ig.orchestrations.fixp.FlowType;
 import com.ig.orchestrations.fixp.IgExtensionCredentials;
 import com.ig.orchestrations.fixp.Negotiate;
 import com.ig.orchestrations.fixp.NegotiationResponse;
 import com.ig.orchestrations.fixp.UnsequencedHeartbeat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 @Component
 @ConfigurationProperties(prefix = "client")
@@ -45,56 +45,97 @@ public class Client {
 	@Setter
 	private String password;
 	@Setter
-	private Duration reconnectInterval;
+	private ReconnectProperties reconnect = new ReconnectProperties();
 	@Setter
 	private Duration heartbeatInterval;
+	/**
+	 * keepalive intervals without receiving anything before the connection is
+	 * considered dead
+	 */
+	@Setter
+	private int missedKeepalives = 3;
+	/**
+	 * log one in this many payloads, 0 for none
+	 */
+	@Setter
+	private int payloadSampleEvery;
 
 	@Autowired
 	private ObjectMapper objectMapper;
+	@Autowired
+	private MessageDecoder messageDecoder;
+	@Autowired
+	private MeterRegistry meterRegistry;
 
+	private ReconnectEngine reconnectEngine;
 	private Disposable connectionDisposable;
 
+	private String heartbeatFrame;
+	private Counter heartbeatsSent;
+	private Counter heartbeatsSuppressed;
+	private Timer livenessDetectionLatency;
+	private PipelineMetrics pipelineMetrics;
+
 	@PostConstruct
 	public void startConnection() throws MalformedURLException, URISyntaxException {
-		connectionDisposable = reconnectOnError(makeWebsocketHandler());
+		heartbeatFrame = objectToJson(new UnsequencedHeartbeat("UnsequencedHeartbeat"));
+		heartbeatsSent = meterRegistry.counter("websocket.heartbeats.sent");
+		heartbeatsSuppressed = meterRegistry.counter("websocket.heartbeats.suppressed");
+		livenessDetectionLatency = Timer.builder("websocket.liveness.detection.latency")//
+				.description("silence from the last received message to the connection being dropped")//
+				.register(meterRegistry);
+		pipelineMetrics = new PipelineMetrics(meterRegistry);
+		reconnectEngine = new ReconnectEngine("websocket", url, reconnect, meterRegistry, pipelineMetrics::attach);
+		connectionDisposable = reconnectEngine.run(makeWebsocketHandler());
 	}
 
 	@PreDestroy
 	public void stopConnection() throws MalformedURLException, URISyntaxException {
 		connectionDisposable.dispose();
+		reconnectEngine.dispose();
 	}
 
-	private Disposable reconnectOnError(WebSocketHandler websocketHandler)
-			throws MalformedURLException, URISyntaxException {
-		return Flux.interval(reconnectInterval).startWith(-1L).onBackpressureLatest()//
-				.log("outer-loop")//
-				.<Void>flatMap(ignoredValue -> new ReactorNettyWebSocketClient()//
-						.execute(url, websocketHandler)//
-						.onErrorResume(t -> {
-							log.warn("ignoring (will reconnect)", t);
-							return Mono.empty();
-						}), 1)//
-				.subscribe();
+	private WebSocketHandler makeWebsocketHandler() {
+		return session -> {
+			HeartbeatEngine<String> heartbeatEngine = newHeartbeatEngine();
+			LivenessWatchdog livenessWatchdog = newLivenessWatchdog();
+			PayloadSampler payloadSampler = new PayloadSampler(payloadSampleEvery);
+			return session.send(heartbeatEngine.withHeartbeats(livenessWatchdog.watch(session.receive())//
+					.doOnNext(msg -> payloadSampler.inbound(msg.getPayload()))//
+					.map(msg -> messageDecoder.decode(msg.getPayload()))//
+					.doOnNext(decoded -> pipelineMetrics.decoded(decoded))//
+					.doOnNext(decoded -> adoptKeepaliveInterval(decoded, livenessWatchdog))//
+					.flatMap(decoded -> pipelineMetrics.handled(decoded.getReceivedNanos(), handleMessage(decoded)),1))//
+					.startWith(initiateLogin())//
+					.map(str -> session.textMessage(str))//
+					.doOnNext(msg -> {
+						pipelineMetrics.sent();
+						payloadSampler.outbound(msg.getPayload());
+					}));
+		};
 	}
 
-	private WebSocketHandler makeWebsocketHandler() {
-		return session -> session.send(session.receive()//
-				.map(msg -> msg.getPayloadAsText())//
-				.log("ws-in")// TODO: this will not close a connection if the server
-																// stops heartbeating
-				.map(msg -> toJsonNode(msg))//
-				.flatMap(jsonNode -> handleMessage(jsonNode),1)
-				.switchMap(str -> followWithHeartbeat(str))//
-				.startWith(initiateLogin())//
-				.log("ws-out")//
-				.map(str -> session.textMessage(str)));
+	/**
+	 * one per session, the heartbeat frame and counters are shared
+	 */
+	private HeartbeatEngine<String> newHeartbeatEngine() {
+		return new HeartbeatEngine<>(heartbeatFrame, heartbeatInterval, heartbeatsSent, heartbeatsSuppressed);
+	}
+
+	/**
+	 * one per session, until the EstablishmentAck arrives the server is expected
+	 * to keep alive at the interval advertised in Establish
+	 */
+	private LivenessWatchdog newLivenessWatchdog() {
+		return new LivenessWatchdog(heartbeatInterval.multipliedBy(2), missedKeepalives, livenessDetectionLatency);
 	}
 
-	private Flux<String> followWithHeartbeat(String msg) {
-		return Flux.interval(heartbeatInterval)//
-				.map(ignore -> new UnsequencedHeartbeat("UnsequencedHeartbeat"))//
-				.map(o -> objectToJson(o))//
-				.startWith(msg);
+	private void adoptKeepaliveInterval(DecodedMessage decoded, LivenessWatchdog livenessWatchdog) {
+		if ("EstablishmentAck".equals(decoded.getMessageType())) {
+			EstablishmentAck establishmentAck = (EstablishmentAck) decoded.getBody();
+			log.info("server keepalive interval is {}ms", establishmentAck.getKeepaliveInterval());
+			livenessWatchdog.setKeepaliveInterval(Duration.ofMillis(establishmentAck.getKeepaliveInterval()));
+		}
 	}
 
 	private String initiateLogin() {
@@ -105,17 +146,14 @@ public class Client {
 		return objectToJson(msg);
 	}
 
-	private Flux<String> handleMessage(JsonNode jsonNode) {
+	private Flux<String> handleMessage(DecodedMessage decoded) {
 		try {
-			String adminMsgType = Optional.ofNullable(jsonNode.get("MessageType")).map(i -> i.asText()).orElse("");
-	
-			switch (adminMsgType) {
+			switch (decoded.getMessageType()) {
 			case "NegotiationReject":
 				// nop as the other side will close
 				return Flux.empty();
 			case "NegotiationResponse":
-				log.info("NegotiationResponse {}", jsonNode);
-				NegotiationResponse negotiationResponse = jsonNodeTo(jsonNode, NegotiationResponse.class);
+				NegotiationResponse negotiationResponse = (NegotiationResponse) decoded.getBody();
 				log.info("NegotiationResponse {}", negotiationResponse);
 				Establish establish = new Establish(negotiationResponse.getSessionId(), //
 						System.currentTimeMillis() * 1_000_000, //milli to nano
@@ -124,6 +162,7 @@ public class Client {
 						"Establish");
 				return Flux.just(objectToJson(establish));
 			case "EstablishmentAck":
+				reconnectEngine.established();
 				// logged in
 				return Flux.empty();
 			case "":
@@ -133,7 +172,7 @@ public class Client {
 				return Flux.empty();
 			}
 		} catch (RuntimeException e) {
-			log.error("while handling {}", jsonNode, e);
+			log.error("while handling {}", decoded, e);
 			throw e; //when this is thrown the connection will close
 		}
 	}
@@ -146,20 +185,5 @@ public class Client {
 		}
 	}
 
-	private <T> T jsonNodeTo(JsonNode node, Class<T> clazz) {
-		try {
-			return objectMapper.treeToValue(node, clazz);
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException("this should not happen", e);
-		}
-	}
-
-	private JsonNode toJsonNode(String msg) {
-		try {
-			return objectMapper.readTree(msg);
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException(e);
-		}
-	}
 
 }
@@ -0,0 +1,145 @@
+package com.ig.fix.igus.examples;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.net.ssl.SSLException;
+
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Keeps one websocket session up. The {@link HttpClient}, its event loop and
+ * TLS context are built once and reused by every attempt, so a session always
+ * runs on the same event loop thread. After a session ends
+ * or an attempt fails the next one waits for an exponential, jittered and
+ * capped backoff; the backoff goes back to minBackoff once a session is
+ * established.
+ */
+@Slf4j
+public class ReconnectEngine {
+	private final String name;
+	private final URI url;
+	private final ReconnectProperties properties;
+	private final LoopResources loopResources;
+	private final ReactorNettyWebSocketClient webSocketClient;
+
+	private final Counter reconnects;
+	private final Timer timeToReconnect;
+	private final Timer timeToEstablishmentAck;
+
+	private volatile int failedAttempts;
+	private volatile long attemptStartNanos;
+	/**
+	 * System.nanoTime() when the last session was lost, 0 while connected
+	 */
+	private volatile long lostNanos;
+
+	/**
+	 * @param name        of the session, and of its event loop thread
+	 * @param onConnected called with the channel of every new connection
+	 */
+	public ReconnectEngine(String name, URI url, ReconnectProperties properties, MeterRegistry meterRegistry,
+			Consumer<Channel> onConnected) {
+		this.name = name;
+		this.url = url;
+		this.properties = properties;
+		loopResources = LoopResources.create(name, 1, true);
+		// websocket connections are long lived and never returned to a pool
+		HttpClient httpClient = HttpClient.create(ConnectionProvider.newConnection())//
+				.runOn(loopResources)//
+				.doOnConnected(connection -> onConnected.accept(connection.channel()));
+		if ("wss".equalsIgnoreCase(url.getScheme())) {
+			SslContext sslContext = newSslContext();
+			httpClient = httpClient.secure(spec -> spec.sslContext(sslContext));
+		}
+		webSocketClient = new ReactorNettyWebSocketClient(httpClient);
+		reconnects = meterRegistry.counter("websocket.reconnects");
+		timeToReconnect = Timer.builder("websocket.reconnect.time")//
+				.description("from losing a session to the websocket handshake of the next one")//
+				.register(meterRegistry);
+		timeToEstablishmentAck = Timer.builder("websocket.establishment.time")//
+				.description("from the start of a connection attempt to its EstablishmentAck")//
+				.register(meterRegistry);
+	}
+
+	private static SslContext newSslContext() {
+		try {
+			return SslContextBuilder.forClient().build();
+		} catch (SSLException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	/**
+	 * connects, and reconnects, until disposed
+	 */
+	public Disposable run(WebSocketHandler websocketHandler) {
+		return Mono.defer(() -> attempt(websocketHandler))//
+				.onErrorResume(t -> {
+					log.warn("ignoring (will reconnect)", t);
+					return Mono.empty();
+				})//
+				.then(Mono.defer(() -> Mono.delay(nextBackoff())))//
+				.repeat()//
+				.subscribe();
+	}
+
+	public void dispose() {
+		loopResources.dispose();
+	}
+
+	/**
+	 * to be called on EstablishmentAck
+	 */
+	public void established() {
+		timeToEstablishmentAck.record(System.nanoTime() - attemptStartNanos, TimeUnit.NANOSECONDS);
+		failedAttempts = 0;
+	}
+
+	private Mono<Void> attempt(WebSocketHandler websocketHandler) {
+		attemptStartNanos = System.nanoTime();
+		if (lostNanos != 0) {
+			reconnects.increment();
+		}
+		log.info("{} connecting to {}", name, url);
+		return webSocketClient.execute(url, session -> {
+			if (lostNanos != 0) {
+				timeToReconnect.record(System.nanoTime() - lostNanos, TimeUnit.NANOSECONDS);
+				lostNanos = 0;
+			}
+			return websocketHandler.handle(session)//
+					.doFinally(signal -> lostNanos = System.nanoTime());
+		});
+	}
+
+	private Duration nextBackoff() {
+		long min = properties.getMinBackoff().toNanos();
+		long max = properties.getMaxBackoff().toNanos();
+		long backoff = failedAttempts < 32 ? Math.min(max, min << failedAttempts) : max;
+		if (backoff < 0) {
+			backoff = max; // overflow
+		}
+		++failedAttempts;
+		double jitter = properties.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+		Duration delay = Duration.ofNanos(Math.max(0, (long) (backoff * (1 + jitter))));
+		log.info("{} reconnecting in {}ms", name, delay.toMillis());
+		return delay;
+	}
+}
@@ -0,0 +1,78 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * runs the client against a local stub server that logs it in, promises to
+ * keep alive every 200ms and then never sends anything again. The client has
+ * to drop the connection and log in again.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"client.reconnect.min-backoff=100ms", //
+		"client.heartbeat-interval=100ms", //
+		"client.missed-keepalives=2" })
+class LivenessWatchdogTest {
+	private static final AtomicInteger connections = new AtomicInteger();
+	private static DisposableServer stubServer;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void startStubServer(DynamicPropertyRegistry registry) {
+		stubServer = HttpServer.create().port(0)//
+				.route(routes -> routes.ws("/", (in, out) -> {
+					connections.incrementAndGet();
+					return out.sendString(in.receive().asString().flatMap(frame -> reply(frame))).neverComplete();
+				}))//
+				.bindNow();
+		registry.add("URL", () -> "ws://localhost:" + stubServer.port() + "/");
+	}
+
+	private static Flux<String> reply(String frame) {
+		String sessionId = UUID.randomUUID().toString();
+		if (frame.contains("\"Negotiate\"")) {
+			return Flux.just("{\"MessageType\":\"NegotiationResponse\",\"SessionId\":\"" + sessionId
+					+ "\",\"RequestTimestamp\":0}");
+		}
+		if (frame.contains("\"Establish\"")) {
+			return Flux.just("{\"MessageType\":\"EstablishmentAck\",\"SessionId\":\"" + sessionId
+					+ "\",\"RequestTimestamp\":0,\"KeepaliveInterval\":200}");
+		}
+		// goes silent, the client heartbeats are swallowed
+		return Flux.empty();
+	}
+
+	@AfterAll
+	static void stopStubServer() {
+		stubServer.disposeNow();
+	}
+
+	@Test
+	void reconnectsWhenTheServerGoesSilent() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (connections.get() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(connections.get() >= 2, "the silent connection was not dropped");
+		assertTrue(meterRegistry.timer("websocket.liveness.detection.latency").count() >= 1);
+		assertTrue(meterRegistry.counter("websocket.reconnects").count() >= 1);
+	}
+}
@@ -6,7 +6,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.Date;
-import java.util.Optional;
 import java.util.UUID;
 
 import javax.annotation.PostConstruct;
@@ -16,12 +15,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.socket.WebSocketHandler;
-import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.WebSocketMessage;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ig.orchestrations.fixp.Establish;
+import com.ig.orchestrations.fixp.EstablishmentAck;
 import com.ig.orchestrations.fixp.FlowType;
 import com.ig.orchestrations.fixp.IgExtensionCredentials;
 import com.ig.orchestrations.fixp.Negotiate;
@@ -37,6 +36,9 @@ import com.ig.orchestrations.us.rfed.fields.TimeInForce;
 import com.ig.orchestrations.us.rfed.messages.ExecutionReport;
 import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
@@ -59,54 +61,124 @@ public class Client {
 	@Setter
 	private String account;
 	@Setter
-	private Duration reconnectInterval;
+	private ReconnectProperties reconnect = new ReconnectProperties();
+	@Setter
+	private OrderGatewayProperties orders = new OrderGatewayProperties();
 	@Setter
 	private Duration heartbeatInterval;
+	/**
+	 * keepalive intervals without receiving anything before the connection is
+	 * considered dead
+	 */
+	@Setter
+	private int missedKeepalives = 3;
+	/**
+	 * log one in this many payloads, 0 for none
+	 */
+	@Setter
+	private int payloadSampleEvery;
 
 	@Autowired
 	private ObjectMapper objectMapper;
+	@Autowired
+	private MessageDecoder messageDecoder;
+	@Autowired
+	private MeterRegistry meterRegistry;
 
+	private ReconnectEngine reconnectEngine;
+	private OrderGateway orderGateway;
 	private Disposable connectionDisposable;
 
+	private String heartbeatFrame;
+	private Counter heartbeatsSent;
+	private Counter heartbeatsSuppressed;
+	private Timer livenessDetectionLatency;
+	private PipelineMetrics pipelineMetrics;
+
 
 	@PostConstruct
 	public void startConnection() throws MalformedURLException, URISyntaxException {
-		connectionDisposable = reconnectOnError(makeWebsocketHandler());
+		heartbeatFrame = objectToJson(new UnsequencedHeartbeat("UnsequencedHeartbeat"));
+		heartbeatsSent = meterRegistry.counter("websocket.heartbeats.sent");
+		heartbeatsSuppressed = meterRegistry.counter("websocket.heartbeats.suppressed");
+		livenessDetectionLatency = Timer.builder("websocket.liveness.detection.latency")//
+				.description("silence from the last received message to the connection being dropped")//
+				.register(meterRegistry);
+		pipelineMetrics = new PipelineMetrics(meterRegistry);
+		orderGateway = new OrderGateway(orders, meterRegistry);
+		reconnectEngine = new ReconnectEngine("websocket", url, reconnect, meterRegistry, pipelineMetrics::attach);
+		connectionDisposable = reconnectEngine.run(makeWebsocketHandler());
 	}
 
 	@PreDestroy
 	public void stopConnection() throws MalformedURLException, URISyntaxException {
 		connectionDisposable.dispose();
+		reconnectEngine.dispose();
+		orderGateway.dispose();
 	}
 
-	private Disposable reconnectOnError(WebSocketHandler websocketHandler)
-			throws MalformedURLException, URISyntaxException {
-		return Flux.interval(reconnectInterval).startWith(-1L).onBackpressureLatest()//
-				.log("outer-loop")//
-				.<Void>flatMap(ignoredValue -> new ReactorNettyWebSocketClient()//
-						.execute(url, websocketHandler)//
-						.onErrorResume(t -> {
-							log.warn("ignoring (will reconnect)", t);
-							return Mono.empty();
-						}), 1)//
-				.subscribe();
+	/**
+	 * sends order as soon as a session is established, without blocking
+	 *
+	 * @return the ExecutionReport that ends the order
+	 * @see OrderGateway#submit(NewOrderSingle)
+	 */
+	public Mono<ExecutionReport> submit(NewOrderSingle order) {
+		return orderGateway.submit(order);
 	}
 
 	private WebSocketHandler makeWebsocketHandler() {
-		return session -> session.send(session.receive()//
-				.map(msg -> msg.getPayloadAsText()).log("ws-in")// TODO: this will not close a connection if the server
-																// stops heartbeating
-				.map(msg -> toJsonNode(msg)).flatMap(jsonNode -> handleMessage(jsonNode))
-				.switchMap(str -> followWithHeartbeat(str))//
-				.startWith(initiateLogin()).log("ws-out")//
-				.map(str -> session.textMessage(str)));
+		return session -> {
+			HeartbeatEngine<Object> heartbeatEngine = newHeartbeatEngine();
+			LivenessWatchdog livenessWatchdog = newLivenessWatchdog();
+			PayloadSampler payloadSampler = new PayloadSampler(payloadSampleEvery);
+			OutboundEncoder outboundEncoder = newOutboundEncoder();
+			return session.send(heartbeatEngine.withHeartbeats(livenessWatchdog.watch(session.receive())//
+					.doOnNext(msg -> payloadSampler.inbound(msg.getPayload()))//
+					.map(msg -> messageDecoder.decode(msg.getPayload()))//
+					.doOnNext(decoded -> pipelineMetrics.decoded(decoded))//
+					.doOnNext(decoded -> adoptKeepaliveInterval(decoded, livenessWatchdog))//
+					.flatMap(decoded -> pipelineMetrics.handled(decoded.getReceivedNanos(), handleMessage(decoded))))//
+					.startWith(initiateLogin())//
+					.map(msg -> new WebSocketMessage(WebSocketMessage.Type.TEXT,
+							outboundEncoder.encode(msg, session.bufferFactory())))//
+					.doOnNext(msg -> {
+						pipelineMetrics.sent();
+						payloadSampler.outbound(msg.getPayload());
+					}))//
+					.doFinally(signal -> orderGateway.sessionLost());
+		};
 	}
 
-	private Flux<String> followWithHeartbeat(String msg) {
-		return Flux.interval(heartbeatInterval)//
-				.map(ignore -> new UnsequencedHeartbeat("UnsequencedHeartbeat"))//
-				.map(o -> objectToJson(o))//
-				.startWith(msg);
+	/**
+	 * one per session, the heartbeat frame and counters are shared
+	 */
+	private HeartbeatEngine<Object> newHeartbeatEngine() {
+		return new HeartbeatEngine<>(heartbeatFrame, heartbeatInterval, heartbeatsSent, heartbeatsSuppressed);
+	}
+
+	/**
+	 * one per session, NewOrderSingles built by newOrderSingle are written from a
+	 * template
+	 */
+	private OutboundEncoder newOutboundEncoder() {
+		return new OutboundEncoder(objectMapper, () -> newOrderSingle());
+	}
+
+	/**
+	 * one per session, until the EstablishmentAck arrives the server is expected
+	 * to keep alive at the interval advertised in Establish
+	 */
+	private LivenessWatchdog newLivenessWatchdog() {
+		return new LivenessWatchdog(heartbeatInterval.multipliedBy(2), missedKeepalives, livenessDetectionLatency);
+	}
+
+	private void adoptKeepaliveInterval(DecodedMessage decoded, LivenessWatchdog livenessWatchdog) {
+		if ("EstablishmentAck".equals(decoded.getMessageType())) {
+			EstablishmentAck establishmentAck = (EstablishmentAck) decoded.getBody();
+			log.info("server keepalive interval is {}ms", establishmentAck.getKeepaliveInterval());
+			livenessWatchdog.setKeepaliveInterval(Duration.ofMillis(establishmentAck.getKeepaliveInterval()));
+		}
 	}
 
 	private String initiateLogin() {
@@ -117,17 +189,14 @@ public class Client {
 		return objectToJson(msg);
 	}
 
-	private Flux<String> handleMessage(JsonNode jsonNode) {
+	private Flux<Object> handleMessage(DecodedMessage decoded) {
 		try {
-			String adminMsgType = Optional.ofNullable(jsonNode.get("MessageType")).map(i -> i.asText()).orElse("");
-	
-			switch (adminMsgType) {
+			switch (decoded.getMessageType()) {
 			case "NegotiationReject":
 				// nop as the other side will close
 				return Flux.empty();
 			case "NegotiationResponse":
-				log.info("NegotiationResponse {}", jsonNode);
-				NegotiationResponse negotiationResponse = jsonNodeTo(jsonNode, NegotiationResponse.class);
+				NegotiationResponse negotiationResponse = (NegotiationResponse) decoded.getBody();
 				log.info("NegotiationResponse {}", negotiationResponse);
 				Establish establish = new Establish(negotiationResponse.getSessionId(), //
 						System.currentTimeMillis() * 1_000_000, //milli to nano
@@ -136,31 +205,38 @@ public class Client {
 						"Establish");
 				return Flux.just(objectToJson(establish));
 			case "EstablishmentAck":
+				reconnectEngine.established();
 				log.debug("logged in will trade");
-				return Flux.just(objectToJson(newOrderSingle()));
+				submit(newOrderSingle()).subscribe(//
+						executionReport -> log.info("order ended status={}", executionReport.getOrdStatus()), //
+						e -> log.warn("order failed", e));
+				// the session sends submitted orders until it ends
+				return orderGateway.orders().cast(Object.class);
 			case "":
 				log.debug("probably AppMessge");
-				String applicationMessageType = Optional.ofNullable(jsonNode.get("MsgType")).map(i -> i.asText()).orElse("");
+				String applicationMessageType = decoded.getMsgType();
 				if (!applicationMessageType.isBlank()) {
-					return handleApplicationMessage(applicationMessageType, jsonNode)//
-							.map(o->objectToJson(o));
+					return handleApplicationMessage(applicationMessageType, decoded.getBody());
 				}
 				return Flux.empty();
 			default:
 				return Flux.empty();
 			}
 		} catch (RuntimeException e) {
-			log.error("while handling {}", jsonNode, e);
+			log.error("while handling {}", decoded, e);
 			throw e; //when this is thrown the connection will close
 		}
 	}
 
-	private Flux<Object> handleApplicationMessage(String applicationMessageType, JsonNode jsonNode) {
+	private Flux<Object> handleApplicationMessage(String applicationMessageType, Object body) {
 		log.debug("handleApplicationMessage {}", applicationMessageType);
 		switch (applicationMessageType) {
 		case "ExecutionReport":
-			ExecutionReport executionReport = jsonNodeTo(jsonNode,ExecutionReport.class);
+			ExecutionReport executionReport = (ExecutionReport) body;
 			log.info("got execReport status={}",executionReport.getExecType());
+			if (!orderGateway.onExecutionReport(executionReport)) {
+				log.warn("no order in flight for ClOrdID={}", executionReport.getClOrdID());
+			}
 			return Flux.empty();
 		default:
 			log.warn("received unsupported msgType={}",applicationMessageType);
@@ -213,21 +289,6 @@ public class Client {
 		}
 	}
 
-	private <T> T jsonNodeTo(JsonNode node, Class<T> clazz) {
-		try {
-			return objectMapper.treeToValue(node, clazz);
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException("this should not happen", e);
-		}
-	}
-
-	private JsonNode toJsonNode(String msg) {
-		try {
-			return objectMapper.readTree(msg);
-		} catch (JsonProcessingException e) {
-			throw new RuntimeException(e);
-		}
-	}
 
 	
 	
@@ -0,0 +1,87 @@
+package com.ig.fix.igus.examples;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler.Worker;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Declares the inbound side of one session dead when nothing, not even a
+ * heartbeat, has been received for missedKeepalives keepalive intervals. The
+ * server promises its interval in EstablishmentAck, until then the interval
+ * advertised in Establish is assumed.
+ * <p>
+ * A dead session fails the inbound flow with a {@link TimeoutException} which
+ * closes the connection, so a half open socket is noticed in seconds rather
+ * than when TCP gives up. Create one per session.
+ */
+public class LivenessWatchdog {
+	private final int missedKeepalives;
+	private final Timer detectionLatency;
+
+	private volatile long keepaliveNanos;
+	private volatile long lastReceiveNanos = System.nanoTime();
+
+	/**
+	 * @param detectionLatency records the silence, from the last received
+	 *                         message to the session being declared dead
+	 */
+	public LivenessWatchdog(Duration keepaliveInterval, int missedKeepalives, Timer detectionLatency) {
+		this.keepaliveNanos = keepaliveInterval.toNanos();
+		this.missedKeepalives = missedKeepalives;
+		this.detectionLatency = detectionLatency;
+	}
+
+	/**
+	 * @param keepaliveInterval the KeepaliveInterval of the EstablishmentAck
+	 */
+	public void setKeepaliveInterval(Duration keepaliveInterval) {
+		keepaliveNanos = keepaliveInterval.toNanos();
+	}
+
+	/**
+	 * @return inbound, failing once it has been silent for too long
+	 */
+	public <T> Flux<T> watch(Flux<T> inbound) {
+		return inbound.doOnNext(msg -> lastReceiveNanos = System.nanoTime())//
+				.publish(in -> Flux.merge(in, this.<T>expiry().takeUntilOther(in.ignoreElements())));
+	}
+
+	private <T> Mono<T> expiry() {
+		return Mono.create(sink -> {
+			Worker worker = Schedulers.parallel().createWorker();
+			sink.onDispose(worker);
+			lastReceiveNanos = System.nanoTime();
+			schedule(sink, worker, keepaliveNanos);
+		});
+	}
+
+	private <T> void check(MonoSink<T> sink, Worker worker) {
+		long allowedNanos = keepaliveNanos * missedKeepalives;
+		long silentNanos = System.nanoTime() - lastReceiveNanos;
+		if (silentNanos >= allowedNanos) {
+			detectionLatency.record(silentNanos, TimeUnit.NANOSECONDS);
+			sink.error(new TimeoutException("nothing received for " + TimeUnit.NANOSECONDS.toMillis(silentNanos)
+					+ "ms, " + missedKeepalives + " keepalive intervals missed"));
+		} else {
+			// wake up at least once per interval to pick up a shorter one from the
+			// EstablishmentAck
+			schedule(sink, worker, Math.min(allowedNanos - silentNanos, keepaliveNanos));
+		}
+	}
+
+	private <T> void schedule(MonoSink<T> sink, Worker worker, long delayNanos) {
+		try {
+			worker.schedule(() -> check(sink, worker), delayNanos, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			// the session closed while checking
+		}
+	}
+}
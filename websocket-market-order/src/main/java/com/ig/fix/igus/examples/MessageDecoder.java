@@ -0,0 +1,86 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.ig.orchestrations.fixp.EstablishmentAck;
+import com.ig.orchestrations.fixp.NegotiationResponse;
+import com.ig.orchestrations.us.rfed.messages.ExecutionReport;
+
+/**
+ * Decodes an inbound frame in a single pass: the fields preceding the
+ * discriminator (MessageType for FIXP session messages, MsgType for application
+ * messages) are buffered as tokens, and once the discriminator is known the
+ * buffered tokens followed by the rest of the frame are bound straight to the
+ * target type. No String copy of the payload and no intermediate JsonNode tree
+ * is created.
+ */
+@Component
+public class MessageDecoder {
+	private static final String MESSAGE_TYPE = "MessageType";
+	private static final String MSG_TYPE = "MsgType";
+
+	/**
+	 * types this client binds, keyed by the value of the discriminator. Anything
+	 * else is decoded to a body of null.
+	 */
+	private static final Map<String, Class<?>> TYPES = Map.of(//
+			"NegotiationResponse", NegotiationResponse.class, //
+			"EstablishmentAck", EstablishmentAck.class, //
+			"ExecutionReport", ExecutionReport.class);
+
+	private final ObjectMapper objectMapper;
+
+	public MessageDecoder(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+	}
+
+	public DecodedMessage decode(DataBuffer payload) {
+		long receivedNanos = System.nanoTime();
+		try (InputStream in = payload.asInputStream(); //
+				JsonParser parser = objectMapper.getFactory().createParser(in)) {
+			return decode(parser, receivedNanos);
+		} catch (IOException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	DecodedMessage decode(JsonParser parser, long receivedNanos) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("expected a json object but got " + parser.currentToken());
+		}
+		TokenBuffer preceding = new TokenBuffer(parser);
+		preceding.writeStartObject();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.getCurrentName();
+			parser.nextToken();
+			if (MESSAGE_TYPE.equals(fieldName) || MSG_TYPE.equals(fieldName)) {
+				String type = parser.getText();
+				Class<?> clazz = TYPES.get(type);
+				Object body = null;
+				if (clazz != null) {
+					// the bound types carry the discriminator too, so replay it
+					preceding.writeStringField(fieldName, type);
+					JsonParser bodyParser = JsonParserSequence.createFlattened(false, preceding.asParser(parser),
+							parser);
+					bodyParser.nextToken();
+					body = objectMapper.readValue(bodyParser, clazz);
+				}
+				return MESSAGE_TYPE.equals(fieldName) ? new DecodedMessage(type, "", body, receivedNanos)
+						: new DecodedMessage("", type, body, receivedNanos);
+			}
+			preceding.writeFieldName(fieldName);
+			preceding.copyCurrentStructure(parser);
+		}
+		return new DecodedMessage("", "", null, receivedNanos);
+	}
+}
@@ -0,0 +1,204 @@
+package com.ig.fix.igus.examples;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The json of one message shape, precompiled into constant byte segments with
+ * slots for the fields that change from one message to the next.
+ * <p>
+ * A template is compiled by serialising a prototype message with the
+ * ObjectMapper the client uses anyway, once with base values and once per
+ * field with that field altered: the bytes that differ are the slot of the
+ * field, everything else is constant. This keeps the output byte for byte what
+ * Jackson writes, whatever annotations the binding carries.
+ * <p>
+ * String values are json escaped straight into the buffer. Other values (dates,
+ * decimals) are formatted by serialising the prototype again, which is cached
+ * per field so a SendingTime costs one Jackson call per millisecond rather than
+ * per message.
+ * <p>
+ * Not thread safe: use one instance per sending thread.
+ */
+public class MessageTemplate {
+	public interface Prototype {
+		/**
+		 * @return the message holding values, indexed by field
+		 */
+		Object build(Object[] values);
+	}
+
+	private final ObjectMapper objectMapper;
+	private final Prototype prototype;
+	private final Object[] base;
+	private final int baseLength;
+
+	private final byte[][] segments;
+	/**
+	 * field of each slot, in output order
+	 */
+	private final int[] slotFields;
+	private final int[] fieldSlots;
+	private final int[] slotStarts;
+	private final int[] slotEnds;
+
+	private final Object[] cachedValues;
+	private final byte[][] cachedTexts;
+	private final int estimatedSize;
+
+	/**
+	 * @param base    a value per field, string values must differ from altered
+	 *                in their first and last character
+	 * @param altered a different value per field
+	 */
+	public MessageTemplate(ObjectMapper objectMapper, Prototype prototype, Object[] base, Object[] altered) {
+		this.objectMapper = objectMapper;
+		this.prototype = prototype;
+		this.base = base.clone();
+		int fieldCount = base.length;
+		byte[] baseJson = serialise(base);
+		baseLength = baseJson.length;
+
+		int[] starts = new int[fieldCount];
+		int[] ends = new int[fieldCount];
+		for (int field = 0; field < fieldCount; ++field) {
+			Object[] values = base.clone();
+			values[field] = altered[field];
+			byte[] json = serialise(values);
+			int prefix = 0;
+			int max = Math.min(json.length, baseJson.length);
+			while (prefix < max && json[prefix] == baseJson[prefix]) {
+				++prefix;
+			}
+			int suffix = 0;
+			while (suffix < max - prefix && json[json.length - 1 - suffix] == baseJson[baseJson.length - 1 - suffix]) {
+				++suffix;
+			}
+			starts[field] = prefix;
+			ends[field] = baseJson.length - suffix;
+			if (base[field] instanceof CharSequence && !new String(baseJson, prefix, ends[field] - prefix,
+					StandardCharsets.UTF_8).equals(base[field].toString())) {
+				throw new IllegalStateException("cannot find the slot of field " + field + " in the template");
+			}
+		}
+
+		slotFields = new int[fieldCount];
+		fieldSlots = new int[fieldCount];
+		Integer[] order = new Integer[fieldCount];
+		for (int field = 0; field < fieldCount; ++field) {
+			order[field] = field;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+		slotStarts = new int[fieldCount];
+		slotEnds = new int[fieldCount];
+		segments = new byte[fieldCount + 1][];
+		int position = 0;
+		int size = 0;
+		for (int slot = 0; slot < fieldCount; ++slot) {
+			int field = order[slot];
+			if (starts[field] < position) {
+				throw new IllegalStateException("the slots of the template overlap at field " + field);
+			}
+			slotFields[slot] = field;
+			fieldSlots[field] = slot;
+			slotStarts[slot] = starts[field];
+			slotEnds[slot] = ends[field];
+			segments[slot] = Arrays.copyOfRange(baseJson, position, starts[field]);
+			size += segments[slot].length;
+			position = ends[field];
+		}
+		segments[fieldCount] = Arrays.copyOfRange(baseJson, position, baseJson.length);
+		size += segments[fieldCount].length;
+		estimatedSize = size + 32 * fieldCount;
+
+		cachedValues = new Object[fieldCount];
+		cachedTexts = new byte[fieldCount][];
+	}
+
+	/**
+	 * @return an upper bound of the message size for typical values, to size
+	 *         buffers
+	 */
+	public int estimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+	 * writes the message holding values, indexed by field, into out
+	 */
+	public DataBuffer write(DataBuffer out, Object[] values) {
+		for (int slot = 0; slot < slotFields.length; ++slot) {
+			out.write(segments[slot]);
+			int field = slotFields[slot];
+			Object value = values[field];
+			if (value instanceof CharSequence) {
+				writeEscaped(out, (CharSequence) value);
+			} else {
+				out.write(textOf(field, value));
+			}
+		}
+		return out.write(segments[slotFields.length]);
+	}
+
+	private byte[] textOf(int field, Object value) {
+		if (cachedTexts[field] != null && Objects.equals(cachedValues[field], value)) {
+			return cachedTexts[field];
+		}
+		Object[] values = base.clone();
+		values[field] = value;
+		byte[] json = serialise(values);
+		int slot = fieldSlots[field];
+		int start = slotStarts[slot];
+		int end = json.length - (baseLength - slotEnds[slot]);
+		byte[] text = Arrays.copyOfRange(json, start, end);
+		cachedValues[field] = value;
+		cachedTexts[field] = text;
+		return text;
+	}
+
+	private byte[] serialise(Object[] values) {
+		try {
+			return objectMapper.writeValueAsBytes(prototype.build(values));
+		} catch (JsonProcessingException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	static void writeEscaped(DataBuffer out, CharSequence value) {
+		for (int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.write((byte) '\\');
+				out.write((byte) c);
+			} else if (c < 0x20) {
+				out.write((byte) '\\');
+				out.write((byte) 'u');
+				out.write((byte) '0');
+				out.write((byte) '0');
+				out.write((byte) Character.forDigit(c >> 4, 16));
+				out.write((byte) Character.forDigit(c & 0xF, 16));
+			} else if (c < 0x80) {
+				out.write((byte) c);
+			} else if (c < 0x800) {
+				out.write((byte) (0xC0 | c >> 6));
+				out.write((byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				out.write((byte) (0xF0 | codePoint >> 18));
+				out.write((byte) (0x80 | codePoint >> 12 & 0x3F));
+				out.write((byte) (0x80 | codePoint >> 6 & 0x3F));
+				out.write((byte) (0x80 | codePoint & 0x3F));
+			} else {
+				out.write((byte) (0xE0 | c >> 12));
+				out.write((byte) (0x80 | c >> 6 & 0x3F));
+				out.write((byte) (0x80 | c & 0x3F));
+			}
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.ig.fix.igus.examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ig.orchestrations.us.rfed.fields.ExecType;
+import com.ig.orchestrations.us.rfed.fields.OrdStatus;
+import com.ig.orchestrations.us.rfed.messages.ExecutionReport;
+import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Submits NewOrderSingles from any thread and completes each with the
+ * ExecutionReport that ends it, correlated by ClOrdID.
+ * <p>
+ * A submitted order goes into a bounded buffer and the caller returns at once:
+ * it never waits for the session, the event loop or the socket. The buffer is
+ * drained by {@link #orders()}, which the session merges into its outbound flow
+ * once established; orders submitted while disconnected wait there for the
+ * next session. When the buffer is full submit fails rather than block.
+ * <p>
+ * Meters:
+ * <ul>
+ * <li>orders.ack.time, from writing an order to its first ExecutionReport</li>
+ * <li>orders.fill.time, from writing an order to each ExecutionReport with
+ * ExecType Trade</li>
+ * <li>orders.queue.full, orders refused because the buffer was full</li>
+ * </ul>
+ */
+@Slf4j
+public class OrderGateway {
+	private static class PendingOrder {
+		final NewOrderSingle order;
+		final Sinks.One<ExecutionReport> result = Sinks.one();
+		/**
+		 * taken from the buffer by a session, which may have died since
+		 */
+		volatile boolean taken;
+		/**
+		 * System.nanoTime() when written, 0 until then. Set under the lock of
+		 * inFlight, so a session lost before the order was written fails it as
+		 * not sent
+		 */
+		volatile long sentNanos;
+		volatile boolean acknowledged;
+
+		PendingOrder(NewOrderSingle order) {
+			this.order = order;
+		}
+	}
+
+	private final Sinks.Many<PendingOrder> outbound;
+	/**
+	 * guarded by itself
+	 */
+	private final ClOrdIdMap<PendingOrder> inFlight;
+	private final Scheduler scheduler = Schedulers.newSingle("orders", true);
+
+	private final Timer ackTime;
+	private final Timer fillTime;
+	private final Counter queueFull;
+
+	public OrderGateway(OrderGatewayProperties properties, MeterRegistry meterRegistry) {
+		// not cancelled with its subscriber, so orders survive a reconnect
+		outbound = Sinks.many().multicast().onBackpressureBuffer(properties.getQueueCapacity(), false);
+		inFlight = new ClOrdIdMap<>(properties.getExpectedInFlight());
+		ackTime = Timer.builder("orders.ack.time")//
+				.description("from writing an order to its first ExecutionReport")//
+				.publishPercentileHistogram()//
+				.register(meterRegistry);
+		fillTime = Timer.builder("orders.fill.time")//
+				.description("from writing an order to an ExecutionReport of a trade")//
+				.publishPercentileHistogram()//
+				.register(meterRegistry);
+		queueFull = meterRegistry.counter("orders.queue.full");
+	}
+
+	/**
+	 * queues order to be sent, without blocking. The order is sent whether or not
+	 * the result is subscribed to.
+	 *
+	 * @return the ExecutionReport with OrdStatus Filled, Canceled, Rejected or
+	 *         Expired, or an error if the order could not be queued or the
+	 *         session was lost before it ended
+	 */
+	public Mono<ExecutionReport> submit(NewOrderSingle order) {
+		String clOrdID = order.getClOrdID();
+		if (clOrdID == null) {
+			return Mono.error(new IllegalArgumentException("the order has no ClOrdID"));
+		}
+		PendingOrder pendingOrder = new PendingOrder(order);
+		synchronized (inFlight) {
+			if (inFlight.get(clOrdID) != null) {
+				return Mono.error(new IllegalArgumentException("an order with ClOrdID " + clOrdID + " is in flight"));
+			}
+			inFlight.put(clOrdID, pendingOrder);
+		}
+		Sinks.EmitResult emitResult;
+		while ((emitResult = outbound.tryEmitNext(pendingOrder)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+			// another thread is submitting
+			Thread.onSpinWait();
+		}
+		if (emitResult.isFailure()) {
+			synchronized (inFlight) {
+				inFlight.remove(clOrdID);
+			}
+			queueFull.increment();
+			return Mono.error(new IllegalStateException("cannot queue " + clOrdID + ": " + emitResult));
+		}
+		return pendingOrder.result.asMono();
+	}
+
+	/**
+	 * @return the queued orders, for the outbound flow of an established
+	 *         session. Orders are handed over on a thread of the gateway so
+	 *         submitters only pay for the enqueue, one at a time so that few are
+	 *         taken from the buffer ahead of being written
+	 */
+	public Flux<NewOrderSingle> orders() {
+		return outbound.asFlux()//
+				.doOnNext(pendingOrder -> pendingOrder.taken = true)//
+				.publishOn(scheduler, 1)//
+				.filter(this::sending)//
+				.map(pendingOrder -> pendingOrder.order);
+	}
+
+	/**
+	 * @return false when the session was lost, and the order failed, since it was
+	 *         taken
+	 */
+	private boolean sending(PendingOrder pendingOrder) {
+		synchronized (inFlight) {
+			if (inFlight.get(pendingOrder.order.getClOrdID()) != pendingOrder) {
+				return false;
+			}
+			pendingOrder.sentNanos = System.nanoTime();
+			return true;
+		}
+	}
+
+	/**
+	 * @return whether report belongs to an order in flight
+	 */
+	public boolean onExecutionReport(ExecutionReport report) {
+		long receivedNanos = System.nanoTime();
+		String clOrdID = report.getClOrdID();
+		boolean terminal = isTerminal(report.getOrdStatus());
+		PendingOrder pendingOrder;
+		synchronized (inFlight) {
+			pendingOrder = terminal ? inFlight.remove(clOrdID) : inFlight.get(clOrdID);
+		}
+		if (pendingOrder == null) {
+			return false;
+		}
+		long sentNanos = pendingOrder.sentNanos;
+		if (sentNanos != 0) {
+			if (!pendingOrder.acknowledged) {
+				ackTime.record(receivedNanos - sentNanos, TimeUnit.NANOSECONDS);
+			}
+			if (report.getExecType() == ExecType.TRADE) {
+				fillTime.record(receivedNanos - sentNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+		pendingOrder.acknowledged = true;
+		if (terminal) {
+			pendingOrder.result.tryEmitValue(report);
+		}
+		return true;
+	}
+
+	/**
+	 * to be called when a session ends: the orders it wrote may or may not have
+	 * reached the server, so they fail rather than wait forever. Those it took
+	 * but never wrote fail as not sent. Orders still queued go to the next
+	 * session.
+	 */
+	public void sessionLost() {
+		List<PendingOrder> lost = new ArrayList<>();
+		synchronized (inFlight) {
+			inFlight.forEach((clOrdID, pendingOrder) -> {
+				if (pendingOrder.taken) {
+					lost.add(pendingOrder);
+				}
+			});
+			for (PendingOrder pendingOrder : lost) {
+				inFlight.remove(pendingOrder.order.getClOrdID());
+			}
+		}
+		for (PendingOrder pendingOrder : lost) {
+			String clOrdID = pendingOrder.order.getClOrdID();
+			if (pendingOrder.sentNanos == 0) {
+				log.warn("session lost before {} was sent", clOrdID);
+				pendingOrder.result.tryEmitError(new IllegalStateException(
+						"session lost before " + clOrdID + " was sent, it can be submitted again"));
+				continue;
+			}
+			log.warn("session lost with {} in flight, its state is unknown", clOrdID);
+			pendingOrder.result.tryEmitError(new IllegalStateException(
+					"session lost before " + clOrdID + " ended, its state is unknown"));
+		}
+	}
+
+	public void dispose() {
+		scheduler.dispose();
+	}
+
+	private static boolean isTerminal(OrdStatus ordStatus) {
+		return ordStatus == OrdStatus.FILLED || ordStatus == OrdStatus.CANCELED || ordStatus == OrdStatus.REJECTED
+				|| ordStatus == OrdStatus.EXPIRED;
+	}
+}
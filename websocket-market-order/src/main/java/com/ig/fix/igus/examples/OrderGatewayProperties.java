@@ -0,0 +1,16 @@
+package com.ig.fix.igus.examples;
+
+import lombok.Data;
+
+@Data
+public class OrderGatewayProperties {
+	/**
+	 * orders submitted but not yet written to the session, submit fails beyond
+	 * that rather than block
+	 */
+	private int queueCapacity = 1024;
+	/**
+	 * orders expected in flight at once, sizes the ClOrdID table
+	 */
+	private int expectedInFlight = 1024;
+}
@@ -0,0 +1,153 @@
+package com.ig.fix.igus.examples;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.fields.Side;
+import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
+
+/**
+ * Serialises outbound messages straight into buffers of the session's
+ * (pooled) allocator. NewOrderSingles shaped like the ones the client builds go
+ * through a precompiled {@link MessageTemplate}, one per Side, with ClOrdID,
+ * SecurityID, Currency, OrderQty, Account, SendingTime and TransactTime patched
+ * in. An order only counts as shaped like them when every other field equals
+ * the one of the client's order, so nothing set on it is lost; any other order
+ * goes through Jackson. Strings are taken as already serialised.
+ * <p>
+ * Not thread safe: use one instance per session.
+ */
+public class OutboundEncoder {
+	private static final int CL_ORD_ID = 0;
+	private static final int SECURITY_ID = 1;
+	private static final int CURRENCY = 2;
+	private static final int ORDER_QTY = 3;
+	private static final int ACCOUNT = 4;
+	private static final int SENDING_TIME = 5;
+	private static final int TRANSACT_TIME = 6;
+
+	/**
+	 * JSON names of the fields written by a template
+	 */
+	private static final Set<String> PATCHED = Set.of("ClOrdID", "Side", "SecurityID", "Currency", "OrderQty",
+			"Account", "SendingTime", "TransactTime");
+	private static final Object[] BASE = { "A", "A", "A", BigDecimal.ONE, "A", new Date(0), new Date(0) };
+	private static final Object[] ALTERED = { "B", "B", "B", BigDecimal.valueOf(2), "B", new Date(4102444799999L),
+			new Date(4102444799999L) };
+
+	private final ObjectMapper objectMapper;
+	private final Supplier<NewOrderSingle> orders;
+	private final Map<Side, MessageTemplate> newOrderSingleTemplates = new EnumMap<>(Side.class);
+	/**
+	 * the constant fields of templated NewOrderSingles
+	 */
+	private final NewOrderSingle newOrderSingleShape;
+	/**
+	 * every field of NewOrderSingle a template does not patch
+	 */
+	private final Field[] constantFields = constantFields();
+	private final Object[] values = new Object[7];
+
+	/**
+	 * @param orders how the client builds a NewOrderSingle, the fields patched by
+	 *               the template are overwritten
+	 */
+	public OutboundEncoder(ObjectMapper objectMapper, Supplier<NewOrderSingle> orders) {
+		this.objectMapper = objectMapper;
+		this.orders = orders;
+		newOrderSingleShape = orders.get();
+	}
+
+	public DataBuffer encode(Object msg, DataBufferFactory bufferFactory) {
+		if (msg instanceof String) {
+			return bufferFactory.wrap(((String) msg).getBytes(StandardCharsets.UTF_8));
+		}
+		if (msg instanceof NewOrderSingle && fitsTemplate((NewOrderSingle) msg)) {
+			NewOrderSingle order = (NewOrderSingle) msg;
+			MessageTemplate template = newOrderSingleTemplates.computeIfAbsent(order.getSide(),
+					side -> newOrderSingleTemplate(side));
+			values[CL_ORD_ID] = order.getClOrdID();
+			values[SECURITY_ID] = order.getSecurityID();
+			values[CURRENCY] = order.getCurrency();
+			values[ORDER_QTY] = order.getOrderQty();
+			values[ACCOUNT] = order.getAccount();
+			values[SENDING_TIME] = order.getSendingTime();
+			values[TRANSACT_TIME] = order.getTransactTime();
+			return template.write(bufferFactory.allocateBuffer(template.estimatedSize()), values);
+		}
+		DataBuffer out = bufferFactory.allocateBuffer();
+		try {
+			objectMapper.writeValue(out.asOutputStream(), msg);
+			return out;
+		} catch (IOException e) {
+			DataBufferUtils.release(out);
+			throw new RuntimeException("this should not happen", e);
+		}
+	}
+
+	private MessageTemplate newOrderSingleTemplate(Side side) {
+		return new MessageTemplate(objectMapper, fields -> {
+			NewOrderSingle order = orders.get();
+			order.setSide(side);
+			order.setClOrdID((String) fields[CL_ORD_ID]);
+			order.setSecurityID((String) fields[SECURITY_ID]);
+			order.setCurrency((String) fields[CURRENCY]);
+			order.setOrderQty((BigDecimal) fields[ORDER_QTY]);
+			order.setAccount((String) fields[ACCOUNT]);
+			order.setSendingTime((Date) fields[SENDING_TIME]);
+			order.setTransactTime((Date) fields[TRANSACT_TIME]);
+			return order;
+		}, BASE, ALTERED);
+	}
+
+	private boolean fitsTemplate(NewOrderSingle order) {
+		if (order.getSide() == null || order.getClOrdID() == null || order.getSecurityID() == null
+				|| order.getCurrency() == null || order.getOrderQty() == null || order.getAccount() == null
+				|| order.getSendingTime() == null || order.getTransactTime() == null) {
+			return false;
+		}
+		try {
+			for (Field field : constantFields) {
+				if (!Objects.equals(field.get(order), field.get(newOrderSingleShape))) {
+					// e.g. a Price or Text the template would drop
+					return false;
+				}
+			}
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("this should not happen", e);
+		}
+		return true;
+	}
+
+	private static Field[] constantFields() {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> type = NewOrderSingle.class; type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				JsonProperty property = field.getAnnotation(JsonProperty.class);
+				String name = property != null ? property.value() : field.getName();
+				if (!Modifier.isStatic(field.getModifiers()) && !PATCHED.contains(name)) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields.toArray(new Field[0]);
+	}
+}
@@ -0,0 +1,123 @@
+package com.ig.fix.igus.examples;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ig.orchestrations.us.rfed.fields.ApplVerID;
+import com.ig.orchestrations.us.rfed.fields.MsgType;
+import com.ig.orchestrations.us.rfed.fields.OrdType;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
+import com.ig.orchestrations.us.rfed.fields.Side;
+import com.ig.orchestrations.us.rfed.fields.TimeInForce;
+import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
+
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * NewOrderSingle to websocket frame payload: objectToJson followed by
+ * session.textMessage versus {@link OutboundEncoder}'s template written into a
+ * pooled buffer.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.ig.fix.igus.examples.OutboundEncoderBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundEncoderBenchmark {
+
+	/**
+	 * the allocator reactor netty hands to the websocket session
+	 */
+	private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+	private ObjectMapper objectMapper;
+	private OutboundEncoder outboundEncoder;
+	private NewOrderSingle order;
+	private long orderCount;
+
+	@Setup
+	public void setup() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		outboundEncoder = new OutboundEncoder(objectMapper, () -> newOrderSingle());
+		order = newOrderSingle();
+	}
+
+	/**
+	 * as Client.newOrderSingle
+	 */
+	private static NewOrderSingle newOrderSingle() {
+		NewOrderSingle req = new NewOrderSingle();
+		req.setApplVerID(ApplVerID.FIX_50_SP_2);
+		req.setMsgType(MsgType.NEW_ORDER_SINGLE);
+		req.setSendingTime(new Date());
+		req.setClOrdID("buy-1#" + System.currentTimeMillis());
+		req.setSide(Side.BUY);
+		req.setSecurityID("CS.D.GBPUSD.CZD.IP");
+		req.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+		req.setCurrency("USD");
+		req.setOrderQty(BigDecimal.ONE);
+		req.setOrdType(OrdType.MARKET);
+		req.setTimeInForce(TimeInForce.FILL_OR_KILL);
+		req.setTransactTime(new Date());
+		req.setAccount("ABC12");
+		return req;
+	}
+
+	private void nextOrder() {
+		Date now = new Date();
+		order.setClOrdID("buy-" + ++orderCount);
+		order.setSendingTime(now);
+		order.setTransactTime(now);
+	}
+
+	@Benchmark
+	public int jackson() throws JsonProcessingException {
+		nextOrder();
+		DataBuffer payload = bufferFactory.wrap(objectMapper.writeValueAsString(order).getBytes(StandardCharsets.UTF_8));
+		int size = payload.readableByteCount();
+		DataBufferUtils.release(payload);
+		return size;
+	}
+
+	@Benchmark
+	public int template() {
+		nextOrder();
+		DataBuffer payload = outboundEncoder.encode(order, bufferFactory);
+		int size = payload.readableByteCount();
+		DataBufferUtils.release(payload);
+		return size;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(OutboundEncoderBenchmark.class.getSimpleName())//
+				.addProfiler(GCProfiler.class)//
+				.build()).run();
+	}
+}
@@ -0,0 +1,106 @@
+package com.ig.fix.igus.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.ig.orchestrations.us.rfed.fields.ApplVerID;
+import com.ig.orchestrations.us.rfed.fields.MsgType;
+import com.ig.orchestrations.us.rfed.fields.OrdStatus;
+import com.ig.orchestrations.us.rfed.fields.OrdType;
+import com.ig.orchestrations.us.rfed.fields.SecurityIDSource;
+import com.ig.orchestrations.us.rfed.fields.Side;
+import com.ig.orchestrations.us.rfed.fields.TimeInForce;
+import com.ig.orchestrations.us.rfed.messages.ExecutionReport;
+import com.ig.orchestrations.us.rfed.messages.NewOrderSingle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * submits a few thousand orders through the {@link Client} to a local
+ * {@link StubExchange} that fills them after a fixed latency, logging the
+ * throughput and the round trips seen by the client.
+ */
+@SpringBootTest(properties = { //
+		"IG_USERNAME=bogous", //
+		"IG_PASSWORD=bogous", //
+		"IG_ACCOUNT=bogous", //
+		"client.orders.queue-capacity=8192" })
+@Slf4j
+class StubExchangeOrdersTest {
+	private static final int ORDERS = 5000;
+	private static final Duration EXECUTION_LATENCY = Duration.ofMillis(5);
+	private static StubExchange stubExchange;
+
+	@Autowired
+	private Client client;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@DynamicPropertySource
+	static void startStubExchange(DynamicPropertyRegistry registry) {
+		stubExchange = new StubExchange();
+		stubExchange.setQuoteRate(0);
+		stubExchange.setExecutionLatency(EXECUTION_LATENCY);
+		stubExchange.start();
+		registry.add("URL", () -> stubExchange.url());
+	}
+
+	@AfterAll
+	static void stopStubExchange() {
+		stubExchange.close();
+	}
+
+	@Test
+	void fillsEveryOrder() {
+		long startNanos = System.nanoTime();
+		List<ExecutionReport> reports = Flux.range(0, ORDERS)//
+				.flatMap(i -> client.submit(newOrderSingle("stub-" + i)), ORDERS)//
+				.collectList()//
+				.block(Duration.ofSeconds(30));
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		assertEquals(ORDERS, reports.size());
+		assertTrue(reports.stream().allMatch(report -> report.getOrdStatus() == OrdStatus.FILLED));
+		Timer ackTime = meterRegistry.timer("orders.ack.time");
+		Timer fillTime = meterRegistry.timer("orders.fill.time");
+		assertTrue(ackTime.count() >= ORDERS);
+		assertTrue(ackTime.mean(TimeUnit.NANOSECONDS) >= EXECUTION_LATENCY.toNanos());
+		log.info("{} orders/s, ack mean={}us max={}us, fill mean={}us max={}us", (long) (ORDERS / seconds),
+				(long) ackTime.mean(TimeUnit.MICROSECONDS), (long) ackTime.max(TimeUnit.MICROSECONDS),
+				(long) fillTime.mean(TimeUnit.MICROSECONDS), (long) fillTime.max(TimeUnit.MICROSECONDS));
+	}
+
+	private static NewOrderSingle newOrderSingle(String clOrdID) {
+		NewOrderSingle req = new NewOrderSingle();
+		req.setApplVerID(ApplVerID.FIX_50_SP_2);
+		req.setMsgType(MsgType.NEW_ORDER_SINGLE);
+		req.setSendingTime(new Date());
+		req.setClOrdID(clOrdID);
+		req.setSide(Side.BUY);
+		req.setSecurityID("CS.D.GBPUSD.CZD.IP");
+		req.setSecurityIDSource(SecurityIDSource.MARKETPLACE_ASSIGNED_IDENTIFIER);
+		req.setCurrency("USD");
+		req.setOrderQty(BigDecimal.ONE);
+		req.setOrdType(OrdType.MARKET);
+		req.setTimeInForce(TimeInForce.FILL_OR_KILL);
+		req.setTransactTime(new Date());
+		req.setAccount("bogous");
+		return req;
+	}
+}